@@ -0,0 +1,22 @@
+#!/bin/sh
+# Starts the app in the image. An AOT image has its @Profile and @ConditionalOnProperty choices fixed
+# at build time (AOT_PROFILES, AOT_ARGS), so it refuses to start with other profiles instead of silently
+# running the build's beans.
+set -eu
+
+if [ "$SPRING_AOT" = "true" ]; then
+    active=${SPRING_PROFILES_ACTIVE:-}
+    for arg in "$@"; do
+        case "$arg" in
+            --spring.profiles.active=*) active=${arg#--spring.profiles.active=} ;;
+        esac
+    done
+    if [ "$active" != "$AOT_PROFILES" ]; then
+        echo "This image was built with Spring AOT for profiles '$AOT_PROFILES' but profiles '$active' are active." >&2
+        echo "Rebuild with --build-arg AOT_PROFILES=$active (and AOT_ARGS for app.*.enabled switches), or with AOT=false." >&2
+        exit 1
+    fi
+fi
+
+# the JVM ignores a missing CDS archive
+exec java -XX:SharedArchiveFile=app.jsa -Xshare:auto -Dspring.aot.enabled="$SPRING_AOT" -jar app.jar "$@"
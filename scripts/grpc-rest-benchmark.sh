@@ -0,0 +1,30 @@
+#!/bin/sh
+# Compares resolve throughput of the REST API and the gRPC API of a running app, with the same
+# concurrency and request count. Needs hey (github.com/rakyll/hey) and ghz (ghz.sh); the app must
+# run with app.grpc.enabled=true, e.g.
+#
+#   mvn spring-boot:run -Dspring-boot.run.profiles=dev -Dspring-boot.run.arguments=--app.grpc.enabled=true
+#   scripts/grpc-rest-benchmark.sh
+set -eu
+
+HTTP=${HTTP:-http://localhost:8080}
+GRPC=${GRPC:-localhost:9090}
+REQUESTS=${REQUESTS:-200000}
+CONCURRENCY=${CONCURRENCY:-64}
+
+code=$(curl -sf -H 'Content-Type: application/json' -d '{"longUrl":"https://example.com/benchmark"}' \
+    "$HTTP/api/v1/urls" | sed -n 's/.*"shortUrl":"\([^"]*\)".*/\1/p')
+echo "resolving $code, $REQUESTS requests, concurrency $CONCURRENCY"
+
+rest=$(hey -n "$REQUESTS" -c "$CONCURRENCY" "$HTTP/api/v1/urls/$code" | sed -n 's/.*Requests\/sec:[[:space:]]*\([0-9.]*\).*/\1/p')
+printf '%-28s %s req/s\n' "REST GET /api/v1/urls/{code}" "$rest"
+
+grpc=$(ghz --insecure -n "$REQUESTS" -c "$CONCURRENCY" --call urlshortener.v1.UrlShortener/Resolve \
+    -d "{\"short_url\":\"$code\"}" "$GRPC" | sed -n 's/.*Requests\/sec:[[:space:]]*\([0-9.]*\).*/\1/p')
+printf '%-28s %s req/s\n' "gRPC Resolve" "$grpc"
+
+# 100 codes per stream, answered in batches by ResolveStream
+stream=$(ghz --insecure -n "$((REQUESTS / 100))" -c "$CONCURRENCY" --stream-call-count 100 \
+    --call urlshortener.v1.UrlShortener/ResolveStream -d "{\"short_url\":\"$code\"}" "$GRPC" \
+    | sed -n 's/.*Requests\/sec:[[:space:]]*\([0-9.]*\).*/\1/p')
+printf '%-28s %s streams/s (x100 codes)\n' "gRPC ResolveStream" "$stream"
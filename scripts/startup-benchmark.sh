@@ -0,0 +1,44 @@
+#!/bin/sh
+# Compares startup of two app images: time until Spring reports "Started" and until the first
+# request is answered (liveness probe), median of RUNS cold starts each. No Mongo/Redis needed.
+#
+#   docker build -t urlshortener:baseline --build-arg CDS=false .
+#   docker build -t urlshortener:fast --build-arg AOT=true .
+#   scripts/startup-benchmark.sh urlshortener:baseline urlshortener:fast
+set -eu
+
+RUNS=${RUNS:-5}
+PORT=${PORT:-18080}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : (v[NR / 2] + v[NR / 2 + 1]) / 2 }'
+}
+
+now_ms() {
+    date +%s%3N
+}
+
+measure() {
+    image=$1
+    first=""
+    started=""
+    i=0
+    while [ "$i" -lt "$RUNS" ]; do
+        t0=$(now_ms)
+        id=$(docker run -d -p "$PORT:8080" "$image")
+        until curl -sf -o /dev/null "http://localhost:$PORT/actuator/health/liveness"; do
+            sleep 0.02
+        done
+        first="$first $(( $(now_ms) - t0 ))"
+        started="$started $(docker logs "$id" 2>&1 | sed -n 's/.*Started ChallengeApplication in \([0-9.]*\) seconds.*/\1/p')"
+        docker rm -f "$id" > /dev/null
+        i=$((i + 1))
+    done
+    printf '%-32s started=%ss first_request=%sms\n' "$image" \
+        "$(echo "$started" | tr ' ' '\n' | grep . | median)" \
+        "$(echo "$first" | tr ' ' '\n' | grep . | median)"
+}
+
+for image in "$@"; do
+    measure "$image"
+done
@@ -0,0 +1,51 @@
+package url.shortener.challenge.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.service.CodeGenerator;
+import url.shortener.challenge.service.impl.NanoIdCodeGenerator;
+import url.shortener.challenge.service.impl.RangeLeasedCodeGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class CodeGeneratorBenchmark {
+
+    private CodeGenerator nanoId;
+    private CodeGenerator rangeLeased;
+
+    @Setup
+    public void setUp() {
+        AppProperties props = new AppProperties();
+        nanoId = new NanoIdCodeGenerator();
+        // no Mongo: blocks are leased from the Redis stand-in
+        rangeLeased = new RangeLeasedCodeGenerator(new InMemoryRedis(false),
+                new StaticListableBeanFactory().getBeanProvider(MongoTemplate.class), props);
+    }
+
+    @Benchmark
+    public String nanoId() {
+        return nanoId.generate(6);
+    }
+
+    @Benchmark
+    public String rangeLeased() {
+        return rangeLeased.generate(6);
+    }
+}
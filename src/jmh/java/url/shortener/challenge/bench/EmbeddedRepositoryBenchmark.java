@@ -0,0 +1,82 @@
+package url.shortener.challenge.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.entity.Url;
+import url.shortener.challenge.repository.embedded.EmbeddedUrlRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * {@link EmbeddedUrlRepository#findByShortUrl} over a populated store in a temp directory, for codes
+ * that exist ({@code hit}) and codes that don't ({@code miss}). This is the lookup that replaces the
+ * Mongo round trip on the resolve path under the embedded profile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class EmbeddedRepositoryBenchmark {
+
+    private static final int CODES = 1 << 17;
+
+    @Param({"hit", "miss"})
+    public String path;
+
+    private Path dir;
+    private EmbeddedUrlRepository repo;
+    private String[] codes;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("embedded-bench");
+        AppProperties props = new AppProperties();
+        props.getEmbedded().setDir(dir.toString());
+        repo = new EmbeddedUrlRepository(props);
+
+        SplittableRandom random = new SplittableRandom(42);
+        codes = new String[CODES];
+        for (int i = 0; i < CODES; i++) {
+            String code = Long.toString(random.nextLong(Long.MAX_VALUE), 36).substring(0, 7);
+            Url url = new Url();
+            url.setShortUrl(code + i);
+            url.setLongUrl("https://example.com/articles/" + i);
+            repo.save(url);
+            codes[i] = path.equals("miss") ? "x" + code + i : code + i;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        repo.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Optional<Url> findByShortUrl() {
+        return repo.findByShortUrl(codes[next++ & (CODES - 1)]);
+    }
+}
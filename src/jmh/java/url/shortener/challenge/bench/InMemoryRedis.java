@@ -0,0 +1,120 @@
+package url.shortener.challenge.bench;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Map-backed stand-in for the handful of Redis calls on the benchmarked paths, so benchmarks
+ * measure our code rather than the network. Scripts grant every requested token.
+ */
+class InMemoryRedis extends StringRedisTemplate {
+
+    final Map<String, String> values = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final boolean dropWrites;
+    private final ValueOperations<String, String> ops;
+    // simulated round trip for reads, 0 for none
+    volatile long latencyNanos;
+
+    @SuppressWarnings("unchecked")
+    InMemoryRedis(boolean dropWrites) {
+        this.dropWrites = dropWrites;
+        this.ops = (ValueOperations<String, String>) Proxy.newProxyInstance(
+                ValueOperations.class.getClassLoader(), new Class<?>[]{ValueOperations.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "get" -> {
+                        roundTrip();
+                        yield values.get((String) args[0]);
+                    }
+                    case "set" -> {
+                        if (!this.dropWrites) {
+                            values.put((String) args[0], (String) args[1]);
+                        }
+                        yield null;
+                    }
+                    case "multiGet" -> {
+                        roundTrip();
+                        List<String> result = new ArrayList<>();
+                        for (Object key : (Collection<?>) args[0]) {
+                            result.add(values.get((String) key));
+                        }
+                        yield result;
+                    }
+                    case "increment" -> counters.computeIfAbsent((String) args[0], k -> new AtomicLong())
+                            .addAndGet(args.length > 1 ? (Long) args[1] : 1L);
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryValueOperations";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private void roundTrip() {
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+    }
+
+    @Override
+    public ValueOperations<String, String> opsForValue() {
+        return ops;
+    }
+
+    @Override
+    public Long convertAndSend(String channel, Object message) {
+        return 0L;
+    }
+
+    /**
+     * Runs the callback against a connection that answers GET and PTTL from the map, as one round trip,
+     * and ignores every other command.
+     */
+    @Override
+    public List<Object> executePipelined(RedisCallback<?> action) {
+        List<Object> results = new ArrayList<>();
+        Object commands = Proxy.newProxyInstance(RedisConnection.class.getClassLoader(),
+                new Class<?>[]{RedisStringCommands.class, RedisKeyCommands.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "get" -> results.add(values.get(new String((byte[]) args[0], StandardCharsets.UTF_8)));
+                        case "pTtl" -> results.add(
+                                values.containsKey(new String((byte[]) args[0], StandardCharsets.UTF_8)) ? -1L : -2L);
+                        default -> {
+                        }
+                    }
+                    return null;
+                });
+        RedisConnection connection = (RedisConnection) Proxy.newProxyInstance(
+                RedisConnection.class.getClassLoader(), new Class<?>[]{RedisConnection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "stringCommands", "keyCommands" -> commands;
+                    default -> null;
+                });
+        action.doInRedis(connection);
+        if (!results.isEmpty()) {
+            roundTrip();
+        }
+        return results;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+        return (T) List.of(Long.parseLong((String) args[2]), 0L);
+    }
+}
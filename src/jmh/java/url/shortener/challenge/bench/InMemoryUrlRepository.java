@@ -0,0 +1,46 @@
+package url.shortener.challenge.bench;
+
+import url.shortener.challenge.entity.Url;
+import url.shortener.challenge.repository.ShortUrlView;
+import url.shortener.challenge.repository.UrlRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link UrlRepository} over a map, implementing only what the benchmarked paths call.
+ */
+final class InMemoryUrlRepository {
+
+    private InMemoryUrlRepository() {
+    }
+
+    static UrlRepository create(Map<String, Url> byShortUrl) {
+        Map<String, Url> store = new ConcurrentHashMap<>(byShortUrl);
+        return (UrlRepository) Proxy.newProxyInstance(
+                UrlRepository.class.getClassLoader(), new Class<?>[]{UrlRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findByShortUrl" -> Optional.ofNullable(store.get((String) args[0]));
+                    case "existsByShortUrl" -> store.containsKey((String) args[0]);
+                    case "findByShortUrlIn" -> ((Collection<?>) args[0]).stream()
+                            .map(store::get).filter(u -> u != null).toList();
+                    case "streamAllBy" -> store.keySet().stream().map(code -> (ShortUrlView) () -> code);
+                    case "streamLive" -> store.values().stream();
+                    case "save" -> {
+                        Url url = (Url) args[0];
+                        store.put(url.getShortUrl(), url);
+                        yield url;
+                    }
+                    case "insertAllUnordered" -> Set.of();
+                    case "incrementHitCounts" -> null;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryUrlRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
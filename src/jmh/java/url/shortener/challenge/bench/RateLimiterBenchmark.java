@@ -0,0 +1,62 @@
+package url.shortener.challenge.bench;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.util.Bulkheads;
+import url.shortener.challenge.util.RateLimiter;
+import url.shortener.challenge.util.UrlMetrics;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decision logic of {@link RateLimiter} with and without local admission. The script call is
+ * answered in memory, so the difference shown is our own overhead, not the saved round trips.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Threads(4)
+public class RateLimiterBenchmark {
+
+    @Param({"false", "true"})
+    public boolean localAdmission;
+
+    private RateLimiter limiter;
+    private String[] clients;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup
+    public void setUp() {
+        AppProperties props = new AppProperties();
+        props.getRateLimit().setLocalAdmission(localAdmission);
+        limiter = new RateLimiter(new InMemoryRedis(false), props,
+                new UrlMetrics(new SimpleMeterRegistry()), new Bulkheads(props));
+        SplittableRandom random = new SplittableRandom(42);
+        clients = new String[1024];
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = "10.0." + random.nextInt(256) + "." + random.nextInt(256);
+        }
+    }
+
+    @Benchmark
+    public boolean allow() {
+        return limiter.allow("create", clients[next.getAndIncrement() & (clients.length - 1)]);
+    }
+}
@@ -0,0 +1,119 @@
+package url.shortener.challenge.bench;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import url.shortener.challenge.cache.CodeExistenceFilter;
+import url.shortener.challenge.cache.LocalUrlCache;
+import url.shortener.challenge.cache.ResolveIndex;
+import url.shortener.challenge.cache.UrlCacheInvalidator;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.entity.Url;
+import url.shortener.challenge.repository.UrlRepository;
+import url.shortener.challenge.service.impl.ClickStats;
+import url.shortener.challenge.service.impl.HitCountBuffer;
+import url.shortener.challenge.service.impl.LongUrlDeduplicator;
+import url.shortener.challenge.service.impl.NanoIdCodeGenerator;
+import url.shortener.challenge.service.impl.TrendingTracker;
+import url.shortener.challenge.service.impl.UrlServiceImpl;
+import url.shortener.challenge.service.impl.WriteBehindJournal;
+import url.shortener.challenge.util.Bulkheads;
+import url.shortener.challenge.util.UrlMetrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The full {@link UrlServiceImpl#resolve} path over in-memory stand-ins, served from each level:
+ * {@code local} (L1 hit), {@code index} (L1 disabled, off-heap resolve index loaded), {@code redis}
+ * (L1 disabled) or {@code mongo} (L1 disabled, Redis never keeps anything), plus {@code unknown} for
+ * codes that don't exist.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ResolveBenchmark {
+
+    private static final int CODES = 8192;
+
+    @Param({"local", "index", "redis", "mongo", "unknown"})
+    public String path;
+
+    private UrlServiceImpl service;
+    private HitCountBuffer hitCounts;
+    private String[] codes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        AppProperties props = new AppProperties();
+        props.getLocalCache().setEnabled(path.equals("local") || path.equals("unknown"));
+        props.getResolveIndex().setEnabled(path.equals("index"));
+        props.getResolveIndex().setInitialCapacity(CODES);
+
+        SplittableRandom random = new SplittableRandom(42);
+        Map<String, Url> stored = new HashMap<>();
+        codes = new String[CODES];
+        for (int i = 0; i < CODES; i++) {
+            String code = Long.toString(random.nextLong(Long.MAX_VALUE), 36).substring(0, 6);
+            Url url = new Url();
+            url.setShortUrl(code);
+            url.setLongUrl("https://example.com/articles/" + i);
+            stored.put(code, url);
+            codes[i] = path.equals("unknown") ? "x" + code : code;
+        }
+
+        InMemoryRedis redis = new InMemoryRedis(path.equals("mongo"));
+        if (path.equals("redis")) {
+            stored.values().forEach(u -> redis.values.put("url:" + u.getShortUrl(), u.getLongUrl()));
+        }
+        UrlRepository repo = InMemoryUrlRepository.create(stored);
+        LocalUrlCache localCache = new LocalUrlCache(props);
+        CodeExistenceFilter existenceFilter = new CodeExistenceFilter(repo, props);
+        existenceFilter.rebuild();
+        hitCounts = new HitCountBuffer(repo, new ClickStats(null, existenceFilter, props),
+                new TrendingTracker(redis, props), props);
+        UrlMetrics metrics = new UrlMetrics(new SimpleMeterRegistry());
+        Bulkheads bulkheads = new Bulkheads(props);
+        NanoIdCodeGenerator codeGenerator = new NanoIdCodeGenerator();
+        ResolveIndex resolveIndex = new ResolveIndex(repo, null, props);
+        if (resolveIndex.isEnabled()) {
+            resolveIndex.load();
+        }
+        UrlCacheInvalidator invalidator = new UrlCacheInvalidator(redis, localCache, existenceFilter);
+        service = new UrlServiceImpl(repo, props, redis, codeGenerator, localCache, invalidator, hitCounts,
+                existenceFilter, metrics, bulkheads, new LongUrlDeduplicator(repo, props, bulkheads, metrics),
+                new WriteBehindJournal(repo, props, codeGenerator, invalidator, bulkheads, metrics), resolveIndex);
+
+        for (String code : codes) {
+            service.resolve(code);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void flushHitCounts() {
+        hitCounts.flush();
+    }
+
+    @Benchmark
+    public Optional<String> resolve() {
+        return service.resolve(codes[next++ & (CODES - 1)]);
+    }
+}
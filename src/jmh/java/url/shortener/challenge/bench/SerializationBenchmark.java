@@ -0,0 +1,112 @@
+package url.shortener.challenge.bench;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.CodedOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import url.shortener.challenge.dto.BatchResolveResponseDto;
+import url.shortener.challenge.dto.BulkCreateResultDto;
+import url.shortener.challenge.dto.ResolveResultDto;
+import url.shortener.challenge.dto.ShortUrlResponseDto;
+import url.shortener.challenge.grpc.proto.CreateResponse;
+import url.shortener.challenge.grpc.proto.ResolveResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache key construction and the JSON bodies written on the hot endpoints, next to the protobuf messages
+ * the gRPC API writes for the same results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class SerializationBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String code;
+    private ShortUrlResponseDto created;
+    private BulkCreateResultDto bulkLine;
+    private BatchResolveResponseDto batch;
+
+    @Setup
+    public void setUp() {
+        code = "aZ3kP9";
+        created = new ShortUrlResponseDto(code);
+        bulkLine = BulkCreateResultDto.created(code);
+        bulkLine.setIndex(42L);
+        Map<String, ResolveResultDto> results = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            results.put("code" + i, i % 10 == 0
+                    ? ResolveResultDto.notFound()
+                    : ResolveResultDto.found("https://example.com/articles/" + i + "?utm_source=bench"));
+        }
+        batch = new BatchResolveResponseDto(results);
+    }
+
+    @Benchmark
+    public String cacheKey() {
+        return "url:" + code;
+    }
+
+    @Benchmark
+    public byte[] cacheKeyBytes() {
+        return ("url:" + code).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String shortUrlResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(created);
+    }
+
+    @Benchmark
+    public String bulkResultLine() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(bulkLine);
+    }
+
+    @Benchmark
+    public String batchResolveResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(batch);
+    }
+
+    @Benchmark
+    public byte[] shortUrlResponseProto() {
+        return CreateResponse.newBuilder().setShortUrl(created.getShortUrl()).build().toByteArray();
+    }
+
+    /**
+     * The same 100 results as batchResolveResponse, as the length-delimited messages of a ResolveStream call.
+     */
+    @Benchmark
+    public byte[] batchResolveResponseProto() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        CodedOutputStream coded = CodedOutputStream.newInstance(out);
+        for (Map.Entry<String, ResolveResultDto> result : batch.getResults().entrySet()) {
+            ResolveResponse.Builder response = ResolveResponse.newBuilder().setShortUrl(result.getKey());
+            if (result.getValue().getStatus() == ResolveResultDto.Status.FOUND) {
+                response.setStatus(ResolveResponse.Status.FOUND).setLongUrl(result.getValue().getLongUrl());
+            } else {
+                response.setStatus(ResolveResponse.Status.NOT_FOUND);
+            }
+            coded.writeMessageNoTag(response.build());
+        }
+        coded.flush();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,117 @@
+package url.shortener.challenge.bench;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import url.shortener.challenge.cache.CodeExistenceFilter;
+import url.shortener.challenge.cache.LocalUrlCache;
+import url.shortener.challenge.cache.ResolveIndex;
+import url.shortener.challenge.cache.UrlCacheInvalidator;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.entity.Url;
+import url.shortener.challenge.repository.UrlRepository;
+import url.shortener.challenge.service.impl.ClickStats;
+import url.shortener.challenge.service.impl.HitCountBuffer;
+import url.shortener.challenge.service.impl.LongUrlDeduplicator;
+import url.shortener.challenge.service.impl.NanoIdCodeGenerator;
+import url.shortener.challenge.service.impl.TrendingTracker;
+import url.shortener.challenge.service.impl.UrlServiceImpl;
+import url.shortener.challenge.service.impl.WriteBehindJournal;
+import url.shortener.challenge.util.Bulkheads;
+import url.shortener.challenge.util.UrlMetrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Platform-thread vs virtual-thread request handling. 400 clients each hand a resolve to the
+ * request executor and wait for it, like connections handed to Tomcat: {@code platform} is a
+ * 200-thread pool (Tomcat's default maximum), {@code virtual} a thread per request. Every resolve
+ * misses the local cache and blocks for a simulated 1 ms Redis round trip. Throughput and the
+ * SampleTime percentiles show what the fixed pool's queueing costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Threads(400)
+public class ThreadModeBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    private static final int CODES = 8192;
+
+    private ExecutorService requests;
+    private String[] codes;
+    private final AtomicInteger next = new AtomicInteger();
+    private UrlServiceImpl service;
+
+    @Setup
+    public void setUp() {
+        AppProperties props = new AppProperties();
+        props.getLocalCache().setEnabled(false);
+
+        InMemoryRedis redis = new InMemoryRedis(false);
+        redis.latencyNanos = TimeUnit.MILLISECONDS.toNanos(1);
+        Map<String, Url> stored = new HashMap<>();
+        codes = new String[CODES];
+        for (int i = 0; i < CODES; i++) {
+            codes[i] = "c" + i;
+            Url url = new Url();
+            url.setShortUrl(codes[i]);
+            url.setLongUrl("https://example.com/articles/" + i);
+            stored.put(codes[i], url);
+            redis.values.put("url:" + codes[i], url.getLongUrl());
+        }
+
+        UrlRepository repo = InMemoryUrlRepository.create(stored);
+        LocalUrlCache localCache = new LocalUrlCache(props);
+        CodeExistenceFilter existenceFilter = new CodeExistenceFilter(repo, props);
+        UrlMetrics metrics = new UrlMetrics(new SimpleMeterRegistry());
+        Bulkheads bulkheads = new Bulkheads(props);
+        NanoIdCodeGenerator codeGenerator = new NanoIdCodeGenerator();
+        ResolveIndex resolveIndex = new ResolveIndex(repo, null, props);
+        HitCountBuffer hitCounts = new HitCountBuffer(repo, new ClickStats(null, existenceFilter, props),
+                new TrendingTracker(redis, props), props);
+        UrlCacheInvalidator invalidator = new UrlCacheInvalidator(redis, localCache, existenceFilter);
+        service = new UrlServiceImpl(repo, props, redis, codeGenerator, localCache, invalidator, hitCounts,
+                existenceFilter, metrics, bulkheads, new LongUrlDeduplicator(repo, props, bulkheads, metrics),
+                new WriteBehindJournal(repo, props, codeGenerator, invalidator, bulkheads, metrics), resolveIndex);
+
+        requests = mode.equals("virtual")
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(200);
+    }
+
+    @TearDown
+    public void tearDown() {
+        requests.shutdownNow();
+    }
+
+    @Benchmark
+    public Optional<String> request() throws ExecutionException, InterruptedException {
+        // distinct codes, so concurrent requests aren't coalesced into one Redis call
+        String code = codes[next.getAndIncrement() & (CODES - 1)];
+        return requests.submit(() -> service.resolve(code)).get();
+    }
+}
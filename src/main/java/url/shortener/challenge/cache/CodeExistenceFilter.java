@@ -0,0 +1,131 @@
+package url.shortener.challenge.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.repository.ShortUrlView;
+import url.shortener.challenge.repository.UrlRepository;
+import url.shortener.challenge.util.ScalableBloomFilter;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter of every short code in the {@code urls} collection, so lookups for codes that
+ * were never created can be rejected without asking Mongo.
+ * Each replica builds it from Mongo at startup and rebuilds it periodically; codes created in
+ * between reach every replica through the invalidation channel. Until the first build completes
+ * (or when disabled) every code is reported as possibly present.
+ */
+@Component
+public class CodeExistenceFilter implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(CodeExistenceFilter.class);
+
+    private final UrlRepository repo;
+    private final AppProperties.Bloom cfg;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicLong rejections = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    private volatile ScalableBloomFilter filter;
+    // filter being rebuilt, also receives concurrent additions so none are lost on swap
+    private volatile ScalableBloomFilter building;
+
+    public CodeExistenceFilter(UrlRepository repo, AppProperties props) {
+        this.repo = repo;
+        this.cfg = props.getBloom();
+    }
+
+    /**
+     * @return false only if the code definitely does not exist
+     */
+    public boolean mightContain(String shortUrl) {
+        ScalableBloomFilter current = filter;
+        if (current == null || current.mightContain(shortUrl)) {
+            return true;
+        }
+        rejections.incrementAndGet();
+        return false;
+    }
+
+    public void add(String shortUrl) {
+        ScalableBloomFilter next = building;
+        if (next != null) {
+            next.put(shortUrl);
+        }
+        ScalableBloomFilter current = filter;
+        if (current != null) {
+            current.put(shortUrl);
+        }
+    }
+
+    /**
+     * Records a code the filter let through although Mongo did not have it.
+     */
+    public void recordFalsePositive() {
+        falsePositives.incrementAndGet();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        Thread.ofVirtual().name("bloom-build").start(this::rebuild);
+    }
+
+    /**
+     * Rebuilds the filter from a streaming scan of all codes and swaps it in.
+     */
+    @Scheduled(fixedDelayString = "${app.bloom.rebuild-interval-ms:3600000}",
+            initialDelayString = "${app.bloom.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        if (!cfg.isEnabled() || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            ScalableBloomFilter current = filter;
+            long capacity = Math.max(cfg.getExpectedInsertions(),
+                    current != null ? current.approximateElementCount() * 2 : 0);
+            ScalableBloomFilter next = new ScalableBloomFilter(capacity, cfg.getFalsePositiveRate());
+            building = next;
+            try (Stream<ShortUrlView> codes = repo.streamAllBy()) {
+                codes.forEach(view -> next.put(view.getShortUrl()));
+            }
+            filter = next;
+            log.info("Built short code filter with ~{} codes, expected false positive rate {}",
+                    next.approximateElementCount(), next.expectedFalsePositiveRate());
+        } catch (RuntimeException e) {
+            log.warn("Could not build short code filter, lookups bypass it until the next rebuild: {}",
+                    e.getMessage());
+        } finally {
+            building = null;
+            rebuilding.set(false);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("url.bloom.expected.fpp", this, f -> f.filter != null ? f.filter.expectedFalsePositiveRate() : 0)
+                .description("False-positive rate estimated from the filter's fill ratio")
+                .register(registry);
+        Gauge.builder("url.bloom.elements", this, f -> f.filter != null ? f.filter.approximateElementCount() : 0)
+                .register(registry);
+        Gauge.builder("url.bloom.bits", this, f -> f.filter != null ? f.filter.bitSize() : 0)
+                .baseUnit("bits")
+                .register(registry);
+        FunctionCounter.builder("url.bloom.rejections", rejections, AtomicLong::get)
+                .description("Lookups answered as not found without reaching Mongo")
+                .register(registry);
+        FunctionCounter.builder("url.bloom.false.positives", falsePositives, AtomicLong::get)
+                .description("Lookups the filter let through that Mongo did not have")
+                .register(registry);
+    }
+}
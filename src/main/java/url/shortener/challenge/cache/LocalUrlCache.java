@@ -0,0 +1,140 @@
+package url.shortener.challenge.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import url.shortener.challenge.config.AppProperties;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Bounded in-process cache of short code to long URL mappings.
+ * Every entry lives at most until the mapping's own expiresAt and never longer than
+ * the configured max TTL. A second, short-lived cache remembers codes known not to exist.
+ * Hit/miss/eviction counts are published as {@code cache.*} meters.
+ */
+@Component
+public class LocalUrlCache implements MeterBinder {
+
+    public static final String CACHE_NAME = "url-local";
+    public static final String NEGATIVE_CACHE_NAME = "url-negative";
+
+    private final boolean enabled;
+    private final long maxTtlNanos;
+    private final long refreshAheadNanos;
+    private final Cache<String, Entry> cache;
+    private final Cache<String, Boolean> missing;
+
+    public LocalUrlCache(AppProperties props) {
+        AppProperties.LocalCache cfg = props.getLocalCache();
+        this.enabled = cfg.isEnabled();
+        this.maxTtlNanos = cfg.getMaxTtl().toNanos();
+        this.refreshAheadNanos = cfg.getRefreshAhead().toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cfg.getMaximumSize())
+                .expireAfter(new EntryExpiry())
+                .recordStats()
+                .build();
+        this.missing = Caffeine.newBuilder()
+                .maximumSize(cfg.getNegativeMaximumSize())
+                .expireAfterWrite(cfg.getNegativeTtl())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @return the cached entry, or null on a miss (or when the cache is disabled)
+     */
+    public Entry get(String shortUrl) {
+        return enabled ? cache.getIfPresent(shortUrl) : null;
+    }
+
+    /**
+     * Caches a mapping until {@code expiresAt} (null means the mapping never expires).
+     * Mappings that are already expired are not stored.
+     */
+    public void put(String shortUrl, String longUrl, Instant expiresAt) {
+        if (!enabled) {
+            return;
+        }
+        long ttlNanos = maxTtlNanos;
+        if (expiresAt != null) {
+            ttlNanos = Math.min(ttlNanos, Duration.between(Instant.now(), expiresAt).toNanos());
+        }
+        if (ttlNanos > 0) {
+            cache.put(shortUrl, new Entry(longUrl, expiresAt, ttlNanos));
+        }
+    }
+
+    /**
+     * Whether an entry that was just read should be reloaded in the background: it is within the
+     * refresh-ahead window of its local expiry while the mapping itself lives on past that window.
+     * Only entries read near the end of their life qualify, which keeps refreshes to hot codes.
+     */
+    public boolean isDueForRefresh(String shortUrl, Entry entry) {
+        if (refreshAheadNanos <= 0) {
+            return false;
+        }
+        Duration remaining = cache.policy().expireVariably()
+                .flatMap(policy -> policy.getExpiresAfter(shortUrl))
+                .orElse(null);
+        if (remaining == null || remaining.toNanos() > refreshAheadNanos) {
+            return false;
+        }
+        return entry.expiresAt() == null
+                || Duration.between(Instant.now(), entry.expiresAt()).toNanos() > remaining.toNanos() + refreshAheadNanos;
+    }
+
+    /**
+     * Remembers that the code does not exist (or has expired) for the negative TTL.
+     */
+    public void markMissing(String shortUrl) {
+        if (enabled) {
+            missing.put(shortUrl, Boolean.TRUE);
+        }
+    }
+
+    public boolean isKnownMissing(String shortUrl) {
+        return enabled && missing.getIfPresent(shortUrl) != null;
+    }
+
+    public void invalidate(String shortUrl) {
+        cache.invalidate(shortUrl);
+        missing.invalidate(shortUrl);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+        CaffeineCacheMetrics.monitor(registry, missing, NEGATIVE_CACHE_NAME);
+    }
+
+    /**
+     * A cached mapping. {@code expiresAt} is the mapping's expiry (null if none),
+     * {@code ttlNanos} how long this replica keeps it.
+     */
+    public record Entry(String longUrl, Instant expiresAt, long ttlNanos) {
+    }
+
+    private static final class EntryExpiry implements Expiry<String, Entry> {
+        @Override
+        public long expireAfterCreate(String key, Entry value, long currentTime) {
+            return value.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry value, long currentTime, long currentDuration) {
+            return value.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package url.shortener.challenge.cache;
+
+import url.shortener.challenge.cache.ResolveIndex.Entry;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Short code to long URL map kept entirely in direct memory. Codes of up to ten characters from the
+ * NanoID/base-62 alphabet are packed into a long and stored in an open-addressing table of
+ * (code, arena address) pairs; the URL bytes and expiry live in an append-only arena of direct chunks.
+ * Nothing per entry is a Java object, so the index costs the GC nothing and takes about
+ * 16 / load factor bytes plus the URL length plus 12 bytes per mapping.
+ * <p>
+ * One writer at a time; readers never block it and usually take no lock at all.
+ */
+final class OffHeapUrlIndex {
+
+    private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz_-";
+    private static final byte[] CHAR_VALUES = new byte[128];
+    private static final int MAX_CODE_LENGTH = 10;
+    private static final long EMPTY = 0;
+    private static final int SLOT_BYTES = 16;
+    private static final int CHUNK_BITS = 24;
+    private static final int CHUNK_BYTES = 1 << CHUNK_BITS;
+    // url length + expiry millis
+    private static final int RECORD_HEADER_BYTES = 12;
+    private static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    static {
+        Arrays.fill(CHAR_VALUES, (byte) -1);
+        for (int i = 0; i < ALPHABET.length(); i++) {
+            CHAR_VALUES[ALPHABET.charAt(i)] = (byte) i;
+        }
+    }
+
+    private final StampedLock lock = new StampedLock();
+    private ByteBuffer table;
+    private int capacity;
+    private int size;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private int chunkOffset = CHUNK_BYTES;
+    // arena bytes still referenced from the table
+    private long liveBytes;
+
+    OffHeapUrlIndex(int initialCapacity) {
+        this.capacity = Integer.highestOneBit(Math.max(16, initialCapacity) - 1) << 1;
+        this.table = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+    }
+
+    /**
+     * Packs a code into 6 bits per character plus its length in the top 4 bits.
+     *
+     * @return the packed code, or 0 if the code is too long or uses other characters
+     */
+    static long pack(String code) {
+        int length = code.length();
+        if (length == 0 || length > MAX_CODE_LENGTH) {
+            return EMPTY;
+        }
+        long packed = (long) length << 60;
+        for (int i = 0; i < length; i++) {
+            char c = code.charAt(i);
+            int value = c < 128 ? CHAR_VALUES[c] : -1;
+            if (value < 0) {
+                return EMPTY;
+            }
+            packed |= (long) value << (6 * i);
+        }
+        return packed;
+    }
+
+    /**
+     * @return the mapping for a packed code, or null
+     */
+    Entry get(long code) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                Entry entry = find(code);
+                if (lock.validate(stamp)) {
+                    return entry;
+                }
+            } catch (RuntimeException e) {
+                // read torn by a concurrent resize or compaction, retry under the read lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return find(code);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Adds or replaces a mapping.
+     *
+     * @return false if the URL is too large for the arena and was not indexed
+     */
+    boolean put(long code, String longUrl, Instant expiresAt) {
+        byte[] bytes = longUrl.getBytes(StandardCharsets.UTF_8);
+        int recordBytes = RECORD_HEADER_BYTES + bytes.length;
+        if (recordBytes > CHUNK_BYTES) {
+            return false;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if ((size + 1) * 4L > capacity * 3L) {
+                rehash(capacity * 2);
+            }
+            long address = allocate(recordBytes);
+            ByteBuffer chunk = chunks.get((int) (address >>> CHUNK_BITS));
+            int offset = (int) (address & (CHUNK_BYTES - 1));
+            chunk.putInt(offset, bytes.length);
+            chunk.putLong(offset + 4, expiresAt == null ? NO_EXPIRY : expiresAt.toEpochMilli());
+            chunk.put(offset + RECORD_HEADER_BYTES, bytes);
+
+            int slot = slotOf(code);
+            while (true) {
+                long key = table.getLong(slot * SLOT_BYTES);
+                if (key == EMPTY) {
+                    table.putLong(slot * SLOT_BYTES + 8, address);
+                    table.putLong(slot * SLOT_BYTES, code);
+                    size++;
+                    break;
+                }
+                if (key == code) {
+                    liveBytes -= recordBytes(table.getLong(slot * SLOT_BYTES + 8));
+                    table.putLong(slot * SLOT_BYTES + 8, address);
+                    break;
+                }
+                slot = (slot + 1) & (capacity - 1);
+            }
+            liveBytes += recordBytes;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes a mapping, shifting later entries of its probe run back so no tombstone is needed.
+     */
+    void remove(long code) {
+        long stamp = lock.writeLock();
+        try {
+            int mask = capacity - 1;
+            int slot = slotOf(code);
+            while (table.getLong(slot * SLOT_BYTES) != code) {
+                if (table.getLong(slot * SLOT_BYTES) == EMPTY) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            liveBytes -= recordBytes(table.getLong(slot * SLOT_BYTES + 8));
+            size--;
+            int hole = slot;
+            for (int next = (hole + 1) & mask; ; next = (next + 1) & mask) {
+                long key = table.getLong(next * SLOT_BYTES);
+                if (key == EMPTY) {
+                    break;
+                }
+                int home = slotOf(key);
+                // move the entry back if its home slot is not between the hole and its current slot
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    table.putLong(hole * SLOT_BYTES, key);
+                    table.putLong(hole * SLOT_BYTES + 8, table.getLong(next * SLOT_BYTES + 8));
+                    hole = next;
+                }
+            }
+            table.putLong(hole * SLOT_BYTES, EMPTY);
+            table.putLong(hole * SLOT_BYTES + 8, 0);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Copies the unexpired mappings into a fresh table and arena, releasing the space of replaced
+     * and expired ones once the old buffers are collected.
+     *
+     * @return the number of mappings dropped
+     */
+    int compact(Instant now) {
+        long stamp = lock.writeLock();
+        try {
+            ByteBuffer oldTable = table;
+            int oldCapacity = capacity;
+            List<ByteBuffer> oldChunks = new ArrayList<>(chunks);
+            int before = size;
+            table = ByteBuffer.allocateDirect(oldCapacity * SLOT_BYTES);
+            chunks.clear();
+            chunkOffset = CHUNK_BYTES;
+            size = 0;
+            liveBytes = 0;
+            long nowMillis = now.toEpochMilli();
+            for (int i = 0; i < oldCapacity; i++) {
+                long key = oldTable.getLong(i * SLOT_BYTES);
+                if (key == EMPTY) {
+                    continue;
+                }
+                long address = oldTable.getLong(i * SLOT_BYTES + 8);
+                ByteBuffer chunk = oldChunks.get((int) (address >>> CHUNK_BITS));
+                int offset = (int) (address & (CHUNK_BYTES - 1));
+                if (chunk.getLong(offset + 4) <= nowMillis) {
+                    continue;
+                }
+                int recordBytes = RECORD_HEADER_BYTES + chunk.getInt(offset);
+                long copy = allocate(recordBytes);
+                chunks.get((int) (copy >>> CHUNK_BITS))
+                        .put((int) (copy & (CHUNK_BYTES - 1)), chunk, offset, recordBytes);
+                insertNew(key, copy);
+                liveBytes += recordBytes;
+            }
+            return before - size;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return direct memory held by the table and the arena, including space of replaced mappings
+     */
+    long memoryBytes() {
+        return (long) capacity * SLOT_BYTES + (long) chunks.size() * CHUNK_BYTES;
+    }
+
+    /**
+     * @return table bytes plus referenced arena bytes per mapping
+     */
+    double bytesPerEntry() {
+        return size == 0 ? 0 : ((double) capacity * SLOT_BYTES + liveBytes) / size;
+    }
+
+    private Entry find(long code) {
+        int mask = capacity - 1;
+        for (int slot = slotOf(code), probes = 0; probes < capacity; slot = (slot + 1) & mask, probes++) {
+            long key = table.getLong(slot * SLOT_BYTES);
+            if (key == EMPTY) {
+                return null;
+            }
+            if (key == code) {
+                long address = table.getLong(slot * SLOT_BYTES + 8);
+                ByteBuffer chunk = chunks.get((int) (address >>> CHUNK_BITS));
+                int offset = (int) (address & (CHUNK_BYTES - 1));
+                int length = chunk.getInt(offset);
+                if (length < 0 || length > CHUNK_BYTES) {
+                    // only an unlocked read racing a writer sees this, validation will reject it
+                    return null;
+                }
+                byte[] bytes = new byte[length];
+                chunk.get(offset + RECORD_HEADER_BYTES, bytes);
+                long expiresAt = chunk.getLong(offset + 4);
+                return new Entry(new String(bytes, StandardCharsets.UTF_8),
+                        expiresAt == NO_EXPIRY ? null : Instant.ofEpochMilli(expiresAt));
+            }
+        }
+        return null;
+    }
+
+    private long allocate(int recordBytes) {
+        if (chunkOffset + recordBytes > CHUNK_BYTES) {
+            chunks.add(ByteBuffer.allocateDirect(CHUNK_BYTES));
+            chunkOffset = 0;
+        }
+        long address = ((long) (chunks.size() - 1) << CHUNK_BITS) | chunkOffset;
+        chunkOffset += recordBytes;
+        return address;
+    }
+
+    private void rehash(int newCapacity) {
+        ByteBuffer oldTable = table;
+        int oldCapacity = capacity;
+        table = ByteBuffer.allocateDirect(newCapacity * SLOT_BYTES);
+        capacity = newCapacity;
+        size = 0;
+        for (int i = 0; i < oldCapacity; i++) {
+            long key = oldTable.getLong(i * SLOT_BYTES);
+            if (key != EMPTY) {
+                insertNew(key, oldTable.getLong(i * SLOT_BYTES + 8));
+            }
+        }
+    }
+
+    private void insertNew(long code, long address) {
+        int slot = slotOf(code);
+        while (table.getLong(slot * SLOT_BYTES) != EMPTY) {
+            slot = (slot + 1) & (capacity - 1);
+        }
+        table.putLong(slot * SLOT_BYTES, code);
+        table.putLong(slot * SLOT_BYTES + 8, address);
+        size++;
+    }
+
+    private int recordBytes(long address) {
+        return RECORD_HEADER_BYTES + chunks.get((int) (address >>> CHUNK_BITS)).getInt((int) (address & (CHUNK_BYTES - 1)));
+    }
+
+    private int slotOf(long code) {
+        // packed codes of random characters are already well spread, a multiplicative mix covers the rest
+        return (int) ((code * 0x9E3779B97F4A7C15L) >>> 32) & (capacity - 1);
+    }
+}
@@ -0,0 +1,216 @@
+package url.shortener.challenge.cache;
+
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.entity.Url;
+import url.shortener.challenge.repository.UrlRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Every live mapping held in one {@link OffHeapUrlIndex}, so a replica answers resolves for the whole
+ * dataset without Redis or Mongo. It is loaded from a cursor over Mongo once the app is up and then
+ * follows the {@code urls} change stream, starting from just before the snapshot so nothing created
+ * meanwhile is missed; a broken stream resumes from its last token.
+ * <p>
+ * Mappings never change after creation, so a lagging index can only miss codes, and misses fall through
+ * to the usual cache path. TTL deletions are not followed: expired entries are skipped on read and dropped
+ * by the periodic compaction. Change streams need a replica set; without one, or without Mongo at all
+ * (embedded profile), the index stays at its snapshot.
+ */
+@Component
+public class ResolveIndex implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ResolveIndex.class);
+    private static final Duration RETRY_INTERVAL = Duration.ofSeconds(5);
+    // the cluster clock may trail ours a little, start the stream early rather than miss a write
+    private static final Duration STREAM_OVERLAP = Duration.ofSeconds(1);
+
+    private final UrlRepository repo;
+    private final ObjectProvider<MongoTemplate> mongo;
+    private final AppProperties.ResolveIndex cfg;
+    private final OffHeapUrlIndex index;
+    private volatile boolean ready;
+    private volatile boolean closed;
+
+    public ResolveIndex(UrlRepository repo, ObjectProvider<MongoTemplate> mongo, AppProperties props) {
+        this.repo = repo;
+        this.mongo = mongo;
+        this.cfg = props.getResolveIndex();
+        this.index = cfg.isEnabled() ? new OffHeapUrlIndex(cfg.getInitialCapacity()) : null;
+    }
+
+    public boolean isEnabled() {
+        return index != null;
+    }
+
+    /**
+     * @return the live mapping for a code, or null if it is not indexed (yet) or has expired
+     */
+    public Entry get(String shortUrl) {
+        if (!ready) {
+            return null;
+        }
+        long code = OffHeapUrlIndex.pack(shortUrl);
+        if (code == 0) {
+            return null;
+        }
+        Entry entry = index.get(code);
+        if (entry == null || (entry.expiresAt() != null && !entry.expiresAt().isAfter(Instant.now()))) {
+            return null;
+        }
+        return entry;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (isEnabled()) {
+            Thread.ofVirtual().name("resolve-index").start(this::loadAndFollow);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        closed = true;
+    }
+
+    /**
+     * Rebuilds the arena without expired and replaced mappings.
+     */
+    @Scheduled(fixedDelayString = "${app.resolve-index.compaction-interval-ms:3600000}",
+            initialDelayString = "${app.resolve-index.compaction-interval-ms:3600000}")
+    public void compact() {
+        if (ready) {
+            int dropped = index.compact(Instant.now());
+            log.info("Compacted resolve index, dropped {} expired mappings, {} remain", dropped, index.size());
+        }
+    }
+
+    /**
+     * Loads every live mapping through a cursor and marks the index ready.
+     */
+    public void load() {
+        try (Stream<Url> live = repo.streamLive(Sort.unsorted(), Integer.MAX_VALUE, cfg.getBatchSize())) {
+            live.forEach(url -> put(url.getShortUrl(), url.getLongUrl(), url.getExpiresAt()));
+        }
+        ready = true;
+        log.info("Loaded {} mappings into the resolve index, {} bytes each, {} MiB off-heap",
+                index.size(), Math.round(index.bytesPerEntry()), index.memoryBytes() >> 20);
+    }
+
+    /**
+     * Indexes the full document of an insert or replace event.
+     */
+    void apply(Document document) {
+        if (document == null) {
+            return;
+        }
+        Date expiresAt = document.getDate("expiresAt");
+        put(document.getString("shortUrl"), document.getString("longUrl"),
+                expiresAt != null ? expiresAt.toInstant() : null);
+    }
+
+    private void put(String shortUrl, String longUrl, Instant expiresAt) {
+        long code = shortUrl != null ? OffHeapUrlIndex.pack(shortUrl) : 0;
+        // codes outside the packed alphabet or length stay on the cache path
+        if (code != 0 && longUrl != null) {
+            index.put(code, longUrl, expiresAt);
+        }
+    }
+
+    private void loadAndFollow() {
+        Instant from = Instant.now().minus(STREAM_OVERLAP);
+        while (!ready && !closed) {
+            try {
+                load();
+            } catch (RuntimeException e) {
+                log.warn("Could not load the resolve index, retrying in {}: {}", RETRY_INTERVAL, e.getMessage());
+                if (!sleep()) {
+                    return;
+                }
+            }
+        }
+        MongoTemplate template = mongo.getIfAvailable();
+        if (template == null) {
+            log.info("No Mongo change stream available, the resolve index stays at its snapshot");
+            return;
+        }
+        BsonDocument resumeToken = null;
+        while (!closed) {
+            var stream = template.getCollection(template.getCollectionName(Url.class))
+                    .watch(List.of(Aggregates.match(Filters.in("operationType", "insert", "replace"))));
+            stream = resumeToken != null
+                    ? stream.resumeAfter(resumeToken)
+                    : stream.startAtOperationTime(new BsonTimestamp((int) from.getEpochSecond(), 0));
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+                while (!closed) {
+                    ChangeStreamDocument<Document> change = cursor.tryNext();
+                    if (change != null) {
+                        apply(change.getFullDocument());
+                    }
+                    if (cursor.getResumeToken() != null) {
+                        resumeToken = cursor.getResumeToken();
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.warn("Resolve index change stream failed, resuming in {}: {}", RETRY_INTERVAL, e.getMessage());
+                if (!sleep()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean sleep() {
+        try {
+            Thread.sleep(RETRY_INTERVAL);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!isEnabled()) {
+            return;
+        }
+        Gauge.builder("url.index.entries", index, OffHeapUrlIndex::size)
+                .register(registry);
+        Gauge.builder("url.index.memory", index, OffHeapUrlIndex::memoryBytes)
+                .description("Direct memory held by the resolve index table and arena")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("url.index.bytes.per.entry", index, OffHeapUrlIndex::bytesPerEntry)
+                .description("Table and live arena bytes per indexed mapping")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    public record Entry(String longUrl, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,76 @@
+package url.shortener.challenge.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Keeps the {@link LocalUrlCache} of every replica consistent through Redis pub/sub:
+ * a code published on {@link #CHANNEL} is dropped from all local caches, including ours.
+ * A published code may exist from now on, so it is also added to each replica's {@link CodeExistenceFilter}.
+ */
+@Component
+public class UrlCacheInvalidator implements MessageListener {
+
+    public static final String CHANNEL = "url:invalidate";
+    private static final byte[] CHANNEL_BYTES = CHANNEL.getBytes(StandardCharsets.UTF_8);
+
+    private static final Logger log = LoggerFactory.getLogger(UrlCacheInvalidator.class);
+
+    private final StringRedisTemplate redis;
+    private final LocalUrlCache localCache;
+    private final CodeExistenceFilter existenceFilter;
+
+    public UrlCacheInvalidator(StringRedisTemplate redis, LocalUrlCache localCache,
+                               CodeExistenceFilter existenceFilter) {
+        this.redis = redis;
+        this.localCache = localCache;
+        this.existenceFilter = existenceFilter;
+    }
+
+    /**
+     * Drops the code locally and broadcasts the invalidation to the other replicas.
+     */
+    public void publish(String shortUrl) {
+        invalidateLocally(shortUrl);
+        redis.convertAndSend(CHANNEL, shortUrl);
+    }
+
+    /**
+     * Deletes the code's shared Redis entry and publishes the invalidation, for a cached mapping that turned out
+     * to be wrong.
+     */
+    public void evict(String shortUrl) {
+        redis.delete("url:" + shortUrl);
+        publish(shortUrl);
+    }
+
+    /**
+     * Same as {@link #publish(String)} but issued on the given connection, so it can ride along in a pipeline.
+     */
+    public void publish(RedisConnection connection, String shortUrl) {
+        invalidateLocally(shortUrl);
+        connection.publish(CHANNEL_BYTES, shortUrl.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String shortUrl = new String(message.getBody(), StandardCharsets.UTF_8);
+        invalidateLocally(shortUrl);
+        log.debug("Invalidated local cache entry for shortUrl={}", shortUrl);
+    }
+
+    /**
+     * Drops the code from this replica only; for callers that broadcast on {@link #CHANNEL} themselves.
+     */
+    public void invalidateLocally(String shortUrl) {
+        existenceFilter.add(shortUrl);
+        localCache.invalidate(shortUrl);
+    }
+}
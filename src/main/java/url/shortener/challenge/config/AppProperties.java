@@ -4,6 +4,12 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Configuration
 @ConfigurationProperties(prefix = "app")
 @Getter
@@ -11,4 +17,347 @@ import org.springframework.context.annotation.Configuration;
 public class AppProperties {
     private int codeLength = 6;
     private long defaultTtlSeconds = 0;
+    // nanoid (random, checked against Mongo) or range (sequence leased from a Mongo counter)
+    private String codeGenerator = "nanoid";
+    private final LocalCache localCache = new LocalCache();
+    private final HitCounter hitCounter = new HitCounter();
+    private final RangeGenerator rangeGenerator = new RangeGenerator();
+    private final Bulk bulk = new Bulk();
+    private final Redirect redirect = new Redirect();
+    private final Bloom bloom = new Bloom();
+    private final RateLimit rateLimit = new RateLimit();
+    private final AccessLog accessLog = new AccessLog();
+    private final Bulkhead bulkhead = new Bulkhead();
+    private final WarmUp warmUp = new WarmUp();
+    private final Dedup dedup = new Dedup();
+    private final WriteBehind writeBehind = new WriteBehind();
+    private final Embedded embedded = new Embedded();
+    private final ResolveIndex resolveIndex = new ResolveIndex();
+    private final Sharding sharding = new Sharding();
+    private final Redis redis = new Redis();
+    private final ClickStats clickStats = new ClickStats();
+    private final Trending trending = new Trending();
+    private final Grpc grpc = new Grpc();
+
+    /**
+     * In-process (L1) cache sitting in front of Redis on the resolve path.
+     */
+    @Getter
+    @Setter
+    public static class LocalCache {
+        private boolean enabled = true;
+        private long maximumSize = 10_000;
+        // upper bound for any entry, so a lost invalidation message heals on its own
+        private Duration maxTtl = Duration.ofMinutes(5);
+        // entries read this close to their local expiry are reloaded in the background; 0 disables
+        private Duration refreshAhead = Duration.ZERO;
+        // how long a code known not to exist is answered from memory
+        private Duration negativeTtl = Duration.ofSeconds(30);
+        private long negativeMaximumSize = 100_000;
+    }
+
+    /**
+     * In-memory aggregation of hit counts before they are flushed to Mongo.
+     */
+    @Getter
+    @Setter
+    public static class HitCounter {
+        private long flushIntervalMs = 1000;
+        // rounded up to a power of two
+        private int stripes = 16;
+        // codes whose counts are kept for the next flush after a failed write; the smallest counts go beyond that
+        private int maxRetainedCodes = 100_000;
+    }
+
+    /**
+     * Settings for the range-leased code generator.
+     */
+    @Getter
+    @Setter
+    public static class RangeGenerator {
+        // sequence numbers leased per counter update
+        private long blockSize = 5000;
+        // keys the code permutation; change it per deployment so codes can't be predicted
+        private long secret = 0x5DEECE66DL;
+    }
+
+    /**
+     * Bulk create endpoint.
+     */
+    @Getter
+    @Setter
+    public static class Bulk {
+        // items per insertMany / Redis pipeline, also the max items held in memory per request
+        private int chunkSize = 500;
+    }
+
+    /**
+     * Top-level redirect endpoint.
+     */
+    @Getter
+    @Setter
+    public static class Redirect {
+        // answer 301 instead of 302 for mappings that never expire
+        private boolean permanent = false;
+        // upper bound for Cache-Control max-age; redirects served from a cache don't count as hits
+        private long maxAgeSeconds = 60;
+    }
+
+    /**
+     * Bloom filter of existing short codes, consulted before Mongo on cache misses.
+     */
+    @Getter
+    @Setter
+    public static class Bloom {
+        private boolean enabled = true;
+        private long expectedInsertions = 1_000_000;
+        private double falsePositiveRate = 0.01;
+        // full rebuild from Mongo, drops expired codes and heals lost pub/sub messages
+        private long rebuildIntervalMs = 3_600_000;
+    }
+
+    /**
+     * GCRA rate limits, enforced in Redis and optionally pre-admitted from tokens leased per replica.
+     */
+    @Getter
+    @Setter
+    public static class RateLimit {
+        // keyed by route name, e.g. app.rate-limit.routes.create.limit=60
+        private final Map<String, Limit> routes = new HashMap<>(Map.of(
+                "create", Limit.of(60),
+                "bulk", Limit.of(10)));
+        // admit from locally leased tokens; a replica may then reject a little early, never admit too much
+        private boolean localAdmission = false;
+        // tokens leased from Redis per round trip
+        private int leaseSize = 10;
+        // unused leased tokens are dropped after this, so a lease can't be hoarded
+        private Duration leaseTtl = Duration.ofSeconds(1);
+        private long maxLocalKeys = 100_000;
+    }
+
+    /**
+     * One route's limit: {@code limit} requests per {@code period}, allowing bursts of {@code burst}.
+     */
+    @Getter
+    @Setter
+    public static class Limit {
+        private long limit = 60;
+        private Duration period = Duration.ofMinutes(1);
+        // 0 means the same as limit
+        private long burst = 0;
+        // per-key limits within the same period, e.g. app.rate-limit.routes.create.keys.[10.0.0.1]=600
+        private Map<String, Long> keys = new HashMap<>();
+
+        static Limit of(long limit) {
+            Limit l = new Limit();
+            l.setLimit(limit);
+            return l;
+        }
+    }
+
+    /**
+     * Access events, written off the request thread by a background consumer.
+     */
+    @Getter
+    @Setter
+    public static class AccessLog {
+        private boolean enabled = true;
+        // fraction of successful requests logged, 0.0 to 1.0
+        private double sampleRate = 1.0;
+        // log every 4xx/5xx regardless of the sample rate
+        private boolean alwaysLogErrors = true;
+        // events held in memory, rounded up to a power of two; when full, new events are dropped
+        private int bufferSize = 8192;
+        // events written per log call
+        private int batchSize = 256;
+        private long flushIntervalMs = 200;
+    }
+
+    /**
+     * Concurrency limits per backend, so waiting requests can't pile up behind a slow one.
+     */
+    @Getter
+    @Setter
+    public static class Bulkhead {
+        // keep at or below spring.data.mongodb connection pool size
+        private int mongoMaxConcurrent = 100;
+        private int redisMaxConcurrent = 500;
+        // how long a call may wait for a permit before failing with 503
+        private Duration acquireTimeout = Duration.ofMillis(100);
+    }
+
+    /**
+     * Startup stage that fills the local cache and Redis before the replica reports ready.
+     */
+    @Getter
+    @Setter
+    public static class WarmUp {
+        private boolean enabled = false;
+        // mappings with the highest hitCount
+        private int topN = 10_000;
+        // most recently created mappings, on top of the hottest ones; 0 disables
+        private int recentN = 0;
+        // documents per cursor batch and per Redis pipeline
+        private int batchSize = 500;
+    }
+
+    /**
+     * Long URL deduplication on create: a repeated long URL gets its existing code back.
+     */
+    @Getter
+    @Setter
+    public static class Dedup {
+        private boolean enabled = false;
+        // recently created or matched long URLs answered without a Mongo round trip
+        private long localMaximumSize = 100_000;
+        private Duration localTtl = Duration.ofMinutes(10);
+    }
+
+    /**
+     * Write-behind create path: a create is acknowledged once it is in the local journal and in Redis,
+     * and reaches Mongo with the next bulk flush. Requires a code generator that is unique by construction.
+     */
+    @Getter
+    @Setter
+    public static class WriteBehind {
+        private boolean enabled = false;
+        // one directory per replica; it must survive restarts for the journal to be replayed
+        private String journalDir = "journal";
+        private Durability durability = Durability.FSYNC;
+        // background fsync period for Durability.INTERVAL
+        private long syncIntervalMs = 10;
+        private long flushIntervalMs = 200;
+        // documents per insertMany
+        private int batchSize = 1000;
+    }
+
+    /**
+     * Local storage engine used instead of Mongo by the embedded profile.
+     */
+    @Getter
+    @Setter
+    public static class Embedded {
+        private String dir = "data";
+        // a full segment is sealed and becomes a compaction candidate
+        private long segmentBytes = 64L * 1024 * 1024;
+        // initial slots of the mapped index and of the hit count table, 16 bytes each; both double at 75% load
+        private int indexCapacity = 1 << 20;
+        private long syncIntervalMs = 100;
+        private long compactionIntervalMs = 600_000;
+        // sealed segments with a smaller share of live bytes are rewritten
+        private double compactionThreshold = 0.5;
+    }
+
+    /**
+     * Off-heap index of every live mapping, loaded at startup and kept current from the Mongo change stream.
+     */
+    @Getter
+    @Setter
+    public static class ResolveIndex {
+        private boolean enabled = false;
+        // slots allocated up front, 16 bytes each; the table doubles at 75% load
+        private int initialCapacity = 1 << 20;
+        // documents per cursor batch of the startup snapshot
+        private int batchSize = 1000;
+        // rebuilds the arena without expired and replaced mappings
+        private long compactionIntervalMs = 3_600_000;
+    }
+
+    /**
+     * Short codes spread over several Mongo databases by the sharded profile.
+     */
+    @Getter
+    @Setter
+    public static class Sharding {
+        // a shard's name places it on the hash ring, so it must never change once it holds data
+        private List<Shard> shards = new ArrayList<>();
+        private int virtualNodes = 160;
+        // set on every replica while documents move after a shard was added: misses also ask the previous owner
+        private boolean rebalancing = false;
+        // documents per cursor batch and per bulk insert when moving documents
+        private int rebalanceBatchSize = 1000;
+    }
+
+    /**
+     * Routing on top of spring.data.redis.*: where reads go and how cluster topology and pipelines are handled.
+     */
+    @Getter
+    @Setter
+    public static class Redis {
+        // empty: everything on the primary; nearest-replica: reads on the lowest-latency replica, the primary
+        // only if none is up; or any Lettuce ReadFrom name such as replicaPreferred or lowestLatency
+        private String readFrom = "";
+        // host:port of replicas of spring.data.redis.host; when empty, read-from discovers them from the primary
+        private List<String> replicas = new ArrayList<>();
+        // commands written per flush inside a pipeline instead of one flush each
+        private int pipelineFlushSize = 128;
+        // periodic cluster topology refresh, on top of refreshes triggered by MOVED/ASK and reconnects
+        private Duration topologyRefresh = Duration.ofSeconds(30);
+    }
+
+    /**
+     * Clicks per short code rolled up into minute, hour and day buckets, served by the stats endpoint.
+     */
+    @Getter
+    @Setter
+    public static class ClickStats {
+        private boolean enabled = false;
+        // rolled-up buckets are upserted into Mongo this often; the stats endpoint lags by up to this much
+        private long flushIntervalMs = 10_000;
+        // buckets are dropped by a TTL index this long after they start; 0 keeps them
+        private Duration minuteRetention = Duration.ofDays(2);
+        private Duration hourRetention = Duration.ofDays(90);
+        private Duration dayRetention = Duration.ZERO;
+        // upper bound for the number of buckets one stats request may span
+        private int maxBuckets = 1440;
+    }
+
+    /**
+     * Most clicked codes right now, from a decaying count-min sketch per replica merged through Redis.
+     */
+    @Getter
+    @Setter
+    public static class Trending {
+        private boolean enabled = false;
+        // codes tracked and returned at most; four times as many candidates are kept per replica
+        private int topK = 100;
+        // counters per row and rows of the sketch; memory is width x depth x 8 bytes whatever the traffic
+        private int sketchWidth = 2048;
+        private int sketchDepth = 4;
+        // a click's weight halves after this long
+        private Duration halfLife = Duration.ofMinutes(5);
+        // each replica publishes its sketch and re-reads the merged view this often
+        private long publishIntervalMs = 5000;
+    }
+
+    /**
+     * gRPC server for internal callers, next to the REST API and backed by the same UrlService.
+     */
+    @Getter
+    @Setter
+    public static class Grpc {
+        private boolean enabled = false;
+        private int port = 9090;
+        // codes resolved per batch on a ResolveStream call, also the requests read ahead per stream
+        private int streamBatchSize = 100;
+        // lets grpcurl and ghz discover the service without the .proto file
+        private boolean reflection = true;
+        // in-flight calls may finish within this on shutdown, then they are cancelled
+        private Duration shutdownGrace = Duration.ofSeconds(10);
+    }
+
+    @Getter
+    @Setter
+    public static class Shard {
+        private String name;
+        // database taken from the connection string
+        private String uri;
+    }
+
+    public enum Durability {
+        // a create returns after its journal record is fsynced; concurrent creates share one fsync
+        FSYNC,
+        // a create returns after the write; an OS crash or power loss drops up to sync-interval-ms of creates
+        INTERVAL
+    }
 }
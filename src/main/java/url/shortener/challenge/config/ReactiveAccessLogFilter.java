@@ -0,0 +1,43 @@
+package url.shortener.challenge.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import url.shortener.challenge.util.AccessLog;
+
+import java.net.InetSocketAddress;
+
+/**
+ * {@link AccessLogFilter} for the reactive stack: one {@link AccessLog} event per exchange once it completes.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAccessLogFilter implements WebFilter {
+
+    private final AccessLog accessLog;
+
+    public ReactiveAccessLogFilter(AccessLog accessLog) {
+        this.accessLog = accessLog;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().value();
+        if (path.startsWith("/actuator")) {
+            return chain.filter(exchange);
+        }
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            InetSocketAddress client = request.getRemoteAddress();
+            accessLog.record(request.getMethod().name(), path, status != null ? status.value() : 200, start,
+                    client != null && client.getAddress() != null ? client.getAddress().getHostAddress() : null);
+        });
+    }
+}
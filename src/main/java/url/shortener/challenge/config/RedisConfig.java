@@ -1,18 +1,180 @@
 package url.shortener.challenge.config;
 
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.TimeoutOptions;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import io.lettuce.core.models.role.RedisNodeDescription;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisConfiguration;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.RedisStaticMasterReplicaConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration.LettuceClientConfigurationBuilder;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import url.shortener.challenge.cache.UrlCacheInvalidator;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 @Configuration
 public class RedisConfig {
+
+    /**
+     * Reads from the replica with the lowest latency, falling back to the primary when no replica is up.
+     * Writes, including the rate limiter's script calls, always go to the primary.
+     */
+    static final ReadFrom NEAREST_REPLICA = new ReadFrom() {
+        @Override
+        public List<RedisNodeDescription> select(Nodes nodes) {
+            List<RedisNodeDescription> selected = new ArrayList<>();
+            // Lettuce hands the nodes over sorted by measured latency since the selection is order sensitive
+            nodes.getNodes().stream().filter(node -> node.getRole().isReplica()).forEach(selected::add);
+            nodes.getNodes().stream().filter(node -> node.getRole().isUpstream()).forEach(selected::add);
+            return selected;
+        }
+
+        @Override
+        protected boolean isOrderSensitive() {
+            return true;
+        }
+    };
+
+    /**
+     * Built from spring.data.redis.* like Boot's own factory, plus replica reads and cluster topology
+     * refresh from app.redis.*. Plain commands share one multiplexed connection; pipelines take a dedicated
+     * one from the pool and write their commands in batches.
+     */
     @Bean
-    public LettuceConnectionFactory redisConnectionFactory() {
-        return new LettuceConnectionFactory();
+    public LettuceConnectionFactory redisConnectionFactory(RedisProperties redis, AppProperties props) {
+        AppProperties.Redis cfg = props.getRedis();
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(
+                serverConfiguration(redis, cfg), clientConfiguration(redis, cfg));
+        factory.setPipeliningFlushPolicy(LettuceConnection.PipeliningFlushPolicy.buffered(cfg.getPipelineFlushSize()));
+        return factory;
     }
     @Bean
     public StringRedisTemplate stringRedisTemplate(LettuceConnectionFactory cf) {
         return new StringRedisTemplate(cf);
     }
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(LettuceConnectionFactory cf,
+                                                                       UrlCacheInvalidator invalidator) {
+        // started by RedisListenerStarter so an unreachable Redis does not block startup
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public boolean isAutoStartup() {
+                return false;
+            }
+        };
+        container.setConnectionFactory(cf);
+        container.addMessageListener(invalidator, new ChannelTopic(UrlCacheInvalidator.CHANNEL));
+        return container;
+    }
+
+    /**
+     * A cluster when spring.data.redis.cluster.nodes is set, the primary plus app.redis.replicas when those
+     * are listed, otherwise a single node (whose replicas Lettuce discovers itself if read-from is set).
+     */
+    static RedisConfiguration serverConfiguration(RedisProperties redis, AppProperties.Redis cfg) {
+        RedisPassword password = RedisPassword.of(redis.getPassword());
+        if (redis.getCluster() != null && redis.getCluster().getNodes() != null
+                && !redis.getCluster().getNodes().isEmpty()) {
+            RedisClusterConfiguration cluster = new RedisClusterConfiguration(redis.getCluster().getNodes());
+            if (redis.getCluster().getMaxRedirects() != null) {
+                cluster.setMaxRedirects(redis.getCluster().getMaxRedirects());
+            }
+            cluster.setUsername(redis.getUsername());
+            cluster.setPassword(password);
+            return cluster;
+        }
+        if (!cfg.getReplicas().isEmpty()) {
+            RedisStaticMasterReplicaConfiguration replicated =
+                    new RedisStaticMasterReplicaConfiguration(redis.getHost(), redis.getPort());
+            for (String replica : cfg.getReplicas()) {
+                int colon = replica.lastIndexOf(':');
+                replicated.node(replica.substring(0, colon), Integer.parseInt(replica.substring(colon + 1)));
+            }
+            replicated.setDatabase(redis.getDatabase());
+            replicated.setUsername(redis.getUsername());
+            replicated.setPassword(password);
+            return replicated;
+        }
+        RedisStandaloneConfiguration standalone = new RedisStandaloneConfiguration(redis.getHost(), redis.getPort());
+        standalone.setDatabase(redis.getDatabase());
+        standalone.setUsername(redis.getUsername());
+        standalone.setPassword(password);
+        return standalone;
+    }
+
+    /**
+     * @return the configured read routing, or null to keep every command on the primary
+     */
+    static ReadFrom readFrom(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        return name.equals("nearest-replica") ? NEAREST_REPLICA : ReadFrom.valueOf(name);
+    }
+
+    private static LettuceClientConfiguration clientConfiguration(RedisProperties redis, AppProperties.Redis cfg) {
+        RedisProperties.Pool pool = redis.getLettuce().getPool();
+        LettuceClientConfigurationBuilder builder = Boolean.FALSE.equals(pool.getEnabled())
+                ? LettuceClientConfiguration.builder()
+                : LettucePoolingClientConfiguration.builder().poolConfig(poolConfig(pool));
+        if (redis.getTimeout() != null) {
+            builder.commandTimeout(redis.getTimeout());
+        }
+        if (redis.getSsl().isEnabled()) {
+            builder.useSsl();
+        }
+        ReadFrom readFrom = readFrom(cfg.getReadFrom());
+        if (readFrom != null) {
+            builder.readFrom(readFrom);
+        }
+        SocketOptions.Builder socket = SocketOptions.builder().keepAlive(true);
+        if (redis.getConnectTimeout() != null) {
+            socket.connectTimeout(redis.getConnectTimeout());
+        }
+        Duration refresh = cfg.getTopologyRefresh();
+        builder.clientOptions(ClusterClientOptions.builder()
+                .socketOptions(socket.build())
+                .timeoutOptions(TimeoutOptions.enabled())
+                // fail while disconnected instead of queueing behind the reconnect, the bulkhead handles the rest
+                .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                .topologyRefreshOptions(ClusterTopologyRefreshOptions.builder()
+                        .enableAllAdaptiveRefreshTriggers()
+                        .enablePeriodicRefresh(refresh != null && !refresh.isZero())
+                        .refreshPeriod(refresh != null && !refresh.isZero() ? refresh : Duration.ofSeconds(60))
+                        .build())
+                .build());
+        return builder.build();
+    }
+
+    private static <T> GenericObjectPoolConfig<T> poolConfig(RedisProperties.Pool pool) {
+        GenericObjectPoolConfig<T> config = new GenericObjectPoolConfig<>();
+        config.setMaxTotal(pool.getMaxActive());
+        config.setMaxIdle(pool.getMaxIdle());
+        config.setMinIdle(pool.getMinIdle());
+        if (pool.getMaxWait() != null) {
+            config.setMaxWait(pool.getMaxWait());
+        }
+        if (pool.getTimeBetweenEvictionRuns() != null) {
+            config.setTimeBetweenEvictionRuns(pool.getTimeBetweenEvictionRuns());
+        }
+        return config;
+    }
 }
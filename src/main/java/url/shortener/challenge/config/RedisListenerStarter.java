@@ -0,0 +1,60 @@
+package url.shortener.challenge.config;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Starts the pub/sub listener container in the background once the app is up.
+ * The container refuses to start when Redis is unreachable, which must not keep the
+ * replica from booting, so we keep retrying until the subscription is in place.
+ */
+@Component
+public class RedisListenerStarter {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisListenerStarter.class);
+    private static final Duration RETRY_INTERVAL = Duration.ofSeconds(5);
+
+    private final RedisMessageListenerContainer container;
+    private volatile boolean closed;
+
+    public RedisListenerStarter(RedisMessageListenerContainer container) {
+        this.container = container;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread.ofVirtual().name("redis-listener-starter").start(this::startWithRetry);
+    }
+
+    @PreDestroy
+    void close() {
+        closed = true;
+    }
+
+    private void startWithRetry() {
+        while (!closed) {
+            try {
+                container.start();
+                log.info("Subscribed to Redis pub/sub channels");
+                return;
+            } catch (RuntimeException e) {
+                // reset the container so the next start() attempts a fresh subscription
+                container.stop();
+                log.warn("Redis pub/sub subscription failed, retrying in {}: {}", RETRY_INTERVAL, e.getMessage());
+            }
+            try {
+                Thread.sleep(RETRY_INTERVAL);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
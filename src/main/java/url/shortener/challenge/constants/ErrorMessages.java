@@ -4,7 +4,11 @@ public enum ErrorMessages {
     LONG_URL_REQUIRED(100,"Long URL is required"),
     LONG_URL_INVALID(101,"Must start with http:// or https://"),
     URL_NOT_FOUND(102,"URL not found for shortUrl: "),
-    ALIAS_EXISTS(102, "Alias already exists: ");
+    ALIAS_EXISTS(102, "Alias already exists: "),
+    BULK_ITEM_MALFORMED(103, "Malformed item: "),
+    BATCH_SIZE_INVALID(104, "Between 1 and 1000 short URLs are required"),
+    BACKEND_BUSY(105, "Backend busy, retry later: "),
+    STATS_QUERY_INVALID(106, "Invalid stats query: ");
 
     private Integer code;
     private final String message;
@@ -20,4 +24,16 @@ public enum ErrorMessages {
     public Integer getCode() {
         return code;
     }
+
+    /**
+     * Maps a bean validation message to its error entry.
+     */
+    public static ErrorMessages fromValidationMessage(String message) {
+        for (ErrorMessages error : values()) {
+            if (error.message.equals(message)) {
+                return error;
+            }
+        }
+        return message != null && message.contains("http") ? LONG_URL_INVALID : LONG_URL_REQUIRED;
+    }
 }
@@ -0,0 +1,59 @@
+package url.shortener.challenge.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.exception.UrlNotFoundException;
+import url.shortener.challenge.service.ReactiveUrlService;
+
+/**
+ * {@link RedirectController} for the reactive stack: same status, Location and cache headers,
+ * set directly on the response.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRedirectController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveRedirectController.class);
+    private final ReactiveUrlService service;
+    private final RedirectCachePolicy cachePolicy;
+
+    public ReactiveRedirectController(ReactiveUrlService service, AppProperties props) {
+        this.service = service;
+        this.cachePolicy = new RedirectCachePolicy(props);
+    }
+
+    /**
+     * Redirects to the long URL behind the given code.
+     * @param shortUrl short URL code
+     * @param response response the redirect is written to
+     */
+    @GetMapping("/{shortUrl:[A-Za-z0-9_-]{4,16}}")
+    public Mono<Void> redirect(@PathVariable String shortUrl, ServerHttpResponse response) {
+        return service.lookup(shortUrl)
+                .switchIfEmpty(Mono.error(() -> new UrlNotFoundException(shortUrl)))
+                .flatMap(target -> {
+                    long now = System.currentTimeMillis();
+                    long maxAge = cachePolicy.maxAge(target, now);
+
+                    HttpHeaders headers = response.getHeaders();
+                    response.setStatusCode(HttpStatus.valueOf(cachePolicy.status(target)));
+                    headers.set(HttpHeaders.LOCATION, target.longUrl());
+                    headers.set(HttpHeaders.CACHE_CONTROL, cachePolicy.cacheControl(maxAge));
+                    headers.setExpires(now + maxAge * 1000);
+
+                    if (log.isDebugEnabled()) {
+                        log.debug("Redirecting shortUrl={} to longUrl={}", shortUrl, target.longUrl());
+                    }
+                    return response.setComplete();
+                });
+    }
+}
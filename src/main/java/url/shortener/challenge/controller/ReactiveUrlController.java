@@ -0,0 +1,92 @@
+package url.shortener.challenge.controller;
+
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import url.shortener.challenge.dto.LongUrlRequestDto;
+import url.shortener.challenge.dto.ResolveUrlResponseDto;
+import url.shortener.challenge.dto.ShortUrlResponseDto;
+import url.shortener.challenge.exception.UrlNotFoundException;
+import url.shortener.challenge.service.ReactiveUrlService;
+import url.shortener.challenge.util.ReactiveRateLimiter;
+
+import java.net.InetSocketAddress;
+
+/**
+ * {@link UrlController} for the reactive stack: create and resolve with the same status codes and bodies.
+ */
+@RestController
+@RequestMapping("/api/v1/urls")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUrlController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveUrlController.class);
+
+    private final ReactiveUrlService service;
+    private final ReactiveRateLimiter limiter;
+
+    public ReactiveUrlController(ReactiveUrlService service, ReactiveRateLimiter limiter) {
+        this.service = service;
+        this.limiter = limiter;
+    }
+
+    /**
+     * Creates a new short URL for the given request.
+     * @param req request containing the long URL
+     * @param httpReq HTTP request to extract client IP
+     * @return ShortUrlResponseDto containing the generated short URL
+     */
+    @PostMapping
+    public Mono<ResponseEntity<ShortUrlResponseDto>> create(@Valid @RequestBody LongUrlRequestDto req,
+                                                            ServerHttpRequest httpReq) {
+        String ip = remoteAddr(httpReq);
+        log.debug("Received create request from ip={} for longUrl={}", ip, req.getLongUrl());
+
+        // enforce rate limit
+        return limiter.allow("create", ip).flatMap(allowed -> {
+            if (!allowed) {
+                log.debug("Rate limit exceeded for ip={}", ip);
+                return Mono.just(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build());
+            }
+            return service.create(req).map(created -> {
+                log.debug("Created shortUrl={} for longUrl={}", created.getShortUrl(), req.getLongUrl());
+                return ResponseEntity.status(HttpStatus.CREATED).body(created);
+            });
+        });
+    }
+
+    /**
+     * Resolves a short URL code to its original long URL.
+     * @param shortUrl short URL code
+     * @return ResolveUrlResponseDto containing the long URL
+     */
+    @GetMapping("/{shortUrl}")
+    public Mono<ResponseEntity<ResolveUrlResponseDto>> resolve(@PathVariable String shortUrl) {
+        log.debug("Received resolve request for shortUrl={}", shortUrl);
+
+        return service.resolve(shortUrl)
+                .map(longUrl -> {
+                    log.debug("Resolved shortUrl={} to longUrl={}", shortUrl, longUrl);
+                    return ResponseEntity.ok(new ResolveUrlResponseDto(longUrl));
+                })
+                .switchIfEmpty(Mono.error(() -> {
+                    log.debug("shortUrl={} not found", shortUrl);
+                    return new UrlNotFoundException(shortUrl);
+                }));
+    }
+
+    // same value as HttpServletRequest#getRemoteAddr, so rate limit keys match across stacks
+    private static String remoteAddr(ServerHttpRequest request) {
+        InetSocketAddress address = request.getRemoteAddress();
+        if (address == null) {
+            return "unknown";
+        }
+        return address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostString();
+    }
+}
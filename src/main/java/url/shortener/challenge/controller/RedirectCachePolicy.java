@@ -0,0 +1,51 @@
+package url.shortener.challenge.controller;
+
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.service.ResolvedUrl;
+
+/**
+ * Status and cache lifetime of a redirect, shared by the servlet and reactive redirect endpoints.
+ * Redirects may be cached until the mapping expires, capped at app.redirect.max-age-seconds.
+ */
+final class RedirectCachePolicy {
+
+    static final int MOVED_PERMANENTLY = 301;
+    static final int FOUND = 302;
+
+    private static final String NO_STORE = "no-store";
+    private static final String MAX_AGE_PREFIX = "public, max-age=";
+
+    private final boolean permanent;
+    private final long maxAgeSeconds;
+    private final String defaultCacheControl;
+
+    RedirectCachePolicy(AppProperties props) {
+        this.permanent = props.getRedirect().isPermanent();
+        this.maxAgeSeconds = props.getRedirect().getMaxAgeSeconds();
+        this.defaultCacheControl = MAX_AGE_PREFIX + maxAgeSeconds;
+    }
+
+    int status(ResolvedUrl target) {
+        return permanent && target.expiresAt() == null ? MOVED_PERMANENTLY : FOUND;
+    }
+
+    /**
+     * @return seconds the redirect may be cached from {@code nowMillis}
+     */
+    long maxAge(ResolvedUrl target, long nowMillis) {
+        if (target.expiresAt() != null) {
+            long remaining = (target.expiresAt().toEpochMilli() - nowMillis) / 1000;
+            if (remaining < maxAgeSeconds) {
+                return Math.max(0, remaining);
+            }
+        }
+        return maxAgeSeconds;
+    }
+
+    String cacheControl(long maxAge) {
+        if (maxAge == maxAgeSeconds) {
+            return defaultCacheControl;
+        }
+        return maxAge > 0 ? MAX_AGE_PREFIX + maxAge : NO_STORE;
+    }
+}
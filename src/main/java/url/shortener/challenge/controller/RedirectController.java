@@ -0,0 +1,58 @@
+package url.shortener.challenge.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.exception.UrlNotFoundException;
+import url.shortener.challenge.service.ResolvedUrl;
+import url.shortener.challenge.service.UrlService;
+
+/**
+ * Redirects {@code GET /{code}} straight to the long URL.
+ * This is the hottest path, so it writes status and headers directly on the servlet response
+ * (no ResponseEntity, no body, no JSON) and only logs at debug level.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RedirectController {
+
+    private static final Logger log = LoggerFactory.getLogger(RedirectController.class);
+    private final UrlService service;
+    private final RedirectCachePolicy cachePolicy;
+
+    public RedirectController(UrlService service, AppProperties props) {
+        this.service = service;
+        this.cachePolicy = new RedirectCachePolicy(props);
+    }
+
+    /**
+     * Redirects to the long URL behind the given code.
+     * Cache-Control/Expires let browsers and nginx cache the redirect until the mapping expires,
+     * capped at app.redirect.max-age-seconds.
+     * @param shortUrl short URL code
+     * @param response servlet response the redirect is written to
+     */
+    @GetMapping("/{shortUrl:[A-Za-z0-9_-]{4,16}}")
+    public void redirect(@PathVariable String shortUrl, HttpServletResponse response) {
+        ResolvedUrl target = service.lookup(shortUrl)
+                .orElseThrow(() -> new UrlNotFoundException(shortUrl));
+
+        long now = System.currentTimeMillis();
+        long maxAge = cachePolicy.maxAge(target, now);
+
+        response.setStatus(cachePolicy.status(target));
+        response.setHeader(HttpHeaders.LOCATION, target.longUrl());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cachePolicy.cacheControl(maxAge));
+        response.setDateHeader(HttpHeaders.EXPIRES, now + maxAge * 1000);
+
+        if (log.isDebugEnabled()) {
+            log.debug("Redirecting shortUrl={} to longUrl={}", shortUrl, target.longUrl());
+        }
+    }
+}
@@ -1,31 +1,74 @@
 package url.shortener.challenge.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.constants.ErrorMessages;
+import url.shortener.challenge.dto.BatchResolveRequestDto;
+import url.shortener.challenge.dto.BatchResolveResponseDto;
+import url.shortener.challenge.dto.BulkCreateResultDto;
+import url.shortener.challenge.dto.ClickStatsResponseDto;
 import url.shortener.challenge.dto.LongUrlRequestDto;
 import url.shortener.challenge.dto.ResolveUrlResponseDto;
 import url.shortener.challenge.dto.ShortUrlResponseDto;
+import url.shortener.challenge.dto.TrendingResponseDto;
+import url.shortener.challenge.entity.ClickBucket.Granularity;
+import url.shortener.challenge.exception.InvalidStatsQueryException;
 import url.shortener.challenge.exception.UrlNotFoundException;
 import url.shortener.challenge.service.UrlService;
+import url.shortener.challenge.service.impl.ClickStats;
+import url.shortener.challenge.service.impl.TrendingTracker;
 import url.shortener.challenge.util.RateLimiter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
 @RestController
 @RequestMapping("/api/v1/urls")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UrlController {
 
     private static final Logger log = LoggerFactory.getLogger(UrlController.class);
 
     private final UrlService service;
     private final RateLimiter limiter;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final AppProperties props;
+    private final ClickStats clickStats;
+    private final TrendingTracker trending;
 
-    public UrlController(UrlService service, RateLimiter limiter) {
+    public UrlController(UrlService service, RateLimiter limiter, ObjectMapper objectMapper,
+                         Validator validator, AppProperties props, ClickStats clickStats,
+                         TrendingTracker trending) {
         this.service = service;
         this.limiter = limiter;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.props = props;
+        this.clickStats = clickStats;
+        this.trending = trending;
     }
 
     /**
@@ -38,21 +81,47 @@ public class UrlController {
     public ResponseEntity<ShortUrlResponseDto> create(@Valid @RequestBody LongUrlRequestDto req,
                                                       HttpServletRequest httpReq) {
         String ip = httpReq.getRemoteAddr();
-        log.info("Received create request from ip={} for longUrl={}", ip, req.getLongUrl());
+        log.debug("Received create request from ip={} for longUrl={}", ip, req.getLongUrl());
 
         // enforce rate limit
-        if (!limiter.allow("create:" + ip, 60)) {
-            log.warn("Rate limit exceeded for ip={}", ip);
+        if (!limiter.allow("create", ip)) {
+            log.debug("Rate limit exceeded for ip={}", ip);
             return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
         }
 
         var entity = service.create(req);
-        log.info("Created shortUrl={} for longUrl={}", entity.getShortUrl(), req.getLongUrl());
+        log.debug("Created shortUrl={} for longUrl={}", entity.getShortUrl(), req.getLongUrl());
 
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(new ShortUrlResponseDto(entity.getShortUrl()));
     }
 
+    /**
+     * Creates short URLs for a JSON array or an NDJSON stream of requests.
+     * Items are read and stored chunk by chunk, and one NDJSON line tagged with the item's
+     * index is streamed back per item, carrying either its short URL or its error.
+     * @param httpReq HTTP request carrying the body and the client IP
+     * @return NDJSON stream of BulkCreateResultDto
+     */
+    @PostMapping(path = "/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> createBulk(HttpServletRequest httpReq) throws IOException {
+        String ip = httpReq.getRemoteAddr();
+        log.debug("Received bulk create request from ip={}", ip);
+
+        // one rate limit check for the whole batch
+        if (!limiter.allow("bulk", ip)) {
+            log.debug("Bulk rate limit exceeded for ip={}", ip);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+
+        InputStream body = httpReq.getInputStream();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> streamBulkCreate(body, out));
+    }
+
     /**
      * Resolves a short URL code to its original long URL.
      * @param shortUrl short URL code
@@ -60,16 +129,143 @@ public class UrlController {
      */
     @GetMapping("/{shortUrl}")
     public ResponseEntity<ResolveUrlResponseDto> resolve(@PathVariable String shortUrl) {
-        log.info("Received resolve request for shortUrl={}", shortUrl);
+        log.debug("Received resolve request for shortUrl={}", shortUrl);
 
         return service.resolve(shortUrl)
                 .map(longUrl -> {
-                    log.info("Resolved shortUrl={} to longUrl={}", shortUrl, longUrl);
+                    log.debug("Resolved shortUrl={} to longUrl={}", shortUrl, longUrl);
                     return ResponseEntity.ok(new ResolveUrlResponseDto(longUrl));
                 })
                 .orElseThrow(() -> {
-                    log.warn("shortUrl={} not found", shortUrl);
+                    log.debug("shortUrl={} not found", shortUrl);
                     return new UrlNotFoundException(shortUrl);
                 });
     }
+
+    /**
+     * Resolves many short URL codes in one call.
+     * @param req request containing the codes
+     * @return BatchResolveResponseDto with one FOUND, NOT_FOUND or EXPIRED result per code
+     */
+    @PostMapping("/resolve")
+    public ResponseEntity<BatchResolveResponseDto> resolveAll(@Valid @RequestBody BatchResolveRequestDto req) {
+        log.debug("Received batch resolve request for {} shortUrls", req.getShortUrls().size());
+        return ResponseEntity.ok(new BatchResolveResponseDto(service.resolveAll(req.getShortUrls())));
+    }
+
+    /**
+     * Returns the clicks of a short URL per minute, hour or day, read from pre-aggregated buckets.
+     * @param shortUrl short URL code
+     * @param granularity minute, hour or day
+     * @param from ISO-8601 instant to start at, defaults to 60/48/30 buckets before to
+     * @param to ISO-8601 instant to end at (exclusive), defaults to the end of the current bucket
+     * @return ClickStatsResponseDto with one entry per bucket, or 404 if click stats are disabled
+     */
+    @GetMapping("/{shortUrl}/stats")
+    public ResponseEntity<ClickStatsResponseDto> stats(@PathVariable String shortUrl,
+                                                       @RequestParam(defaultValue = "hour") String granularity,
+                                                       @RequestParam(required = false) String from,
+                                                       @RequestParam(required = false) String to) {
+        log.debug("Received stats request for shortUrl={} granularity={}", shortUrl, granularity);
+        if (!clickStats.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        return clickStats.query(shortUrl, granularity(granularity), instant(from), instant(to))
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new UrlNotFoundException(shortUrl));
+    }
+
+    /**
+     * Returns the most clicked short URLs right now, merged across replicas.
+     * @param limit number of codes, at most app.trending.top-k
+     * @return TrendingResponseDto heaviest first, or 404 if trending is disabled
+     */
+    @GetMapping("/trending")
+    public ResponseEntity<TrendingResponseDto> trending(@RequestParam(defaultValue = "20") int limit) {
+        if (!trending.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(trending.top(limit));
+    }
+
+    private static Granularity granularity(String value) {
+        try {
+            return Granularity.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidStatsQueryException("granularity must be minute, hour or day");
+        }
+    }
+
+    private static Instant instant(String value) {
+        try {
+            return value != null ? Instant.parse(value) : null;
+        } catch (DateTimeParseException e) {
+            throw new InvalidStatsQueryException("from and to must be ISO-8601 instants");
+        }
+    }
+
+    private void streamBulkCreate(InputStream in, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(BulkCreateResultDto.class);
+        int chunkSize = props.getBulk().getChunkSize();
+        List<LongUrlRequestDto> chunk = new ArrayList<>(chunkSize);
+        List<Long> chunkIndexes = new ArrayList<>(chunkSize);
+        long index = 0;
+        long created = 0;
+
+        try (MappingIterator<LongUrlRequestDto> items =
+                     objectMapper.readerFor(LongUrlRequestDto.class).readValues(in)) {
+            while (items.hasNextValue()) {
+                LongUrlRequestDto item = items.nextValue();
+                Set<ConstraintViolation<LongUrlRequestDto>> violations = validator.validate(item);
+                if (violations.isEmpty()) {
+                    chunk.add(item);
+                    chunkIndexes.add(index);
+                    if (chunk.size() >= chunkSize) {
+                        created += writeChunk(chunk, chunkIndexes, writer, out);
+                    }
+                } else {
+                    String msg = violations.iterator().next().getMessage();
+                    writeLine(BulkCreateResultDto.failed(ErrorMessages.fromValidationMessage(msg).getCode(), msg),
+                            index, writer, out);
+                }
+                index++;
+            }
+        } catch (JsonProcessingException e) {
+            // the rest of the stream can't be trusted, report where parsing stopped
+            created += writeChunk(chunk, chunkIndexes, writer, out);
+            writeLine(BulkCreateResultDto.failed(ErrorMessages.BULK_ITEM_MALFORMED.getCode(),
+                    ErrorMessages.BULK_ITEM_MALFORMED.getMessage() + e.getOriginalMessage()), index, writer, out);
+            log.warn("Bulk create stopped at item {}: {}", index, e.getOriginalMessage());
+            return;
+        }
+        created += writeChunk(chunk, chunkIndexes, writer, out);
+        log.debug("Bulk created {} of {} short urls", created, index);
+    }
+
+    private long writeChunk(List<LongUrlRequestDto> chunk, List<Long> chunkIndexes,
+                            ObjectWriter writer, OutputStream out) throws IOException {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        List<BulkCreateResultDto> results = service.createAll(chunk);
+        long created = 0;
+        for (int i = 0; i < results.size(); i++) {
+            BulkCreateResultDto result = results.get(i);
+            if (result.getShortUrl() != null) {
+                created++;
+            }
+            writeLine(result, chunkIndexes.get(i), writer, out);
+        }
+        chunk.clear();
+        chunkIndexes.clear();
+        out.flush();
+        return created;
+    }
+
+    private void writeLine(BulkCreateResultDto result, long index, ObjectWriter writer,
+                           OutputStream out) throws IOException {
+        result.setIndex(index);
+        out.write(writer.writeValueAsBytes(result));
+        out.write('\n');
+    }
 }
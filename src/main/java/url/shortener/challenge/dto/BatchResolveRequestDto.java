@@ -0,0 +1,20 @@
+package url.shortener.challenge.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class BatchResolveRequestDto {
+    @NotEmpty(message = "Between 1 and 1000 short URLs are required")
+    @Size(max = 1000, message = "Between 1 and 1000 short URLs are required")
+    private List<String> shortUrls;
+}
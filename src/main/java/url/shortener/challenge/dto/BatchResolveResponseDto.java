@@ -0,0 +1,16 @@
+package url.shortener.challenge.dto;
+
+import lombok.*;
+
+import java.util.Map;
+
+@Data
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class BatchResolveResponseDto {
+    private Map<String, ResolveResultDto> results;
+}
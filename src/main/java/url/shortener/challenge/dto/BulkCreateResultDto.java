@@ -0,0 +1,30 @@
+package url.shortener.challenge.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+/**
+ * One line of the bulk create response: either the generated short URL or the error for that item.
+ */
+@Data
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkCreateResultDto {
+    private Long index;
+    private String shortUrl;
+    private Integer errorCode;
+    private String error;
+
+    public static BulkCreateResultDto created(String shortUrl) {
+        return new BulkCreateResultDto(null, shortUrl, null, null);
+    }
+
+    public static BulkCreateResultDto failed(Integer errorCode, String error) {
+        return new BulkCreateResultDto(null, null, errorCode, error);
+    }
+}
@@ -0,0 +1,33 @@
+package url.shortener.challenge.dto;
+
+import lombok.*;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Clicks of one short code per bucket in [from, to); buckets without clicks are included with a count of 0.
+ */
+@Data
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class ClickStatsResponseDto {
+    private String shortUrl;
+    private String granularity;
+    private Instant from;
+    private Instant to;
+    private long total;
+    private List<Bucket> buckets;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bucket {
+        private Instant start;
+        private long count;
+    }
+}
@@ -0,0 +1,38 @@
+package url.shortener.challenge.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+/**
+ * Outcome of resolving one code in a batch; longUrl is only set when the code was found.
+ */
+@Data
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResolveResultDto {
+    private Status status;
+    private String longUrl;
+
+    public enum Status {
+        FOUND,
+        NOT_FOUND,
+        EXPIRED
+    }
+
+    public static ResolveResultDto found(String longUrl) {
+        return new ResolveResultDto(Status.FOUND, longUrl);
+    }
+
+    public static ResolveResultDto notFound() {
+        return new ResolveResultDto(Status.NOT_FOUND, null);
+    }
+
+    public static ResolveResultDto expired() {
+        return new ResolveResultDto(Status.EXPIRED, null);
+    }
+}
@@ -0,0 +1,32 @@
+package url.shortener.challenge.dto;
+
+import lombok.*;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Most clicked codes as of the last sketch exchange, heaviest first. A score is a click count in which
+ * each click's weight halves every app.trending.half-life.
+ */
+@Data
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class TrendingResponseDto {
+    private Instant asOf;
+    // replicas whose sketches were merged
+    private int replicas;
+    private List<Item> items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private String shortUrl;
+        private double score;
+    }
+}
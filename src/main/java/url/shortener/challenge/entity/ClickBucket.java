@@ -0,0 +1,79 @@
+package url.shortener.challenge.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Pre-aggregated click count of one short code over one minute, hour or day.
+ * Field names are kept to one letter since there are up to three documents per code and minute.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Document("url_stats")
+@CompoundIndexes({
+        @CompoundIndex(name = "stats_bucket_unique_idx", def = "{ 'c': 1, 'g': 1, 't': 1 }", unique = true)
+})
+public class ClickBucket {
+
+    @Id
+    private String id;
+
+    @Field("c")
+    private String shortUrl;
+
+    // Granularity.code
+    @Field("g")
+    private String granularity;
+
+    @Field("t")
+    private Instant start;
+
+    @Field("n")
+    private long count;
+
+    @Field("x")
+    @Indexed(expireAfter = "0s")
+    private Instant expiresAt;
+
+    public enum Granularity {
+        MINUTE("m", ChronoUnit.MINUTES),
+        HOUR("h", ChronoUnit.HOURS),
+        DAY("d", ChronoUnit.DAYS);
+
+        private final String code;
+        private final ChronoUnit unit;
+
+        Granularity(String code, ChronoUnit unit) {
+            this.code = code;
+            this.unit = unit;
+        }
+
+        public String code() {
+            return code;
+        }
+
+        public ChronoUnit unit() {
+            return unit;
+        }
+
+        /**
+         * @return the start of the bucket containing the given instant, in UTC
+         */
+        public Instant bucketStart(Instant instant) {
+            return instant.truncatedTo(unit);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.IndexDirection;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -28,14 +29,19 @@ public class Url {
     @Indexed(unique = true)
     private String shortUrl;
 
-    @Indexed
     private String longUrl;
 
+    // 64-bit hash of the normalized longUrl; indexed instead of the unbounded string itself
+    @Indexed
+    private Long longUrlHash;
+
     private Instant createdAt = Instant.now();
 
     @Indexed(expireAfterSeconds = 0)
     private Instant expiresAt;
 
+    // lets the startup warm-up read the hottest mappings without a collection scan
+    @Indexed(direction = IndexDirection.DESCENDING)
     private long hitCount;
 }
 
@@ -0,0 +1,7 @@
+package url.shortener.challenge.exception;
+
+public class BackendBusyException extends RuntimeException {
+    public BackendBusyException(String message) {
+        super(message);
+    }
+}
@@ -3,6 +3,7 @@ package url.shortener.challenge.exception;
 import org.springframework.http.*;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
 import url.shortener.challenge.constants.ErrorMessages;
 
@@ -21,12 +22,33 @@ public class GlobalExceptionHandler {
                 .body(new ErrorResponse(ErrorMessages.ALIAS_EXISTS.getCode(), ex.getMessage()));
     }
 
+    @ExceptionHandler(BackendBusyException.class)
+    public ResponseEntity<ErrorResponse> handleBackendBusy(BackendBusyException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ErrorResponse(ErrorMessages.BACKEND_BUSY.getCode(),
+                        ErrorMessages.BACKEND_BUSY.getMessage() + ex.getMessage()));
+    }
+
+    @ExceptionHandler(InvalidStatsQueryException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidStatsQuery(InvalidStatsQueryException ex) {
+        return ResponseEntity.badRequest()
+                .body(new ErrorResponse(ErrorMessages.STATS_QUERY_INVALID.getCode(),
+                        ErrorMessages.STATS_QUERY_INVALID.getMessage() + ex.getMessage()));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidation(MethodArgumentNotValidException ex) {
         String msg = ex.getBindingResult().getAllErrors().get(0).getDefaultMessage();
-        ErrorMessages error = msg.contains("http")
-                ? ErrorMessages.LONG_URL_INVALID
-                : ErrorMessages.LONG_URL_REQUIRED;
+        ErrorMessages error = ErrorMessages.fromValidationMessage(msg);
+        return ResponseEntity.badRequest()
+                .body(new ErrorResponse(error.getCode(), msg));
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ErrorResponse> handleReactiveValidation(WebExchangeBindException ex) {
+        String msg = ex.getBindingResult().getAllErrors().get(0).getDefaultMessage();
+        ErrorMessages error = ErrorMessages.fromValidationMessage(msg);
         return ResponseEntity.badRequest()
                 .body(new ErrorResponse(error.getCode(), msg));
     }
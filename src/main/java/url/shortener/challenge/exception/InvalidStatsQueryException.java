@@ -0,0 +1,7 @@
+package url.shortener.challenge.exception;
+
+public class InvalidStatsQueryException extends RuntimeException {
+    public InvalidStatsQueryException(String message) {
+        super(message);
+    }
+}
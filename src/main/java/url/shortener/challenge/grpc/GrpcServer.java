@@ -0,0 +1,86 @@
+package url.shortener.challenge.grpc;
+
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.protobuf.services.ProtoReflectionService;
+import io.grpc.protobuf.services.ProtoReflectionServiceV1;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import url.shortener.challenge.config.AppProperties;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the gRPC server on app.grpc.port next to the HTTP server. Calls are handled on virtual threads like
+ * servlet requests, so blocking service calls are fine and the bulkheads bound backend concurrency.
+ * Started and stopped with the application context; on shutdown in-flight calls get app.grpc.shutdown-grace.
+ */
+@Component
+@ConditionalOnProperty(name = "app.grpc.enabled", havingValue = "true")
+public class GrpcServer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(GrpcServer.class);
+
+    private final AppProperties.Grpc cfg;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Server server;
+    private volatile boolean running;
+
+    @SuppressWarnings("deprecation")
+    public GrpcServer(UrlGrpcService service, AppProperties props) {
+        this.cfg = props.getGrpc();
+        ServerBuilder<?> builder = ServerBuilder.forPort(cfg.getPort())
+                .executor(executor)
+                .addService(service);
+        if (cfg.isReflection()) {
+            // v1alpha as well, ghz and older grpcurl releases only speak that one
+            builder.addService(ProtoReflectionServiceV1.newInstance())
+                    .addService(ProtoReflectionService.newInstance());
+        }
+        this.server = builder.build();
+    }
+
+    @Override
+    public void start() {
+        try {
+            server.start();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start the gRPC server on port " + cfg.getPort(), e);
+        }
+        running = true;
+        log.info("gRPC server listening on port {}", server.getPort());
+    }
+
+    @Override
+    public void stop() {
+        server.shutdown();
+        try {
+            if (!server.awaitTermination(cfg.getShutdownGrace().toMillis(), TimeUnit.MILLISECONDS)) {
+                server.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            server.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdownNow();
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return the bound port, useful when app.grpc.port is 0
+     */
+    public int getPort() {
+        return server.getPort();
+    }
+}
@@ -0,0 +1,215 @@
+package url.shortener.challenge.grpc;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.dto.LongUrlRequestDto;
+import url.shortener.challenge.dto.ResolveResultDto;
+import url.shortener.challenge.exception.AliasAlreadyExistsException;
+import url.shortener.challenge.exception.BackendBusyException;
+import url.shortener.challenge.grpc.proto.CreateRequest;
+import url.shortener.challenge.grpc.proto.CreateResponse;
+import url.shortener.challenge.grpc.proto.ResolveRequest;
+import url.shortener.challenge.grpc.proto.ResolveResponse;
+import url.shortener.challenge.grpc.proto.UrlShortenerGrpc;
+import url.shortener.challenge.service.UrlService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * gRPC binding of {@link UrlService} for internal callers: the same validation, caches and hit counting
+ * as the REST endpoints, without HTTP/1.1 and JSON. Not rate limited, so the port is for trusted callers.
+ */
+@Component
+@ConditionalOnProperty(name = "app.grpc.enabled", havingValue = "true")
+public class UrlGrpcService extends UrlShortenerGrpc.UrlShortenerImplBase {
+
+    private static final Logger log = LoggerFactory.getLogger(UrlGrpcService.class);
+
+    // the batch resolve endpoint's limit
+    private static final int MAX_BATCH = 1000;
+
+    private final UrlService service;
+    private final Validator validator;
+    private final int batchSize;
+
+    public UrlGrpcService(UrlService service, Validator validator, AppProperties props) {
+        this.service = service;
+        this.validator = validator;
+        this.batchSize = Math.max(1, Math.min(props.getGrpc().getStreamBatchSize(), MAX_BATCH));
+    }
+
+    @Override
+    public void create(CreateRequest request, StreamObserver<CreateResponse> responses) {
+        LongUrlRequestDto dto = new LongUrlRequestDto(request.getLongUrl());
+        Set<ConstraintViolation<LongUrlRequestDto>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            responses.onError(Status.INVALID_ARGUMENT
+                    .withDescription(violations.iterator().next().getMessage()).asRuntimeException());
+            return;
+        }
+        try {
+            String shortUrl = service.create(dto).getShortUrl();
+            responses.onNext(CreateResponse.newBuilder().setShortUrl(shortUrl).build());
+            responses.onCompleted();
+        } catch (RuntimeException e) {
+            responses.onError(toStatus(e));
+        }
+    }
+
+    @Override
+    public void resolve(ResolveRequest request, StreamObserver<ResolveResponse> responses) {
+        try {
+            Optional<String> longUrl = service.resolve(request.getShortUrl());
+            ResolveResponse.Builder response = ResolveResponse.newBuilder().setShortUrl(request.getShortUrl());
+            longUrl.ifPresentOrElse(
+                    url -> response.setStatus(ResolveResponse.Status.FOUND).setLongUrl(url),
+                    () -> response.setStatus(ResolveResponse.Status.NOT_FOUND));
+            responses.onNext(response.build());
+            responses.onCompleted();
+        } catch (RuntimeException e) {
+            responses.onError(toStatus(e));
+        }
+    }
+
+    @Override
+    public StreamObserver<ResolveRequest> resolveStream(StreamObserver<ResolveResponse> responses) {
+        return new ResolveStream((ServerCallStreamObserver<ResolveResponse>) responses);
+    }
+
+    private static StatusRuntimeException toStatus(RuntimeException e) {
+        if (e instanceof BackendBusyException) {
+            return Status.UNAVAILABLE.withDescription(e.getMessage()).asRuntimeException();
+        }
+        if (e instanceof AliasAlreadyExistsException) {
+            return Status.ALREADY_EXISTS.withDescription(e.getMessage()).asRuntimeException();
+        }
+        log.error("gRPC call failed", e);
+        return Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException();
+    }
+
+    private static ResolveResponse toResponse(String shortUrl, ResolveResultDto result) {
+        ResolveResponse.Builder response = ResolveResponse.newBuilder().setShortUrl(shortUrl);
+        if (result == null) {
+            return response.setStatus(ResolveResponse.Status.NOT_FOUND).build();
+        }
+        return switch (result.getStatus()) {
+            case FOUND -> response.setStatus(ResolveResponse.Status.FOUND).setLongUrl(result.getLongUrl()).build();
+            case NOT_FOUND -> response.setStatus(ResolveResponse.Status.NOT_FOUND).build();
+            case EXPIRED -> response.setStatus(ResolveResponse.Status.EXPIRED).build();
+        };
+    }
+
+    /**
+     * One bidirectional resolve stream. Incoming codes are queued and drained by a single virtual thread
+     * at a time, which resolves whatever has arrived (up to the batch size) with one resolveAll call, so a
+     * caller sending one code at a time gets an answer right away and a busy stream is answered in batches.
+     * Flow control is manual: at most batchSize requests are read ahead, and more are only requested
+     * once the responses have been sent and the transport can take more.
+     */
+    private final class ResolveStream implements StreamObserver<ResolveRequest>, Runnable {
+
+        private final ServerCallStreamObserver<ResolveResponse> responses;
+        private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // answered requests not yet replaced by new ones because the transport was full
+        private final AtomicInteger deferred = new AtomicInteger();
+        private volatile boolean halfClosed;
+        private volatile boolean done;
+
+        ResolveStream(ServerCallStreamObserver<ResolveResponse> responses) {
+            this.responses = responses;
+            responses.disableAutoRequest();
+            responses.setOnReadyHandler(this::requestDeferred);
+            responses.setOnCancelHandler(() -> done = true);
+            responses.request(batchSize);
+        }
+
+        @Override
+        public void onNext(ResolveRequest request) {
+            pending.add(request.getShortUrl());
+            schedule();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            done = true;
+        }
+
+        @Override
+        public void onCompleted() {
+            halfClosed = true;
+            schedule();
+        }
+
+        @Override
+        public void run() {
+            do {
+                drain();
+                draining.set(false);
+                // work that arrived between the last poll and clearing the flag
+            } while (!done && (!pending.isEmpty() || halfClosed) && draining.compareAndSet(false, true));
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                Thread.ofVirtual().name("grpc-resolve-stream").start(this);
+            }
+        }
+
+        private void drain() {
+            List<String> batch = new ArrayList<>(batchSize);
+            while (!done) {
+                String shortUrl;
+                while (batch.size() < batchSize && (shortUrl = pending.poll()) != null) {
+                    batch.add(shortUrl);
+                }
+                if (batch.isEmpty()) {
+                    break;
+                }
+                try {
+                    Map<String, ResolveResultDto> results = service.resolveAll(batch);
+                    for (String code : batch) {
+                        responses.onNext(toResponse(code, results.get(code)));
+                    }
+                } catch (RuntimeException e) {
+                    done = true;
+                    responses.onError(toStatus(e));
+                    return;
+                }
+                deferred.addAndGet(batch.size());
+                requestDeferred();
+                batch.clear();
+            }
+            if (!done && halfClosed && pending.isEmpty()) {
+                done = true;
+                responses.onCompleted();
+            }
+        }
+
+        private void requestDeferred() {
+            if (responses.isReady()) {
+                int count = deferred.getAndSet(0);
+                if (count > 0) {
+                    responses.request(count);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package url.shortener.challenge.repository;
+
+import com.mongodb.MongoSocketOpenException;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.bulk.BulkWriteError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+import url.shortener.challenge.entity.ClickBucket;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Time-bucketed click counts in the {@code url_stats} collection. Buckets are upserted with $inc, so
+ * every replica adds its own counts to the same documents, and reads are range scans of one code's
+ * buckets on the unique (code, granularity, start) index.
+ */
+@Repository
+public class ClickStatsRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(ClickStatsRepository.class);
+
+    private final MongoTemplate mongo;
+    private volatile boolean indexed;
+
+    public ClickStatsRepository(ObjectProvider<MongoTemplate> mongo) {
+        this.mongo = mongo.getIfAvailable();
+    }
+
+    /**
+     * @return false under the profiles that replace Mongo (embedded, sharded)
+     */
+    public boolean isAvailable() {
+        return mongo != null;
+    }
+
+    /**
+     * Adds the buckets' counts with one unordered bulk write of upserts. The expiry is only set when a
+     * bucket is created. $inc is not idempotent, so only buckets known not to be written are reported back
+     * for a retry.
+     *
+     * @return positions of the buckets that were not written: those with a write error, or all of them when
+     *         the write never reached the server
+     * @throws org.springframework.dao.DataAccessException if the outcome is unknown, e.g. the connection
+     *         broke after the request was sent
+     */
+    public Set<Integer> increment(List<ClickBucket> buckets) {
+        if (buckets.isEmpty()) {
+            return Set.of();
+        }
+        if (!indexed) {
+            try {
+                // the upserts rely on the unique index to never create a bucket twice
+                createIndexes();
+                indexed = true;
+            } catch (RuntimeException e) {
+                log.warn("Could not create the url_stats indexes: {}", e.getMessage());
+                return positions(buckets.size());
+            }
+        }
+        try {
+            BulkOperations ops = mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, ClickBucket.class);
+            for (ClickBucket bucket : buckets) {
+                Update update = new Update().inc("count", bucket.getCount());
+                if (bucket.getExpiresAt() != null) {
+                    update.setOnInsert("expiresAt", bucket.getExpiresAt());
+                }
+                ops.upsert(bucketQuery(bucket.getShortUrl(), bucket.getGranularity())
+                        .addCriteria(Criteria.where("start").is(bucket.getStart())), update);
+            }
+            ops.execute();
+            return Set.of();
+        } catch (BulkOperationException e) {
+            // unordered: every upsert without a write error was applied
+            Set<Integer> failed = new HashSet<>();
+            for (BulkWriteError error : e.getErrors()) {
+                failed.add(error.getIndex());
+            }
+            return failed;
+        } catch (DataAccessResourceFailureException e) {
+            // no server selected or no connection opened, so nothing was sent
+            if (e.getCause() instanceof MongoTimeoutException || e.getCause() instanceof MongoSocketOpenException) {
+                return positions(buckets.size());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return the stored buckets starting in [from, to), oldest first
+     */
+    public List<ClickBucket> find(String shortUrl, ClickBucket.Granularity granularity, Instant from, Instant to) {
+        Query query = bucketQuery(shortUrl, granularity.code())
+                .addCriteria(Criteria.where("start").gte(from).lt(to))
+                .with(Sort.by("start"));
+        query.fields().include("start", "count");
+        return mongo.find(query, ClickBucket.class);
+    }
+
+    private static Query bucketQuery(String shortUrl, String granularity) {
+        return Query.query(Criteria.where("shortUrl").is(shortUrl).and("granularity").is(granularity));
+    }
+
+    private static Set<Integer> positions(int count) {
+        Set<Integer> all = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            all.add(i);
+        }
+        return all;
+    }
+
+    private void createIndexes() {
+        IndexResolver resolver = IndexResolver.create(mongo.getConverter().getMappingContext());
+        for (IndexDefinition index : resolver.resolveIndexFor(ClickBucket.class)) {
+            mongo.indexOps(ClickBucket.class).createIndex(index);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package url.shortener.challenge.repository;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import url.shortener.challenge.entity.Url;
+
+/**
+ * Non-blocking access to the same {@code urls} collection as {@link UrlRepository}, used by the reactive stack.
+ * Only picked up when reactive Mongo is enabled, see application-reactive.properties.
+ */
+public interface ReactiveUrlRepository extends ReactiveMongoRepository<Url, String> {
+    Mono<Url> findByShortUrl(String shortUrl);
+    Mono<Boolean> existsByShortUrl(String shortUrl);
+    Flux<Url> findByLongUrlHash(long longUrlHash);
+}
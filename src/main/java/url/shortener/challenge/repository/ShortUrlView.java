@@ -0,0 +1,8 @@
+package url.shortener.challenge.repository;
+
+/**
+ * Projection that only loads the short code.
+ */
+public interface ShortUrlView {
+    String getShortUrl();
+}
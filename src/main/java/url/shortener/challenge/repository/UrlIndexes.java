@@ -0,0 +1,77 @@
+package url.shortener.challenge.repository;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.stereotype.Component;
+import url.shortener.challenge.entity.Url;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Creates the indexes declared on {@link Url} (unique short code, TTL, long URL hash, hit count) in the
+ * single Mongo database. spring.data.mongodb.auto-index-creation is off, so nothing else does. Runs in the
+ * background once the application is ready, or earlier when the warm-up asks for the hit count index.
+ * A no-op under the profiles that replace the single database; the sharded store creates them per shard.
+ */
+@Component
+public class UrlIndexes {
+
+    private static final Logger log = LoggerFactory.getLogger(UrlIndexes.class);
+
+    private final MongoTemplate mongo;
+    // not synchronized: a monitor held across the Mongo calls would pin the virtual thread's carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile boolean created;
+
+    public UrlIndexes(ObjectProvider<MongoTemplate> mongo) {
+        this.mongo = mongo.getIfAvailable();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createOnStartup() {
+        Thread.ofVirtual().name("url-indexes").start(this::ensure);
+    }
+
+    /**
+     * Creates the indexes unless that already succeeded. Failures are logged and retried on the next call.
+     */
+    public void ensure() {
+        if (mongo == null || created) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (!created) {
+                create(mongo);
+                created = true;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not create the urls indexes: {}", e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Creates every index declared on {@link Url} in the given database; existing ones are left as they are.
+     */
+    public static void create(MongoTemplate template) {
+        IndexResolver resolver = IndexResolver.create(template.getConverter().getMappingContext());
+        Set<Document> keys = new HashSet<>();
+        for (IndexDefinition index : resolver.resolveIndexFor(Url.class)) {
+            // shortUrl is declared unique twice, Mongo rejects a second index on the same keys
+            if (keys.add(index.getIndexKeys())) {
+                template.indexOps(Url.class).createIndex(index);
+            }
+        }
+    }
+}
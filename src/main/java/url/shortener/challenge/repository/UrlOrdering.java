@@ -0,0 +1,34 @@
+package url.shortener.challenge.repository;
+
+import org.springframework.data.domain.Sort;
+import url.shortener.challenge.entity.Url;
+
+import java.util.Comparator;
+
+/**
+ * In-memory equivalent of the sort orders callers pass to {@link UrlRepository}, for stores that cannot
+ * sort on the server.
+ */
+public final class UrlOrdering {
+
+    private UrlOrdering() {
+    }
+
+    /**
+     * @throws UnsupportedOperationException for properties other than hitCount, _id and createdAt
+     */
+    public static Comparator<Url> of(Sort sort) {
+        Comparator<Url> comparator = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<Url> next = switch (order.getProperty()) {
+                case "hitCount" -> Comparator.comparingLong(Url::getHitCount);
+                // ObjectId hex strings sort by creation time, as _id does in Mongo
+                case "_id", "id" -> Comparator.comparing(Url::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+                case "createdAt" -> Comparator.comparing(Url::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()));
+                default -> throw new UnsupportedOperationException("Cannot sort mappings in memory by " + order.getProperty());
+            };
+            comparator = comparator.thenComparing(order.isDescending() ? next.reversed() : next);
+        }
+        return comparator;
+    }
+}
@@ -3,9 +3,16 @@ package url.shortener.challenge.repository;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import url.shortener.challenge.entity.Url;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface UrlRepository extends MongoRepository<Url, String> {
+public interface UrlRepository extends MongoRepository<Url, String>, UrlRepositoryCustom {
     Optional<Url> findByShortUrl(String shortUrl);
     boolean existsByShortUrl(String shortUrl);
+    List<Url> findByShortUrlIn(Collection<String> shortUrls);
+    List<Url> findByLongUrlHash(long longUrlHash);
+    List<Url> findByLongUrlHashIn(Collection<Long> longUrlHashes);
+    Stream<ShortUrlView> streamAllBy();
 }
@@ -0,0 +1,37 @@
+package url.shortener.challenge.repository;
+
+import org.springframework.data.domain.Sort;
+import url.shortener.challenge.entity.Url;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Operations that don't map to derived queries.
+ */
+public interface UrlRepositoryCustom {
+
+    /**
+     * Adds each delta to the matching document's hitCount with one unordered bulk write of $inc updates.
+     * @param deltas hits to add, keyed by short code
+     */
+    void incrementHitCounts(Map<String, Long> deltas);
+
+    /**
+     * Inserts all documents with one unordered insertMany; a duplicate short code only fails its own document.
+     * @param urls documents to insert
+     * @return positions in {@code urls} that were rejected because the short code already exists
+     */
+    Set<Integer> insertAllUnordered(List<Url> urls);
+
+    /**
+     * Streams mappings that have not expired through a cursor, loading only shortUrl, longUrl and expiresAt.
+     * The caller must close the stream.
+     * @param sort order of the documents, e.g. by hitCount descending
+     * @param limit maximum number of documents
+     * @param batchSize documents fetched per cursor batch
+     */
+    Stream<Url> streamLive(Sort sort, int limit, int batchSize);
+}
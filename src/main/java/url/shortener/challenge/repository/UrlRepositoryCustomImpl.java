@@ -0,0 +1,72 @@
+package url.shortener.challenge.repository;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import url.shortener.challenge.entity.Url;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public class UrlRepositoryCustomImpl implements UrlRepositoryCustom {
+
+    private final MongoTemplate mongo;
+
+    public UrlRepositoryCustomImpl(MongoTemplate mongo) {
+        this.mongo = mongo;
+    }
+
+    @Override
+    public void incrementHitCounts(Map<String, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        BulkOperations ops = mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, Url.class);
+        deltas.forEach((shortUrl, delta) -> ops.updateOne(
+                Query.query(Criteria.where("shortUrl").is(shortUrl)),
+                new Update().inc("hitCount", delta)));
+        ops.execute();
+    }
+
+    @Override
+    public Set<Integer> insertAllUnordered(List<Url> urls) {
+        if (urls.isEmpty()) {
+            return Set.of();
+        }
+        try {
+            mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, Url.class).insert(urls).execute();
+            return Set.of();
+        } catch (BulkOperationException e) {
+            Set<Integer> duplicates = new HashSet<>();
+            for (BulkWriteError error : e.getErrors()) {
+                if (ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+                    throw e;
+                }
+                duplicates.add(error.getIndex());
+            }
+            return duplicates;
+        }
+    }
+
+    @Override
+    public Stream<Url> streamLive(Sort sort, int limit, int batchSize) {
+        Query query = Query.query(new Criteria().orOperator(
+                        Criteria.where("expiresAt").is(null),
+                        Criteria.where("expiresAt").gt(Instant.now())))
+                .with(sort)
+                .limit(limit)
+                .cursorBatchSize(batchSize);
+        query.fields().include("shortUrl", "longUrl", "expiresAt");
+        return mongo.stream(query, Url.class);
+    }
+}
@@ -0,0 +1,710 @@
+package url.shortener.challenge.repository.embedded;
+
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.entity.Url;
+import url.shortener.challenge.repository.ShortUrlView;
+import url.shortener.challenge.repository.UrlOrdering;
+import url.shortener.challenge.repository.UrlRepository;
+import url.shortener.challenge.util.Hashing;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link UrlRepository} on local disk for single-node deployments without Mongo, selected by the
+ * {@code embedded} profile. Every write appends a record to a {@link SegmentLog}, and a {@link MappedHashIndex}
+ * keyed by the short code's hash points at the newest record per code, so a lookup is one probe of the mapped
+ * index plus one positional read, usually from the page cache. Lookups by anything but the short code walk the
+ * log, and the Example-based queries are not supported, nor is long URL dedup.
+ * <p>
+ * Hit counts are kept out of the log: a second mapped table holds each code's hits since its record was last
+ * written and is updated in place, so a drain costs one probe per code instead of a record per code. Writing
+ * a record folds its hits into it. Codes are told apart by hash alone there; two codes sharing a 64-bit hash
+ * would share a counter.
+ * <p>
+ * Like the Mongo TTL index, expiry is not applied on read: an expired mapping stays visible until compaction
+ * drops it, and callers check {@code expiresAt} themselves.
+ */
+@Repository
+@Profile("embedded")
+public class EmbeddedUrlRepository implements UrlRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddedUrlRepository.class);
+
+    private static final int TOMBSTONE = 1;
+
+    private final SegmentLog segments;
+    private final MappedHashIndex index;
+    private final MappedHashIndex hits;
+    private final double compactionThreshold;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean dirty;
+
+    public EmbeddedUrlRepository(AppProperties props) throws IOException {
+        if (props.getDedup().isEnabled()) {
+            // every dedup lookup would scan the whole store
+            throw new IllegalStateException("app.dedup.enabled is not supported by the embedded profile");
+        }
+        AppProperties.Embedded cfg = props.getEmbedded();
+        Path dir = Path.of(cfg.getDir());
+        this.compactionThreshold = cfg.getCompactionThreshold();
+        this.segments = new SegmentLog(dir, cfg.getSegmentBytes());
+        this.index = MappedHashIndex.open(dir.resolve("index.bin"), cfg.getIndexCapacity());
+        // the counters are the only copy, so they survive an unclean shutdown as far as they reached the page cache
+        this.hits = MappedHashIndex.openKeeping(dir.resolve("hits.bin"), cfg.getIndexCapacity());
+        if (!index.recovered()) {
+            rebuildIndex();
+        }
+    }
+
+    @Override
+    public Optional<Url> findByShortUrl(String shortUrl) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(lookup(shortUrl));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean existsByShortUrl(String shortUrl) {
+        return findByShortUrl(shortUrl).isPresent();
+    }
+
+    @Override
+    public List<Url> findByShortUrlIn(Collection<String> shortUrls) {
+        lock.readLock().lock();
+        try {
+            List<Url> found = new ArrayList<>(shortUrls.size());
+            for (String shortUrl : new HashSet<>(shortUrls)) {
+                Url url = lookup(shortUrl);
+                if (url != null) {
+                    found.add(url);
+                }
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scans every mapping; the embedded store keeps no secondary index, which is why dedup is rejected.
+     */
+    @Override
+    public List<Url> findByLongUrlHash(long longUrlHash) {
+        return select(url -> url.getLongUrlHash() != null && url.getLongUrlHash() == longUrlHash).toList();
+    }
+
+    @Override
+    public List<Url> findByLongUrlHashIn(Collection<Long> longUrlHashes) {
+        Set<Long> hashes = new HashSet<>(longUrlHashes);
+        return select(url -> url.getLongUrlHash() != null && hashes.contains(url.getLongUrlHash())).toList();
+    }
+
+    /**
+     * Walks the log lazily, see {@link #select}.
+     */
+    @Override
+    public Stream<ShortUrlView> streamAllBy() {
+        return select(url -> true).map(url -> url::getShortUrl);
+    }
+
+    /**
+     * Walks the log lazily, see {@link #select}. A sorted request keeps only the best {@code limit} mappings
+     * in a heap while walking.
+     */
+    @Override
+    public Stream<Url> streamLive(Sort sort, int limit, int batchSize) {
+        Instant now = Instant.now();
+        Stream<Url> live = select(url -> isLive(url, now));
+        if (sort.isUnsorted()) {
+            return live.limit(limit);
+        }
+        Comparator<Url> order = UrlOrdering.of(sort);
+        PriorityQueue<Url> worstFirst = new PriorityQueue<>(order.reversed());
+        Set<String> kept = new HashSet<>();
+        try (live) {
+            live.forEach(url -> {
+                // a mapping moved by compaction during the walk can come up twice
+                if (!kept.add(url.getShortUrl())) {
+                    return;
+                }
+                worstFirst.add(url);
+                if (worstFirst.size() > limit) {
+                    kept.remove(worstFirst.poll().getShortUrl());
+                }
+            });
+        }
+        return worstFirst.stream().sorted(order);
+    }
+
+    @Override
+    public void incrementHitCounts(Map<String, Long> deltas) {
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+                if (lookup(delta.getKey()) != null) {
+                    long hash = Hashing.hash64(delta.getKey());
+                    hits.put(hash, Math.max(0, hits.find(hash, count -> true)) + delta.getValue(), count -> true);
+                    dirty = true;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write hit counts", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<Integer> insertAllUnordered(List<Url> urls) {
+        Set<Integer> duplicates = new HashSet<>();
+        for (int i = 0; i < urls.size(); i++) {
+            try {
+                insert(urls.get(i));
+            } catch (DuplicateKeyException e) {
+                duplicates.add(i);
+            }
+        }
+        return duplicates;
+    }
+
+    /**
+     * Inserts a new mapping, or replaces the one with the same id and short code.
+     *
+     * @throws DuplicateKeyException if another mapping already has the short code
+     */
+    @Override
+    public <S extends Url> S save(S entity) {
+        lock.writeLock().lock();
+        try {
+            Url existing = lookup(entity.getShortUrl());
+            if (existing != null && (entity.getId() == null || !entity.getId().equals(existing.getId()))) {
+                throw new DuplicateKeyException("Short code already exists: " + entity.getShortUrl());
+            }
+            if (entity.getId() == null) {
+                entity.setId(new ObjectId().toHexString());
+            }
+            write(entity);
+            return entity;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save " + entity.getShortUrl(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public <S extends Url> S insert(S entity) {
+        if (entity.getId() != null && existsById(entity.getId())) {
+            throw new DuplicateKeyException("Id already exists: " + entity.getId());
+        }
+        return save(entity);
+    }
+
+    @Override
+    public <S extends Url> List<S> insert(Iterable<S> entities) {
+        List<S> inserted = new ArrayList<>();
+        entities.forEach(entity -> inserted.add(insert(entity)));
+        return inserted;
+    }
+
+    @Override
+    public <S extends Url> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(entity -> saved.add(save(entity)));
+        return saved;
+    }
+
+    @Override
+    public Optional<Url> findById(String id) {
+        return select(url -> id.equals(url.getId())).findFirst();
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public List<Url> findAll() {
+        return select(url -> true).toList();
+    }
+
+    @Override
+    public List<Url> findAllById(Iterable<String> ids) {
+        Set<String> wanted = new HashSet<>();
+        ids.forEach(wanted::add);
+        return select(url -> wanted.contains(url.getId())).toList();
+    }
+
+    @Override
+    public List<Url> findAll(Sort sort) {
+        return findAll().stream().sorted(UrlOrdering.of(sort)).toList();
+    }
+
+    @Override
+    public Page<Url> findAll(Pageable pageable) {
+        List<Url> all = findAll(pageable.getSort());
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(all);
+        }
+        int from = (int) Math.min(all.size(), pageable.getOffset());
+        int to = Math.min(all.size(), from + pageable.getPageSize());
+        return new PageImpl<>(all.subList(from, to), pageable, all.size());
+    }
+
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteById(String id) {
+        findById(id).ifPresent(this::delete);
+    }
+
+    @Override
+    public void delete(Url entity) {
+        lock.writeLock().lock();
+        try {
+            Url existing = lookup(entity.getShortUrl());
+            if (existing != null) {
+                remove(existing, true);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete " + entity.getShortUrl(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        ids.forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Url> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        findAll().forEach(this::delete);
+    }
+
+    @Override
+    public <S extends Url> Optional<S> findOne(Example<S> example) {
+        throw unsupported();
+    }
+
+    @Override
+    public <S extends Url> List<S> findAll(Example<S> example) {
+        throw unsupported();
+    }
+
+    @Override
+    public <S extends Url> List<S> findAll(Example<S> example, Sort sort) {
+        throw unsupported();
+    }
+
+    @Override
+    public <S extends Url> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw unsupported();
+    }
+
+    @Override
+    public <S extends Url> long count(Example<S> example) {
+        throw unsupported();
+    }
+
+    @Override
+    public <S extends Url> boolean exists(Example<S> example) {
+        throw unsupported();
+    }
+
+    @Override
+    public <S extends Url, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw unsupported();
+    }
+
+    /**
+     * Forces appended records to disk. Between runs a process crash loses nothing, an OS crash the last interval.
+     */
+    @Scheduled(fixedDelayString = "${app.embedded.sync-interval-ms:100}")
+    public void sync() {
+        if (!dirty) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            dirty = false;
+            segments.force();
+            hits.force();
+        } catch (IOException e) {
+            dirty = true;
+            log.warn("Failed to sync the embedded store", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites every sealed segment whose share of live bytes fell below the threshold: current, unexpired
+     * records move to the active segment and the file is deleted. Expired and overwritten records are dropped.
+     * A segment is scanned without the lock, since sealed segments never change; each moved record takes it briefly.
+     */
+    @Scheduled(fixedDelayString = "${app.embedded.compaction-interval-ms:600000}")
+    public void compact() {
+        try {
+            for (int segment : segments.sealedSegments()) {
+                long size = segments.size(segment);
+                long live = liveBytes(segment);
+                if (size > 0 && live >= size * compactionThreshold) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                rewrite(segment);
+                log.info("Compacted embedded segment {} ({} of {} bytes live) in {} ms",
+                        segment, live, size, (System.nanoTime() - start) / 1_000_000);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Embedded store compaction failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            segments.close();
+            index.close();
+            hits.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long liveBytes(int segment) throws IOException {
+        Instant now = Instant.now();
+        long[] live = {0};
+        segments.scan(segment, (address, length, payload) -> {
+            Url url = decode(payload);
+            if (url != null && isLive(url, now)) {
+                lock.readLock().lock();
+                try {
+                    if (isCurrent(url.getShortUrl(), address)) {
+                        live[0] += length;
+                    }
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+        });
+        return live[0];
+    }
+
+    private void rewrite(int segment) throws IOException {
+        boolean oldest = segments.isOldest(segment);
+        Instant now = Instant.now();
+        segments.scan(segment, (address, length, payload) -> {
+            Url url = decode(payload);
+            lock.writeLock().lock();
+            try {
+                if (url == null) {
+                    // a tombstone still shadows older records of its code, unless this is the oldest segment
+                    String shortUrl = tombstoneCode(payload);
+                    if (!oldest && lookup(shortUrl) == null) {
+                        segments.append(payload);
+                        dirty = true;
+                    }
+                } else if (isCurrent(url.getShortUrl(), address)) {
+                    if (isLive(url, now)) {
+                        write(withHits(url));
+                    } else {
+                        remove(url, !oldest);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+        lock.writeLock().lock();
+        try {
+            segments.force();
+            segments.delete(segment);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void rebuildIndex() throws IOException {
+        long start = System.nanoTime();
+        segments.scanAll((address, length, payload) -> {
+            Url url = decode(payload);
+            if (url == null) {
+                String shortUrl = tombstoneCode(payload);
+                index.remove(Hashing.hash64(shortUrl), a -> shortUrl.equals(read(a).getShortUrl()));
+            } else {
+                index.put(Hashing.hash64(url.getShortUrl()), address,
+                        a -> url.getShortUrl().equals(read(a).getShortUrl()));
+            }
+        });
+        log.info("Rebuilt embedded index with {} mappings in {} ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Caller holds the lock.
+     */
+    private Url lookup(String shortUrl) {
+        Url[] found = new Url[1];
+        index.find(Hashing.hash64(shortUrl), address -> {
+            Url url = read(address);
+            if (shortUrl.equals(url.getShortUrl())) {
+                found[0] = url;
+                return true;
+            }
+            return false;
+        });
+        return found[0] != null ? withHits(found[0]) : null;
+    }
+
+    private boolean isCurrent(String shortUrl, long address) {
+        return index.find(Hashing.hash64(shortUrl), a -> a == address) == address;
+    }
+
+    /**
+     * Walks the log lazily and returns the current record of each matching code, taking the read lock per
+     * record rather than for the whole walk. Like a Mongo cursor without a snapshot, a code written during the
+     * walk may be missed or, when compaction moves it, come up twice.
+     */
+    private Stream<Url> select(Predicate<Url> filter) {
+        SegmentLog.Cursor cursor = segments.cursor();
+        Iterator<Url> records = new Iterator<>() {
+            private Url next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null) {
+                    try {
+                        if (!cursor.next()) {
+                            return false;
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    next = current(decode(cursor.payload()), cursor.address());
+                    if (next != null && !filter.test(next)) {
+                        next = null;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public Url next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Url url = next;
+                next = null;
+                return url;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(records, Spliterator.NONNULL), false);
+    }
+
+    /**
+     * @return the record with its counted hits if it is still its code's newest one, else null
+     */
+    private Url current(Url url, long address) {
+        if (url == null) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            return isCurrent(url.getShortUrl(), address) ? withHits(url) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the hits counted since the record was written. Caller holds the lock.
+     */
+    private Url withHits(Url url) {
+        long counted = hits.find(Hashing.hash64(url.getShortUrl()), count -> true);
+        if (counted > 0) {
+            url.setHitCount(url.getHitCount() + counted);
+        }
+        return url;
+    }
+
+    /**
+     * Appends the record, whose hit count already includes the counted hits. Caller holds the write lock.
+     */
+    private void write(Url url) throws IOException {
+        long hash = Hashing.hash64(url.getShortUrl());
+        long address = segments.append(encode(url, 0));
+        index.put(hash, address, a -> url.getShortUrl().equals(read(a).getShortUrl()));
+        hits.remove(hash, count -> true);
+        dirty = true;
+    }
+
+    /**
+     * Caller holds the write lock.
+     */
+    private void remove(Url url, boolean tombstone) throws IOException {
+        if (tombstone) {
+            segments.append(encode(url, TOMBSTONE));
+            dirty = true;
+        }
+        index.remove(Hashing.hash64(url.getShortUrl()), a -> url.getShortUrl().equals(read(a).getShortUrl()));
+        hits.remove(Hashing.hash64(url.getShortUrl()), count -> true);
+    }
+
+    private Url read(long address) {
+        return decode(segments.read(address));
+    }
+
+    private static boolean isLive(Url url, Instant now) {
+        return url.getExpiresAt() == null || url.getExpiresAt().isAfter(now);
+    }
+
+    private static UnsupportedOperationException unsupported() {
+        return new UnsupportedOperationException("Query by example is not supported by the embedded store");
+    }
+
+    /**
+     * Payload layout: flags, id, shortUrl, longUrl, longUrlHash, createdAt, expiresAt, hitCount.
+     * A tombstone has the same layout with the tombstone flag set.
+     */
+    private static byte[] encode(Url url, int flags) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(flags);
+            writeString(out, url.getId());
+            writeString(out, url.getShortUrl());
+            writeString(out, url.getLongUrl());
+            out.writeBoolean(url.getLongUrlHash() != null);
+            out.writeLong(Objects.requireNonNullElse(url.getLongUrlHash(), 0L));
+            writeInstant(out, url.getCreatedAt());
+            writeInstant(out, url.getExpiresAt());
+            out.writeLong(url.getHitCount());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return the mapping, or null for a tombstone
+     */
+    private static Url decode(byte[] payload) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            if ((in.readByte() & TOMBSTONE) != 0) {
+                return null;
+            }
+            Url url = new Url();
+            url.setId(readString(in));
+            url.setShortUrl(readString(in));
+            url.setLongUrl(readString(in));
+            boolean hasHash = in.readBoolean();
+            long hash = in.readLong();
+            url.setLongUrlHash(hasHash ? hash : null);
+            url.setCreatedAt(readInstant(in));
+            url.setExpiresAt(readInstant(in));
+            url.setHitCount(in.readLong());
+            return url;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt embedded record", e);
+        }
+    }
+
+    private static String tombstoneCode(byte[] payload) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            in.readByte();
+            readString(in);
+            return readString(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt embedded record", e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        return length < 0 ? null : new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static void writeInstant(DataOutputStream out, Instant value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getEpochSecond());
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+        return in.readBoolean() ? Instant.ofEpochSecond(in.readLong(), in.readInt()) : null;
+    }
+}
@@ -0,0 +1,261 @@
+package url.shortener.challenge.repository.embedded;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongPredicate;
+
+/**
+ * Open-addressing hash table in a memory-mapped file, mapping 64-bit key hashes to log addresses (or any
+ * other non-negative values) with linear probing. Keys themselves live in the log, so callers confirm a candidate by reading its record;
+ * two keys with the same hash simply occupy two slots. Removed slots keep their hash as a tombstone until
+ * the next resize.
+ * <p>
+ * The header carries a clean-shutdown flag, cleared on open and set again by {@link #close}; a file
+ * without it may have lost writes and must be rebuilt from the log. Callers provide the locking.
+ */
+final class MappedHashIndex implements Closeable {
+
+    private static final int MAGIC = 0x55524c49; // "URLI"
+    private static final int HEADER_BYTES = 32;
+    private static final int SLOT_BYTES = 16;
+    private static final long EMPTY = 0;
+    private static final long REMOVED = -1;
+    private static final int MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_BYTES) / SLOT_BYTES;
+
+    private final Path file;
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private int capacity;
+    private int size;
+    // live plus removed slots, what probing actually has to walk past
+    private int used;
+    private final boolean recovered;
+
+    private MappedHashIndex(Path file, FileChannel channel, MappedByteBuffer map, boolean recovered) {
+        this.file = file;
+        this.channel = channel;
+        this.map = map;
+        this.recovered = recovered;
+        this.capacity = map.getInt(8);
+        this.size = map.getInt(12);
+        this.used = map.getInt(16);
+    }
+
+    /**
+     * Maps the index file, or creates an empty one if it is missing or was not closed cleanly.
+     *
+     * @param initialCapacity slots of a new index, rounded up to a power of two
+     */
+    static MappedHashIndex open(Path file, int initialCapacity) throws IOException {
+        return open(file, initialCapacity, false);
+    }
+
+    /**
+     * Like {@link #open}, but also keeps a file that was not closed cleanly. For tables whose values stand on
+     * their own instead of pointing into the log, where a torn write costs at most the last few updates.
+     */
+    static MappedHashIndex openKeeping(Path file, int initialCapacity) throws IOException {
+        return open(file, initialCapacity, true);
+    }
+
+    private static MappedHashIndex open(Path file, int initialCapacity, boolean keepUnclean) throws IOException {
+        if (Files.exists(file)) {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (channel.size() >= HEADER_BYTES) {
+                MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+                int capacity = map.getInt(8);
+                if (map.getInt(0) == MAGIC && (keepUnclean || map.getInt(4) == 1)
+                        && channel.size() == HEADER_BYTES + (long) capacity * SLOT_BYTES) {
+                    map.putInt(4, 0);
+                    map.force();
+                    return new MappedHashIndex(file, channel, map, true);
+                }
+            }
+            channel.close();
+        }
+        return create(file, Integer.highestOneBit(Math.max(16, Math.min(MAX_CAPACITY, initialCapacity) - 1)) << 1);
+    }
+
+    /**
+     * @return whether the index was reopened after a clean shutdown; otherwise it starts empty
+     */
+    boolean recovered() {
+        return recovered;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Offers the address of every live slot with the given hash until {@code match} accepts one.
+     *
+     * @return the accepted address, or -1
+     */
+    long find(long hash, LongPredicate match) {
+        hash = normalize(hash);
+        int mask = capacity - 1;
+        for (int i = slot(hash, mask), probes = 0; probes < capacity; i = (i + 1) & mask, probes++) {
+            long slotHash = map.getLong(offset(i));
+            if (slotHash == EMPTY) {
+                return -1;
+            }
+            long address = map.getLong(offset(i) + 8);
+            if (slotHash == hash && address != REMOVED && match.test(address)) {
+                return address;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Points the key to {@code address}, replacing the slot {@code sameKey} accepts or taking a new one.
+     *
+     * @return the address it replaced, or -1
+     */
+    long put(long hash, long address, LongPredicate sameKey) throws IOException {
+        if ((used + 1) * 4L > capacity * 3L) {
+            resize(size * 2L > capacity ? capacity * 2 : capacity);
+        }
+        hash = normalize(hash);
+        int mask = capacity - 1;
+        int free = -1;
+        for (int i = slot(hash, mask), probes = 0; probes < capacity; i = (i + 1) & mask, probes++) {
+            long slotHash = map.getLong(offset(i));
+            if (slotHash == EMPTY) {
+                if (free < 0) {
+                    free = i;
+                    used++;
+                }
+                break;
+            }
+            long current = map.getLong(offset(i) + 8);
+            if (current == REMOVED) {
+                if (free < 0) {
+                    free = i;
+                }
+            } else if (slotHash == hash && sameKey.test(current)) {
+                map.putLong(offset(i) + 8, address);
+                return current;
+            }
+        }
+        map.putLong(offset(free), hash);
+        map.putLong(offset(free) + 8, address);
+        size++;
+        writeCounts();
+        return -1;
+    }
+
+    /**
+     * Removes the slot {@code sameKey} accepts.
+     *
+     * @return the address it held, or -1
+     */
+    long remove(long hash, LongPredicate sameKey) {
+        long address = find(hash, sameKey);
+        if (address < 0) {
+            return -1;
+        }
+        hash = normalize(hash);
+        int mask = capacity - 1;
+        for (int i = slot(hash, mask); ; i = (i + 1) & mask) {
+            if (map.getLong(offset(i)) == hash && map.getLong(offset(i) + 8) == address) {
+                map.putLong(offset(i) + 8, REMOVED);
+                size--;
+                writeCounts();
+                return address;
+            }
+        }
+    }
+
+    /**
+     * Writes the mapped slots back to the file.
+     */
+    void force() {
+        map.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        map.force();
+        map.putInt(4, 1);
+        map.force();
+        channel.close();
+    }
+
+    /**
+     * Rehashes the live slots into a new file and swaps it in, which also clears out removed slots.
+     */
+    private void resize(int newCapacity) throws IOException {
+        if (newCapacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Embedded index is full at " + size + " entries");
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.deleteIfExists(tmp);
+        MappedHashIndex bigger = create(tmp, newCapacity);
+        for (int i = 0; i < capacity; i++) {
+            long slotHash = map.getLong(offset(i));
+            long address = map.getLong(offset(i) + 8);
+            if (slotHash != EMPTY && address != REMOVED) {
+                bigger.insertNew(slotHash, address);
+            }
+        }
+        bigger.writeCounts();
+        bigger.map.force();
+        channel.close();
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = bigger.channel;
+        map = bigger.map;
+        capacity = bigger.capacity;
+        size = bigger.size;
+        used = bigger.used;
+    }
+
+    private void insertNew(long hash, long address) {
+        int mask = capacity - 1;
+        int i = slot(hash, mask);
+        while (map.getLong(offset(i)) != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        map.putLong(offset(i), hash);
+        map.putLong(offset(i) + 8, address);
+        size++;
+        used++;
+    }
+
+    private void writeCounts() {
+        map.putInt(12, size);
+        map.putInt(16, used);
+    }
+
+    private static MappedHashIndex create(Path file, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                HEADER_BYTES + (long) capacity * SLOT_BYTES);
+        map.putInt(0, MAGIC);
+        map.putInt(4, 0);
+        map.putInt(8, capacity);
+        return new MappedHashIndex(file, channel, map, false);
+    }
+
+    private static long normalize(long hash) {
+        // 0 marks an empty slot
+        return hash == EMPTY ? 1 : hash;
+    }
+
+    private static int slot(long hash, int mask) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static int offset(int slot) {
+        // MAX_CAPACITY keeps this within the int range a buffer index allows
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+}
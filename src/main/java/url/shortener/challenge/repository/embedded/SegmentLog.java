@@ -0,0 +1,357 @@
+package url.shortener.challenge.repository.embedded;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only record log split into numbered segment files. Records are never changed in place; a record
+ * is addressed by its segment id and offset packed into one long. Each record is its payload length,
+ * the CRC32C of the payload and the payload. On open, a torn record at the end of the newest segment is cut off.
+ * <p>
+ * Not thread-safe for writers: {@link #append}, {@link #delete} and {@link #close} need external locking.
+ * Reads of sealed segments and {@link Cursor}s may run concurrently with appends.
+ */
+final class SegmentLog implements Closeable {
+
+    static final int HEADER_BYTES = 8;
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+    private static final int OFFSET_BITS = 40;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    private static final int TYPICAL_RECORD_BYTES = 512;
+
+    private final Path dir;
+    private final long maxSegmentBytes;
+    private final NavigableMap<Integer, FileChannel> segments = new ConcurrentSkipListMap<>();
+    private int activeId;
+    private FileChannel active;
+    private long activeSize;
+
+    SegmentLog(Path dir, long maxSegmentBytes) throws IOException {
+        this.dir = dir;
+        this.maxSegmentBytes = maxSegmentBytes;
+        Files.createDirectories(dir);
+        List<Integer> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(f -> {
+                int id = segmentId(f);
+                if (id >= 0) {
+                    ids.add(id);
+                }
+            });
+        }
+        ids.sort(null);
+        for (int id : ids) {
+            segments.put(id, FileChannel.open(path(id), StandardOpenOption.READ, StandardOpenOption.WRITE));
+        }
+        if (ids.isEmpty()) {
+            roll(0);
+        } else {
+            activeId = ids.getLast();
+            active = segments.get(activeId);
+            activeSize = active.size();
+            long[] end = {0};
+            scan(activeId, (address, length, payload) -> end[0] = (address & OFFSET_MASK) + length);
+            if (end[0] < activeSize) {
+                active.truncate(end[0]);
+                activeSize = end[0];
+            }
+        }
+    }
+
+    static long address(int segmentId, long offset) {
+        return ((long) segmentId << OFFSET_BITS) | offset;
+    }
+
+    static int segmentOf(long address) {
+        return (int) (address >>> OFFSET_BITS);
+    }
+
+    /**
+     * Appends one record, rolling over to a new segment once the active one is full.
+     *
+     * @return the address of the record
+     */
+    long append(byte[] payload) throws IOException {
+        if (activeSize > 0 && activeSize + HEADER_BYTES + payload.length > maxSegmentBytes) {
+            roll(activeId + 1);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .flip();
+        long offset = activeSize;
+        while (record.hasRemaining()) {
+            activeSize += active.write(record, activeSize);
+        }
+        return address(activeId, offset);
+    }
+
+    /**
+     * @return the payload of the record at {@code address}
+     */
+    byte[] read(long address) {
+        FileChannel channel = segments.get(segmentOf(address));
+        if (channel == null) {
+            throw new IllegalStateException("Segment " + segmentOf(address) + " no longer exists");
+        }
+        try {
+            long offset = address & OFFSET_MASK;
+            // one read covers header and payload of a typical record
+            ByteBuffer buffer = ByteBuffer.allocate(TYPICAL_RECORD_BYTES);
+            readUpTo(channel, buffer, offset);
+            int length = buffer.getInt(0);
+            byte[] payload = new byte[length];
+            int inFirstRead = Math.min(length, buffer.position() - HEADER_BYTES);
+            buffer.get(HEADER_BYTES, payload, 0, inFirstRead);
+            if (inFirstRead < length) {
+                // readFully adds the buffer position, which starts at inFirstRead
+                readFully(channel, ByteBuffer.wrap(payload, inFirstRead, length - inFirstRead), offset + HEADER_BYTES);
+            }
+            return payload;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read record at " + Long.toHexString(address), e);
+        }
+    }
+
+    /**
+     * Visits every intact record of one segment in log order.
+     */
+    void scan(int segmentId, RecordVisitor visitor) throws IOException {
+        FileChannel channel = segments.get(segmentId);
+        long size = segmentId == activeId ? activeSize : channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        long offset = 0;
+        while (offset + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(channel, header, offset);
+            int length = header.getInt(0);
+            if (length < 0 || length > MAX_RECORD_BYTES || offset + HEADER_BYTES + length > size) {
+                return;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, offset + HEADER_BYTES);
+            CRC32C crc = new CRC32C();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != header.getInt(4)) {
+                return;
+            }
+            visitor.visit(address(segmentId, offset), HEADER_BYTES + length, payload.array());
+            offset += HEADER_BYTES + length;
+        }
+    }
+
+    /**
+     * Visits every intact record of every segment in log order, oldest segment first.
+     */
+    void scanAll(RecordVisitor visitor) throws IOException {
+        for (int id : segments.keySet()) {
+            scan(id, visitor);
+        }
+    }
+
+    /**
+     * Opens a cursor over the records of every segment, see {@link Cursor}.
+     */
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * @return ids of the segments that no longer take appends, oldest first
+     */
+    List<Integer> sealedSegments() {
+        return List.copyOf(segments.headMap(activeId, false).keySet());
+    }
+
+    boolean isOldest(int segmentId) {
+        return segments.firstKey() == segmentId;
+    }
+
+    long size(int segmentId) throws IOException {
+        return segmentId == activeId ? activeSize : segments.get(segmentId).size();
+    }
+
+    void delete(int segmentId) throws IOException {
+        if (segmentId == activeId) {
+            throw new IllegalArgumentException("Cannot delete the active segment");
+        }
+        FileChannel channel = segments.remove(segmentId);
+        if (channel != null) {
+            channel.close();
+            Files.deleteIfExists(path(segmentId));
+        }
+    }
+
+    void force() throws IOException {
+        active.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        for (FileChannel channel : segments.values()) {
+            channel.close();
+        }
+        segments.clear();
+    }
+
+    private void roll(int id) throws IOException {
+        if (active != null) {
+            active.force(false);
+        }
+        FileChannel channel = FileChannel.open(path(id),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segments.put(id, channel);
+        activeId = id;
+        active = channel;
+        activeSize = 0;
+    }
+
+    private Path path(int id) {
+        return dir.resolve(PREFIX + id + SUFFIX);
+    }
+
+    private static int segmentId(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(name, PREFIX.length(), name.length() - SUFFIX.length(), 10);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void readUpTo(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.position() < HEADER_BYTES) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of segment");
+            }
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of segment");
+            }
+        }
+    }
+
+    /**
+     * Reads the intact records of every segment in log order, oldest segment first, one record per
+     * {@link #next} call and without external locking. Segments rolled after the cursor was opened are
+     * included. A segment deleted under the cursor ends early; compaction moved its live records to the
+     * active segment first, so they come up again there. The active segment is read up to its last intact
+     * record, so a record still being appended is left out.
+     */
+    final class Cursor {
+        private final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        private Integer segmentId;
+        private FileChannel channel;
+        private long offset;
+        private long size;
+        private long address;
+        private byte[] payload;
+
+        private Cursor() {
+        }
+
+        /**
+         * Moves to the next record.
+         *
+         * @return false once every segment has been read
+         */
+        boolean next() throws IOException {
+            while (true) {
+                if (channel == null && !nextSegment()) {
+                    return false;
+                }
+                try {
+                    if (readRecord()) {
+                        return true;
+                    }
+                } catch (ClosedChannelException e) {
+                    // deleted by compaction while we were reading it
+                }
+                channel = null;
+            }
+        }
+
+        long address() {
+            return address;
+        }
+
+        byte[] payload() {
+            return payload;
+        }
+
+        private boolean nextSegment() throws IOException {
+            Map.Entry<Integer, FileChannel> next = segmentId == null
+                    ? segments.firstEntry()
+                    : segments.higherEntry(segmentId);
+            if (next == null) {
+                return false;
+            }
+            segmentId = next.getKey();
+            channel = next.getValue();
+            offset = 0;
+            try {
+                size = channel.size();
+            } catch (ClosedChannelException e) {
+                size = 0;
+            }
+            return true;
+        }
+
+        private boolean readRecord() throws IOException {
+            if (offset + HEADER_BYTES > size) {
+                return false;
+            }
+            header.clear();
+            readFully(channel, header, offset);
+            int length = header.getInt(0);
+            if (length < 0 || length > MAX_RECORD_BYTES || offset + HEADER_BYTES + length > size) {
+                return false;
+            }
+            byte[] bytes = new byte[length];
+            readFully(channel, ByteBuffer.wrap(bytes), offset + HEADER_BYTES);
+            CRC32C crc = new CRC32C();
+            crc.update(bytes);
+            if ((int) crc.getValue() != header.getInt(4)) {
+                return false;
+            }
+            address = SegmentLog.address(segmentId, offset);
+            payload = bytes;
+            offset += HEADER_BYTES + length;
+            return true;
+        }
+    }
+
+    @FunctionalInterface
+    interface RecordVisitor {
+        void visit(long address, int length, byte[] payload) throws IOException;
+    }
+}
@@ -0,0 +1,65 @@
+package url.shortener.challenge.repository.sharded;
+
+import url.shortener.challenge.util.Hashing;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring over named nodes. Each node is placed at {@code virtualNodes} points derived from
+ * its name, and a key belongs to the first point at or after its own hash. Placement depends only on the
+ * names, so adding a node takes over about 1/N of the keys, all of them from its clockwise neighbours,
+ * and leaves every other key where it was.
+ */
+final class HashRing<T> {
+
+    private final NavigableMap<Long, Named<T>> points = new TreeMap<>();
+
+    HashRing(Map<String, T> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("A hash ring needs at least one node");
+        }
+        nodes.forEach((name, node) -> {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.put(Hashing.hash64(name + "#" + i), new Named<>(name, node));
+            }
+        });
+    }
+
+    T owner(String key) {
+        return ownerEntry(key).node();
+    }
+
+    String ownerName(String key) {
+        return ownerEntry(key).name();
+    }
+
+    /**
+     * @return the next node clockwise after the owner, which owned the key before the owner joined;
+     * the owner itself on a single-node ring
+     */
+    T previousOwner(String key) {
+        Named<T> owner = ownerEntry(key);
+        long position = Hashing.hash64(key);
+        Map.Entry<Long, Named<T>> next = points.higherEntry(position);
+        for (int i = 0; i < points.size(); i++) {
+            if (next == null) {
+                next = points.firstEntry();
+            }
+            if (!next.getValue().name().equals(owner.name())) {
+                return next.getValue().node();
+            }
+            next = points.higherEntry(next.getKey());
+        }
+        return owner.node();
+    }
+
+    private Named<T> ownerEntry(String key) {
+        Map.Entry<Long, Named<T>> entry = points.ceilingEntry(Hashing.hash64(key));
+        return (entry != null ? entry : points.firstEntry()).getValue();
+    }
+
+    private record Named<T>(String name, T node) {
+    }
+}
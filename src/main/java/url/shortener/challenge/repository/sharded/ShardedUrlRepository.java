@@ -0,0 +1,438 @@
+package url.shortener.challenge.repository.sharded;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.stereotype.Repository;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.entity.Url;
+import url.shortener.challenge.repository.ShortUrlView;
+import url.shortener.challenge.repository.UrlIndexes;
+import url.shortener.challenge.repository.UrlOrdering;
+import url.shortener.challenge.repository.UrlRepository;
+import url.shortener.challenge.repository.UrlRepositoryCustomImpl;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * {@link UrlRepository} over several Mongo databases, selected by the {@code sharded} profile. Each short code
+ * belongs to one shard, picked by a {@link HashRing} over the shard names, and lookups, creates and hit-count
+ * updates by code go to that shard only. Queries by anything else (long URL hash, id, full scans) ask every
+ * shard and merge the answers.
+ * <p>
+ * A new shard takes over about 1/N of the codes from its ring neighbours. While
+ * {@code app.sharding.rebalancing} is set, a lookup that misses on the owner also asks the shard that owned
+ * the code before, and each replica moves the documents that now belong elsewhere at startup. Moving is
+ * insert-then-delete, so replicas doing it concurrently only repeat each other's work. Hit counts added to a
+ * code that has not moved yet are lost.
+ */
+@Repository
+@Profile("sharded")
+public class ShardedUrlRepository implements UrlRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedUrlRepository.class);
+
+    private final AppProperties.Sharding cfg;
+    private final Map<String, MongoTemplate> shards;
+    private final Map<MongoTemplate, UrlRepositoryCustomImpl> bulk = new HashMap<>();
+    private final HashRing<MongoTemplate> ring;
+
+    @Autowired
+    public ShardedUrlRepository(AppProperties props) {
+        this(props.getSharding(), connect(props.getSharding()));
+    }
+
+    ShardedUrlRepository(AppProperties.Sharding cfg, Map<String, MongoTemplate> shards) {
+        this.cfg = cfg;
+        this.shards = shards;
+        this.ring = new HashRing<>(shards, cfg.getVirtualNodes());
+        shards.values().forEach(template -> bulk.put(template, new UrlRepositoryCustomImpl(template)));
+    }
+
+    @Override
+    public Optional<Url> findByShortUrl(String shortUrl) {
+        Query query = byShortUrl(shortUrl);
+        MongoTemplate owner = ring.owner(shortUrl);
+        Url url = owner.findOne(query, Url.class);
+        if (url == null && cfg.isRebalancing()) {
+            MongoTemplate previous = ring.previousOwner(shortUrl);
+            url = previous != owner ? previous.findOne(query, Url.class) : null;
+        }
+        return Optional.ofNullable(url);
+    }
+
+    @Override
+    public boolean existsByShortUrl(String shortUrl) {
+        Query query = byShortUrl(shortUrl);
+        MongoTemplate owner = ring.owner(shortUrl);
+        if (owner.exists(query, Url.class)) {
+            return true;
+        }
+        if (!cfg.isRebalancing()) {
+            return false;
+        }
+        MongoTemplate previous = ring.previousOwner(shortUrl);
+        return previous != owner && previous.exists(query, Url.class);
+    }
+
+    /**
+     * One $in query per shard that owns any of the codes.
+     */
+    @Override
+    public List<Url> findByShortUrlIn(Collection<String> shortUrls) {
+        List<Url> found = findIn(groupBy(shortUrls, ring::owner));
+        if (cfg.isRebalancing() && found.size() < shortUrls.size()) {
+            Set<String> missing = new HashSet<>(shortUrls);
+            found.forEach(url -> missing.remove(url.getShortUrl()));
+            found.addAll(findIn(groupBy(missing, ring::previousOwner)));
+        }
+        return found;
+    }
+
+    @Override
+    public List<Url> findByLongUrlHash(long longUrlHash) {
+        return findAll(Query.query(Criteria.where("longUrlHash").is(longUrlHash)));
+    }
+
+    @Override
+    public List<Url> findByLongUrlHashIn(Collection<Long> longUrlHashes) {
+        return findAll(Query.query(Criteria.where("longUrlHash").in(longUrlHashes)));
+    }
+
+    @Override
+    public Stream<ShortUrlView> streamAllBy() {
+        Query query = new Query();
+        query.fields().include("shortUrl");
+        return shards.values().stream()
+                .flatMap(template -> template.stream(query, Url.class))
+                .map(url -> url::getShortUrl);
+    }
+
+    /**
+     * Unsorted, the shards' cursors are read one after the other. Sorted, each shard returns its own first
+     * {@code limit} documents and they are merged in memory.
+     */
+    @Override
+    public Stream<Url> streamLive(Sort sort, int limit, int batchSize) {
+        if (sort.isUnsorted()) {
+            return shards.values().stream()
+                    .flatMap(template -> bulk.get(template).streamLive(sort, limit, batchSize))
+                    .limit(limit);
+        }
+        Query query = Query.query(new Criteria().orOperator(
+                        Criteria.where("expiresAt").is(null),
+                        Criteria.where("expiresAt").gt(Instant.now())))
+                .with(sort)
+                .limit(limit)
+                .cursorBatchSize(batchSize);
+        query.fields().include("shortUrl", "longUrl", "expiresAt");
+        // the merge needs the sort keys too
+        sort.forEach(order -> query.fields().include(order.getProperty()));
+        return findAll(query).stream().sorted(UrlOrdering.of(sort)).limit(limit);
+    }
+
+    @Override
+    public void incrementHitCounts(Map<String, Long> deltas) {
+        Map<MongoTemplate, Map<String, Long>> byShard = new HashMap<>();
+        deltas.forEach((shortUrl, delta) ->
+                byShard.computeIfAbsent(ring.owner(shortUrl), t -> new HashMap<>()).put(shortUrl, delta));
+        byShard.forEach((template, shardDeltas) -> bulk.get(template).incrementHitCounts(shardDeltas));
+    }
+
+    /**
+     * One unordered insertMany per shard; rejected positions are mapped back to {@code urls}.
+     */
+    @Override
+    public Set<Integer> insertAllUnordered(List<Url> urls) {
+        Map<MongoTemplate, List<Integer>> positions = new HashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            positions.computeIfAbsent(ring.owner(urls.get(i).getShortUrl()), t -> new ArrayList<>()).add(i);
+        }
+        Set<Integer> duplicates = new HashSet<>();
+        positions.forEach((template, shardPositions) -> {
+            List<Url> shardUrls = shardPositions.stream().map(urls::get).toList();
+            for (int rejected : bulk.get(template).insertAllUnordered(shardUrls)) {
+                duplicates.add(shardPositions.get(rejected));
+            }
+        });
+        return duplicates;
+    }
+
+    @Override
+    public <S extends Url> S save(S entity) {
+        return ring.owner(entity.getShortUrl()).save(entity);
+    }
+
+    @Override
+    public <S extends Url> S insert(S entity) {
+        return ring.owner(entity.getShortUrl()).insert(entity);
+    }
+
+    @Override
+    public <S extends Url> List<S> insert(Iterable<S> entities) {
+        List<S> inserted = new ArrayList<>();
+        entities.forEach(entity -> inserted.add(insert(entity)));
+        return inserted;
+    }
+
+    @Override
+    public <S extends Url> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(entity -> saved.add(save(entity)));
+        return saved;
+    }
+
+    @Override
+    public Optional<Url> findById(String id) {
+        return findAll(Query.query(Criteria.where("_id").is(id))).stream().findFirst();
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        Query query = Query.query(Criteria.where("_id").is(id));
+        return shards.values().stream().anyMatch(template -> template.exists(query, Url.class));
+    }
+
+    @Override
+    public List<Url> findAll() {
+        return findAll(new Query());
+    }
+
+    @Override
+    public List<Url> findAllById(Iterable<String> ids) {
+        List<String> wanted = new ArrayList<>();
+        ids.forEach(wanted::add);
+        return findAll(Query.query(Criteria.where("_id").in(wanted)));
+    }
+
+    @Override
+    public List<Url> findAll(Sort sort) {
+        return findAll().stream().sorted(UrlOrdering.of(sort)).toList();
+    }
+
+    @Override
+    public Page<Url> findAll(Pageable pageable) {
+        List<Url> all = findAll(pageable.getSort());
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(all);
+        }
+        int from = (int) Math.min(all.size(), pageable.getOffset());
+        int to = Math.min(all.size(), from + pageable.getPageSize());
+        return new PageImpl<>(all.subList(from, to), pageable, all.size());
+    }
+
+    @Override
+    public long count() {
+        return shards.values().stream().mapToLong(template -> template.count(new Query(), Url.class)).sum();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        Query query = Query.query(Criteria.where("_id").is(id));
+        shards.values().forEach(template -> template.remove(query, Url.class));
+    }
+
+    @Override
+    public void delete(Url entity) {
+        ring.owner(entity.getShortUrl()).remove(entity);
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        ids.forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Url> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        shards.values().forEach(template -> template.remove(new Query(), Url.class));
+    }
+
+    @Override
+    public <S extends Url> Optional<S> findOne(Example<S> example) {
+        throw unsupported();
+    }
+
+    @Override
+    public <S extends Url> List<S> findAll(Example<S> example) {
+        throw unsupported();
+    }
+
+    @Override
+    public <S extends Url> List<S> findAll(Example<S> example, Sort sort) {
+        throw unsupported();
+    }
+
+    @Override
+    public <S extends Url> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw unsupported();
+    }
+
+    @Override
+    public <S extends Url> long count(Example<S> example) {
+        throw unsupported();
+    }
+
+    @Override
+    public <S extends Url> boolean exists(Example<S> example) {
+        throw unsupported();
+    }
+
+    @Override
+    public <S extends Url, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw unsupported();
+    }
+
+    /**
+     * Creates the indexes on every shard and, while rebalancing, moves misplaced documents, in the background
+     * so an unreachable shard does not hold up startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread.ofVirtual().name("shard-setup").start(() -> {
+            shards.forEach(ShardedUrlRepository::createIndexes);
+            if (cfg.isRebalancing()) {
+                try {
+                    rebalance();
+                } catch (RuntimeException e) {
+                    log.warn("Shard rebalancing stopped, it resumes on the next start: {}", e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Moves every document stored on a shard other than its owner: inserted on the owner in unordered batches
+     * (a copy already there is fine), then deleted from where it was.
+     *
+     * @return the number of documents moved
+     */
+    public long rebalance() {
+        long moved = 0;
+        for (Map.Entry<String, MongoTemplate> source : shards.entrySet()) {
+            Map<String, List<Url>> batches = new HashMap<>();
+            try (Stream<Url> urls = source.getValue().stream(new Query().cursorBatchSize(cfg.getRebalanceBatchSize()), Url.class)) {
+                for (Url url : (Iterable<Url>) urls::iterator) {
+                    String owner = ring.ownerName(url.getShortUrl());
+                    if (owner.equals(source.getKey())) {
+                        continue;
+                    }
+                    List<Url> batch = batches.computeIfAbsent(owner, name -> new ArrayList<>());
+                    batch.add(url);
+                    if (batch.size() >= cfg.getRebalanceBatchSize()) {
+                        moved += move(batch, source.getValue(), shards.get(owner));
+                        batch.clear();
+                    }
+                }
+            }
+            for (Map.Entry<String, List<Url>> batch : batches.entrySet()) {
+                moved += move(batch.getValue(), source.getValue(), shards.get(batch.getKey()));
+            }
+        }
+        log.info("Shard rebalancing moved {} documents", moved);
+        return moved;
+    }
+
+    @PreDestroy
+    public void close() throws Exception {
+        for (MongoTemplate template : shards.values()) {
+            if (template.getMongoDatabaseFactory() instanceof DisposableBean factory) {
+                factory.destroy();
+            }
+        }
+    }
+
+    private int move(List<Url> batch, MongoTemplate from, MongoTemplate to) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        bulk.get(to).insertAllUnordered(batch);
+        from.remove(Query.query(Criteria.where("_id").in(batch.stream().map(Url::getId).toList())), Url.class);
+        return batch.size();
+    }
+
+    private List<Url> findIn(Map<MongoTemplate, List<String>> codesByShard) {
+        List<Url> found = new ArrayList<>();
+        codesByShard.forEach((template, codes) ->
+                found.addAll(template.find(Query.query(Criteria.where("shortUrl").in(codes)), Url.class)));
+        return found;
+    }
+
+    private List<Url> findAll(Query query) {
+        List<Url> found = new ArrayList<>();
+        shards.values().forEach(template -> found.addAll(template.find(query, Url.class)));
+        return found;
+    }
+
+    private static Map<MongoTemplate, List<String>> groupBy(Collection<String> shortUrls,
+                                                           Function<String, MongoTemplate> shard) {
+        Map<MongoTemplate, List<String>> byShard = new HashMap<>();
+        for (String shortUrl : new HashSet<>(shortUrls)) {
+            byShard.computeIfAbsent(shard.apply(shortUrl), t -> new ArrayList<>()).add(shortUrl);
+        }
+        return byShard;
+    }
+
+    private static Query byShortUrl(String shortUrl) {
+        return Query.query(Criteria.where("shortUrl").is(shortUrl));
+    }
+
+    private static Map<String, MongoTemplate> connect(AppProperties.Sharding cfg) {
+        if (cfg.getShards().isEmpty()) {
+            throw new IllegalStateException("The sharded profile needs at least one app.sharding.shards entry");
+        }
+        Map<String, MongoTemplate> shards = new LinkedHashMap<>();
+        for (AppProperties.Shard shard : cfg.getShards()) {
+            if (shards.put(shard.getName(), new MongoTemplate(new SimpleMongoClientDatabaseFactory(shard.getUri()))) != null) {
+                throw new IllegalStateException("Duplicate shard name " + shard.getName());
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * Creates the indexes declared on {@link Url}, most importantly the unique one on the short code.
+     * A shard that cannot be reached is skipped; its indexes are created on the next start.
+     */
+    private static void createIndexes(String name, MongoTemplate template) {
+        try {
+            UrlIndexes.create(template);
+        } catch (RuntimeException e) {
+            log.warn("Could not create the indexes on shard {}: {}", name, e.getMessage());
+        }
+    }
+
+    private static UnsupportedOperationException unsupported() {
+        return new UnsupportedOperationException("Query by example is not supported by the sharded store");
+    }
+}
@@ -2,5 +2,11 @@ package url.shortener.challenge.service;
 
 public interface CodeGenerator {
     String generate(int length);
-}
 
+    /**
+     * @return true if generated codes can never collide, so callers may skip the existence check
+     */
+    default boolean uniqueByConstruction() {
+        return false;
+    }
+}
@@ -0,0 +1,15 @@
+package url.shortener.challenge.service;
+
+import reactor.core.publisher.Mono;
+import url.shortener.challenge.dto.LongUrlRequestDto;
+import url.shortener.challenge.dto.ShortUrlResponseDto;
+
+/**
+ * Non-blocking counterpart of {@link UrlService} for the create and resolve paths.
+ * Unknown or expired codes complete empty.
+ */
+public interface ReactiveUrlService {
+    Mono<ShortUrlResponseDto> create(LongUrlRequestDto request);
+    Mono<String> resolve(String shortUrl);
+    Mono<ResolvedUrl> lookup(String shortUrl);
+}
@@ -0,0 +1,9 @@
+package url.shortener.challenge.service;
+
+import java.time.Instant;
+
+/**
+ * A resolved mapping: the long URL and when it stops being valid (null if never).
+ */
+public record ResolvedUrl(String longUrl, Instant expiresAt) {
+}
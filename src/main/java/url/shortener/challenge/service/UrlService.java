@@ -1,10 +1,19 @@
 package url.shortener.challenge.service;
 
+import url.shortener.challenge.dto.BulkCreateResultDto;
 import url.shortener.challenge.dto.LongUrlRequestDto;
+import url.shortener.challenge.dto.ResolveResultDto;
 import url.shortener.challenge.dto.ShortUrlResponseDto;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface UrlService {
     ShortUrlResponseDto create(LongUrlRequestDto request);
+    List<BulkCreateResultDto> createAll(List<LongUrlRequestDto> requests);
     Optional<String> resolve(String shortUrl);
+    Optional<ResolvedUrl> lookup(String shortUrl);
+    Map<String, ResolveResultDto> resolveAll(Collection<String> shortUrls);
 }
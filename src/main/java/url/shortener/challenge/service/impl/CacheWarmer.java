@@ -0,0 +1,81 @@
+package url.shortener.challenge.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.entity.Url;
+import url.shortener.challenge.repository.UrlIndexes;
+import url.shortener.challenge.repository.UrlRepository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Loads the hottest (and optionally the newest) mappings into the local cache and Redis at startup.
+ * Application runners finish before the readiness probe reports ACCEPTING_TRAFFIC, so a replica
+ * only gets traffic once it is warm. A failed warm-up is logged and the replica starts cold.
+ */
+@Component
+@ConditionalOnProperty(name = "app.warm-up.enabled", havingValue = "true")
+public class CacheWarmer implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheWarmer.class);
+
+    private final UrlRepository repo;
+    private final UrlServiceImpl service;
+    private final UrlIndexes indexes;
+    private final AppProperties.WarmUp cfg;
+
+    public CacheWarmer(UrlRepository repo, UrlServiceImpl service, UrlIndexes indexes, AppProperties props) {
+        this.repo = repo;
+        this.service = service;
+        this.indexes = indexes;
+        this.cfg = props.getWarmUp();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        Set<String> seen = new HashSet<>();
+        try {
+            // runs before the background index creation, and the top-N read needs the hitCount index
+            indexes.ensure();
+            warm(Sort.by(Sort.Direction.DESC, "hitCount"), cfg.getTopN(), seen);
+            // ObjectIds grow with creation time, so _id order is creation order without another index
+            warm(Sort.by(Sort.Direction.DESC, "_id"), cfg.getRecentN(), seen);
+            log.info("Warmed caches with {} mappings in {} ms", seen.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Cache warm-up stopped after {} mappings, starting partly cold: {}", seen.size(), e.getMessage());
+        }
+    }
+
+    private void warm(Sort sort, int limit, Set<String> seen) {
+        if (limit <= 0) {
+            return;
+        }
+        int batchSize = Math.max(1, cfg.getBatchSize());
+        List<Url> batch = new ArrayList<>(batchSize);
+        try (Stream<Url> urls = repo.streamLive(sort, limit, batchSize)) {
+            urls.forEach(url -> {
+                if (seen.add(url.getShortUrl())) {
+                    batch.add(url);
+                    if (batch.size() >= batchSize) {
+                        service.preload(batch);
+                        batch.clear();
+                    }
+                }
+            });
+        }
+        if (!batch.isEmpty()) {
+            service.preload(batch);
+        }
+    }
+}
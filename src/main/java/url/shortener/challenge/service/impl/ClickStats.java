@@ -0,0 +1,208 @@
+package url.shortener.challenge.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import url.shortener.challenge.cache.CodeExistenceFilter;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.dto.ClickStatsResponseDto;
+import url.shortener.challenge.entity.ClickBucket;
+import url.shortener.challenge.entity.ClickBucket.Granularity;
+import url.shortener.challenge.exception.InvalidStatsQueryException;
+import url.shortener.challenge.repository.ClickStatsRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rolls clicks up into minute, hour and day buckets per short code and periodically upserts them into
+ * Mongo in one bulk write. It is fed with each batch the {@link HitCountBuffer} drains, so the resolve
+ * path pays nothing extra, and a click is bucketed by the time of that drain (at most one hit-counter
+ * flush interval late). Stats requests read the stored buckets and never touch raw events.
+ */
+@Component
+public class ClickStats {
+
+    private static final Logger log = LoggerFactory.getLogger(ClickStats.class);
+
+    // buckets returned when the request gives no range
+    private static final Map<Granularity, Integer> DEFAULT_SPAN =
+            Map.of(Granularity.MINUTE, 60, Granularity.HOUR, 48, Granularity.DAY, 30);
+
+    private final ClickStatsRepository store;
+    private final CodeExistenceFilter existenceFilter;
+    private final AppProperties.ClickStats cfg;
+    private final boolean enabled;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private Map<BucketKey, long[]> pending = new HashMap<>();
+
+    public ClickStats(ClickStatsRepository store, CodeExistenceFilter existenceFilter, AppProperties props) {
+        this.store = store;
+        this.existenceFilter = existenceFilter;
+        this.cfg = props.getClickStats();
+        this.enabled = cfg.isEnabled() && store.isAvailable();
+        if (cfg.isEnabled() && !enabled) {
+            log.warn("Click stats need Mongo and are disabled under this storage profile");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Adds hits counted up to the given instant to the buckets containing that instant.
+     */
+    public void record(Map<String, Long> hits, Instant at) {
+        if (!enabled || hits.isEmpty()) {
+            return;
+        }
+        Granularity[] granularities = Granularity.values();
+        Instant[] starts = new Instant[granularities.length];
+        for (int i = 0; i < granularities.length; i++) {
+            starts[i] = granularities[i].bucketStart(at);
+        }
+        lock.lock();
+        try {
+            hits.forEach((shortUrl, count) -> {
+                for (int i = 0; i < granularities.length; i++) {
+                    pending.computeIfAbsent(new BucketKey(shortUrl, granularities[i], starts[i]),
+                            k -> new long[1])[0] += count;
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the buckets rolled up since the last flush. Buckets the store reports as not written are put
+     * back for the next flush. When the outcome of the write is unknown the batch is dropped: retrying
+     * $inc could count what was already applied twice.
+     */
+    @Scheduled(fixedDelayString = "${app.click-stats.flush-interval-ms:10000}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            Map<BucketKey, long[]> drained;
+            lock.lock();
+            try {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                drained = pending;
+                pending = new HashMap<>();
+            } finally {
+                lock.unlock();
+            }
+            List<BucketKey> keys = new ArrayList<>(drained.keySet());
+            List<ClickBucket> buckets = new ArrayList<>(keys.size());
+            for (BucketKey key : keys) {
+                buckets.add(ClickBucket.builder()
+                        .shortUrl(key.shortUrl())
+                        .granularity(key.granularity().code())
+                        .start(key.start())
+                        .count(drained.get(key)[0])
+                        .expiresAt(expiry(key))
+                        .build());
+            }
+            Set<Integer> failed;
+            try {
+                failed = store.increment(buckets);
+            } catch (RuntimeException e) {
+                log.warn("Dropped {} click stat buckets, the write may or may not have been applied", buckets.size(), e);
+                return;
+            }
+            if (failed.isEmpty()) {
+                log.debug("Flushed {} click stat buckets", buckets.size());
+                return;
+            }
+            log.warn("{} of {} click stat buckets were not written, keeping them for the next run",
+                    failed.size(), buckets.size());
+            lock.lock();
+            try {
+                for (int position : failed) {
+                    BucketKey key = keys.get(position);
+                    pending.computeIfAbsent(key, k -> new long[1])[0] += drained.get(key)[0];
+                }
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Reads one code's buckets of the given granularity. The range is widened to whole buckets; without
+     * one the latest 60 minutes, 48 hours or 30 days up to and including the current bucket are returned.
+     *
+     * @param from first instant to cover, or null
+     * @param to instant to cover up to (exclusive), or null for now
+     * @return empty if the code is known not to exist
+     * @throws InvalidStatsQueryException if the range is empty or spans more than app.click-stats.max-buckets
+     */
+    public Optional<ClickStatsResponseDto> query(String shortUrl, Granularity granularity, Instant from, Instant to) {
+        if (!existenceFilter.mightContain(shortUrl)) {
+            return Optional.empty();
+        }
+        Instant end = to != null ? alignUp(granularity, to) : granularity.bucketStart(Instant.now())
+                .plus(1, granularity.unit());
+        Instant start = from != null ? granularity.bucketStart(from)
+                : end.minus(DEFAULT_SPAN.get(granularity), granularity.unit());
+        long span = granularity.unit().between(start, end);
+        if (span <= 0 || span > cfg.getMaxBuckets()) {
+            throw new InvalidStatsQueryException("a range of 1 to " + cfg.getMaxBuckets() + " buckets is required");
+        }
+
+        Map<Instant, Long> stored = new HashMap<>();
+        for (ClickBucket bucket : store.find(shortUrl, granularity, start, end)) {
+            stored.put(bucket.getStart(), bucket.getCount());
+        }
+        List<ClickStatsResponseDto.Bucket> buckets = new ArrayList<>((int) span);
+        long total = 0;
+        for (Instant t = start; t.isBefore(end); t = t.plus(1, granularity.unit())) {
+            long count = stored.getOrDefault(t, 0L);
+            buckets.add(new ClickStatsResponseDto.Bucket(t, count));
+            total += count;
+        }
+        String name = granularity.name().toLowerCase(Locale.ROOT);
+        return Optional.of(new ClickStatsResponseDto(shortUrl, name, start, end, total, buckets));
+    }
+
+    private Instant expiry(BucketKey key) {
+        Duration retention = switch (key.granularity()) {
+            case MINUTE -> cfg.getMinuteRetention();
+            case HOUR -> cfg.getHourRetention();
+            case DAY -> cfg.getDayRetention();
+        };
+        return retention == null || retention.isZero() ? null : key.start().plus(retention);
+    }
+
+    private static Instant alignUp(Granularity granularity, Instant instant) {
+        Instant start = granularity.bucketStart(instant);
+        return start.equals(instant) ? start : start.plus(1, granularity.unit());
+    }
+
+    private record BucketKey(String shortUrl, Granularity granularity, Instant start) {
+    }
+}
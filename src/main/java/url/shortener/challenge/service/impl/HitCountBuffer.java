@@ -0,0 +1,161 @@
+package url.shortener.challenge.service.impl;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.repository.UrlRepository;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Aggregates hit counts in memory and periodically flushes them to Mongo as one bulk write of $inc updates.
+ * Counts are spread over lock-striped maps picked by thread id, so concurrent hits on the same
+ * hot code rarely contend, and nothing on the resolve path touches Mongo. Each drained batch is also
+ * handed to {@link ClickStats} for the time-bucketed statistics and to {@link TrendingTracker}.
+ * Counts of a failed write are kept for the next flush, up to a cap on codes; the rest are dropped and counted.
+ */
+@Component
+public class HitCountBuffer implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(HitCountBuffer.class);
+
+    private final UrlRepository repo;
+    private final ClickStats clickStats;
+    private final TrendingTracker trending;
+    private final Stripe[] stripes;
+    private final int mask;
+    private final int maxRetainedCodes;
+    private final AtomicLong dropped = new AtomicLong();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // counts of a failed write, guarded by flushLock
+    private Map<String, Long> retry = new HashMap<>();
+
+    public HitCountBuffer(UrlRepository repo, ClickStats clickStats, TrendingTracker trending,
+                          AppProperties props) {
+        this.repo = repo;
+        this.clickStats = clickStats;
+        this.trending = trending;
+        int size = Integer.highestOneBit(Math.max(1, props.getHitCounter().getStripes() - 1)) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.mask = size - 1;
+        this.maxRetainedCodes = props.getHitCounter().getMaxRetainedCodes();
+    }
+
+    /**
+     * Records one hit for the given short code.
+     */
+    public void increment(String shortUrl) {
+        add(stripes[(int) Thread.currentThread().threadId() & mask], shortUrl, 1);
+    }
+
+    /**
+     * Drains all stripes and writes the aggregated counts to Mongo.
+     * Counts are put back if the write fails so they go out with the next flush.
+     */
+    @Scheduled(fixedDelayString = "${app.hit-counter.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<String, Long> drained = new HashMap<>();
+            for (Stripe stripe : stripes) {
+                stripe.drainTo(drained);
+            }
+            // counts kept from a failed write were rolled into the stats when they were first drained
+            clickStats.record(drained, Instant.now());
+            trending.record(drained);
+            Map<String, Long> deltas = retry;
+            retry = new HashMap<>();
+            drained.forEach((shortUrl, delta) -> deltas.merge(shortUrl, delta, Long::sum));
+            if (deltas.isEmpty()) {
+                return;
+            }
+            try {
+                repo.incrementHitCounts(deltas);
+                log.debug("Flushed hit counts for {} short urls", deltas.size());
+            } catch (RuntimeException e) {
+                log.warn("Failed to flush hit counts for {} short urls, keeping them for the next run",
+                        deltas.size(), e);
+                retry = retained(deltas);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("url.hit.counts.dropped", dropped, AtomicLong::get)
+                .description("Hits dropped because too many codes were waiting for a failed flush to be retried")
+                .register(registry);
+    }
+
+    /**
+     * Keeps the codes with the most hits, up to the cap.
+     */
+    private Map<String, Long> retained(Map<String, Long> deltas) {
+        if (deltas.size() <= maxRetainedCodes) {
+            return deltas;
+        }
+        Map<String, Long> kept = new HashMap<>();
+        deltas.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .forEach(entry -> {
+                    if (kept.size() < maxRetainedCodes) {
+                        kept.put(entry.getKey(), entry.getValue());
+                    } else {
+                        dropped.addAndGet(entry.getValue());
+                    }
+                });
+        log.warn("Dropped hit counts of {} short urls, at most {} are kept for retry",
+                deltas.size() - kept.size(), maxRetainedCodes);
+        return kept;
+    }
+
+    private static void add(Stripe stripe, String shortUrl, long delta) {
+        stripe.lock.lock();
+        try {
+            stripe.counts.computeIfAbsent(shortUrl, k -> new long[1])[0] += delta;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private Map<String, long[]> counts = new HashMap<>();
+
+        void drainTo(Map<String, Long> target) {
+            Map<String, long[]> drained;
+            lock.lock();
+            try {
+                if (counts.isEmpty()) {
+                    return;
+                }
+                drained = counts;
+                counts = new HashMap<>();
+            } finally {
+                lock.unlock();
+            }
+            drained.forEach((shortUrl, count) -> target.merge(shortUrl, count[0], Long::sum));
+        }
+    }
+}
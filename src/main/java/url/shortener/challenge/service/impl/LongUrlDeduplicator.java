@@ -0,0 +1,153 @@
+package url.shortener.challenge.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.entity.Url;
+import url.shortener.challenge.repository.UrlRepository;
+import url.shortener.challenge.util.Bulkheads;
+import url.shortener.challenge.util.Bulkheads.Backend;
+import url.shortener.challenge.util.UrlMetrics;
+import url.shortener.challenge.util.UrlMetrics.Stage;
+import url.shortener.challenge.util.UrlNormalizer;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the live code already minted for a long URL. Documents are matched through the indexed
+ * 64-bit hash of the normalized URL and then compared in full, so a hash collision never returns
+ * a wrong code. Recent matches and creations are kept in a local cache keyed by the hash.
+ * Best effort: two replicas creating the same URL at the same moment may still mint two codes.
+ */
+@Component
+public class LongUrlDeduplicator {
+
+    private final UrlRepository repo;
+    private final Bulkheads bulkheads;
+    private final UrlMetrics metrics;
+    private final boolean enabled;
+    private final Cache<Long, Known> recent;
+
+    public LongUrlDeduplicator(UrlRepository repo, AppProperties props, Bulkheads bulkheads, UrlMetrics metrics) {
+        this.repo = repo;
+        this.bulkheads = bulkheads;
+        this.metrics = metrics;
+        AppProperties.Dedup cfg = props.getDedup();
+        this.enabled = cfg.isEnabled();
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(cfg.getLocalMaximumSize())
+                .expireAfterWrite(cfg.getLocalTtl())
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param normalizedUrl long URL as returned by {@link UrlNormalizer#normalize}
+     * @param hash          {@link url.shortener.challenge.util.Hashing#hash64} of {@code normalizedUrl}
+     * @return the code of a live mapping for the same URL, or null if there is none
+     */
+    public String find(String normalizedUrl, long hash) {
+        String known = findRecent(normalizedUrl, hash);
+        if (known != null) {
+            return known;
+        }
+        long start = System.nanoTime();
+        List<Url> candidates = bulkheads.call(Backend.MONGO, () -> repo.findByLongUrlHash(hash));
+        metrics.record(Stage.DEDUP_LOOKUP, start);
+        return match(normalizedUrl, hash, candidates);
+    }
+
+    /**
+     * Batch form of {@link #find} for bulk create: one $in query for every URL the local cache can't answer.
+     *
+     * @param hashes hash of each normalized URL, keyed by the normalized URL
+     * @return codes of live mappings keyed by normalized URL; URLs without one are absent
+     */
+    public Map<String, String> findAll(Map<String, Long> hashes) {
+        Map<String, String> found = new HashMap<>();
+        Set<Long> unknown = new HashSet<>();
+        hashes.forEach((normalizedUrl, hash) -> {
+            String known = findRecent(normalizedUrl, hash);
+            if (known != null) {
+                found.put(normalizedUrl, known);
+            } else {
+                unknown.add(hash);
+            }
+        });
+        if (unknown.isEmpty()) {
+            return found;
+        }
+
+        long start = System.nanoTime();
+        List<Url> candidates = bulkheads.call(Backend.MONGO, () -> repo.findByLongUrlHashIn(unknown));
+        metrics.record(Stage.DEDUP_LOOKUP, start);
+        Instant now = Instant.now();
+        for (Url candidate : candidates) {
+            if (!isLive(candidate.getExpiresAt(), now)) {
+                continue;
+            }
+            String normalizedUrl = UrlNormalizer.normalize(candidate.getLongUrl());
+            Long hash = hashes.get(normalizedUrl);
+            if (hash != null && found.putIfAbsent(normalizedUrl, candidate.getShortUrl()) == null) {
+                remember(normalizedUrl, hash, candidate.getShortUrl(), candidate.getExpiresAt());
+            }
+        }
+        return found;
+    }
+
+    /**
+     * The local cache half of {@link #find}, for callers that query the candidates themselves.
+     *
+     * @return the remembered live code for the URL, or null
+     */
+    public String findRecent(String normalizedUrl, long hash) {
+        Known known = recent.getIfPresent(hash);
+        if (known != null && known.normalizedUrl().equals(normalizedUrl) && isLive(known.expiresAt(), Instant.now())) {
+            return known.shortUrl();
+        }
+        return null;
+    }
+
+    /**
+     * The comparison half of {@link #find}: picks the live candidate for exactly this URL and remembers it.
+     *
+     * @param candidates mappings stored under the same hash
+     * @return its code, or null if no candidate matches
+     */
+    public String match(String normalizedUrl, long hash, List<Url> candidates) {
+        Instant now = Instant.now();
+        for (Url candidate : candidates) {
+            if (isLive(candidate.getExpiresAt(), now)
+                    && UrlNormalizer.normalize(candidate.getLongUrl()).equals(normalizedUrl)) {
+                remember(normalizedUrl, hash, candidate.getShortUrl(), candidate.getExpiresAt());
+                return candidate.getShortUrl();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Records a freshly created mapping so the next submission of the same URL skips Mongo.
+     */
+    public void remember(String normalizedUrl, long hash, String shortUrl, Instant expiresAt) {
+        if (enabled) {
+            recent.put(hash, new Known(normalizedUrl, shortUrl, expiresAt));
+        }
+    }
+
+    private static boolean isLive(Instant expiresAt, Instant now) {
+        return expiresAt == null || expiresAt.isAfter(now);
+    }
+
+    private record Known(String normalizedUrl, String shortUrl, Instant expiresAt) {
+    }
+}
@@ -1,10 +1,12 @@
 package url.shortener.challenge.service.impl;
 
 import com.aventrix.jnanoid.jnanoid.NanoIdUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import url.shortener.challenge.service.CodeGenerator;
 
 @Component
+@ConditionalOnProperty(name = "app.code-generator", havingValue = "nanoid", matchIfMissing = true)
 public class NanoIdCodeGenerator implements CodeGenerator {
     @Override
     public String generate(int length) {
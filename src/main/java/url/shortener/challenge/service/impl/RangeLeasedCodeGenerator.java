@@ -0,0 +1,200 @@
+package url.shortener.challenge.service.impl;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.service.CodeGenerator;
+import url.shortener.challenge.util.Hashing;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands out codes derived from a global sequence. Each replica leases blocks of sequence numbers
+ * from a counter document in Mongo with one findAndModify {@code $inc}, then maps every number through
+ * a keyed Feistel permutation of the 62^length keyspace and base-62 encodes it. Distinct sequence numbers
+ * always give distinct codes, so no existence check against Mongo is needed.
+ * <p>
+ * The counter lives next to the codes it issued because Redis may lose its data. The first lease seeds a
+ * missing counter document from the Redis key earlier versions leased from. Profiles without a single
+ * Mongo database fall back to that Redis key, and codes are then not unique by construction.
+ */
+@Component
+@ConditionalOnProperty(name = "app.code-generator", havingValue = "range")
+public class RangeLeasedCodeGenerator implements CodeGenerator {
+
+    static final String SEQUENCE_KEY = "seq:url";
+    static final String COUNTERS = "counters";
+
+    private static final Logger log = LoggerFactory.getLogger(RangeLeasedCodeGenerator.class);
+    private static final Query SEQUENCE = new Query(Criteria.where("_id").is("url"));
+
+    private static final char[] ALPHABET =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+    private static final int MAX_LENGTH = 10; // 62^11 no longer fits in a long
+    private static final int ROUNDS = 4;
+
+    private final StringRedisTemplate redis;
+    private final MongoTemplate mongo;
+    private final long blockSize;
+    private final long[] roundKeys = new long[ROUNDS];
+    private final AtomicReference<Block> current = new AtomicReference<>(new Block(0, 0));
+    private volatile boolean seeded;
+
+    public RangeLeasedCodeGenerator(StringRedisTemplate redis, ObjectProvider<MongoTemplate> mongo,
+                                    AppProperties props) {
+        this.redis = redis;
+        this.mongo = mongo.getIfAvailable();
+        if (this.mongo == null) {
+            log.warn("No single Mongo database for the range code generator's counter, leasing from Redis; "
+                    + "new codes are checked against the store");
+        }
+        this.blockSize = props.getRangeGenerator().getBlockSize();
+        long key = props.getRangeGenerator().getSecret();
+        for (int i = 0; i < ROUNDS; i++) {
+            key = Hashing.mix64(key + 0x9E3779B97F4A7C15L);
+            roundKeys[i] = key;
+        }
+    }
+
+    @Override
+    public String generate(int length) {
+        if (length < 1 || length > MAX_LENGTH) {
+            throw new IllegalArgumentException("Code length must be between 1 and " + MAX_LENGTH);
+        }
+        long domain = pow62(length);
+        long seq = nextSequence();
+        if (seq >= domain) {
+            throw new IllegalStateException("Code space exhausted for length " + length);
+        }
+        return encode(permute(seq, domain), length);
+    }
+
+    /**
+     * Only with the durable Mongo counter: a Redis counter restarts after a flush or failover.
+     */
+    @Override
+    public boolean uniqueByConstruction() {
+        return mongo != null;
+    }
+
+    /**
+     * Takes the next number from the current block, leasing a new block once it runs dry.
+     * Threads that lose the race to install a new block simply retry on the winner's block;
+     * the loser's lease becomes a harmless gap in the sequence.
+     */
+    private long nextSequence() {
+        while (true) {
+            Block block = current.get();
+            long seq = block.next.getAndIncrement();
+            if (seq < block.end) {
+                return seq;
+            }
+            long end = lease();
+            current.compareAndSet(block, new Block(end - blockSize, end));
+        }
+    }
+
+    /**
+     * @return the end of a newly leased block of {@code blockSize} sequence numbers
+     */
+    private long lease() {
+        if (mongo == null) {
+            Long end = redis.opsForValue().increment(SEQUENCE_KEY, blockSize);
+            if (end == null) {
+                throw new IllegalStateException("Could not lease a sequence block from Redis");
+            }
+            return end;
+        }
+        if (!seeded) {
+            seed();
+        }
+        Document counter = mongo.findAndModify(SEQUENCE, new Update().inc("seq", blockSize),
+                FindAndModifyOptions.options().upsert(true).returnNew(true), Document.class, COUNTERS);
+        if (counter == null) {
+            throw new IllegalStateException("Could not lease a sequence block from Mongo");
+        }
+        return ((Number) counter.get("seq")).longValue();
+    }
+
+    /**
+     * Starts a missing counter document past every number leased from the Redis key, so moving the counter
+     * to Mongo never reissues a code. Replicas racing here agree through {@code $max}.
+     */
+    private void seed() {
+        if (!mongo.exists(SEQUENCE, COUNTERS)) {
+            String leased = redis.opsForValue().get(SEQUENCE_KEY);
+            long start = leased != null ? Long.parseLong(leased) : 0;
+            mongo.upsert(SEQUENCE, new Update().max("seq", start), COUNTERS);
+            log.info("Seeded the code sequence counter at {}", start);
+        }
+        seeded = true;
+    }
+
+    /**
+     * Bijection on [0, domain): a balanced Feistel network over the smallest even bit width
+     * covering the domain, with cycle walking to land back inside it.
+     */
+    private long permute(long value, long domain) {
+        int halfBits = halfBits(domain);
+        long x = value;
+        do {
+            x = feistel(x, halfBits);
+        } while (x >= domain);
+        return x;
+    }
+
+    private long feistel(long x, int halfBits) {
+        long mask = (1L << halfBits) - 1;
+        long left = x >>> halfBits;
+        long right = x & mask;
+        for (int i = 0; i < ROUNDS; i++) {
+            long next = left ^ (Hashing.mix64(right ^ roundKeys[i]) & mask);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private static int halfBits(long domain) {
+        int bits = 64 - Long.numberOfLeadingZeros(domain - 1);
+        return (bits + 1) / 2;
+    }
+
+    private static String encode(long value, int length) {
+        char[] chars = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (value % 62)];
+            value /= 62;
+        }
+        return new String(chars);
+    }
+
+    private static long pow62(int length) {
+        long result = 1;
+        for (int i = 0; i < length; i++) {
+            result *= 62;
+        }
+        return result;
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package url.shortener.challenge.service.impl;
+
+import com.aventrix.jnanoid.jnanoid.NanoIdUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import url.shortener.challenge.cache.CodeExistenceFilter;
+import url.shortener.challenge.cache.LocalUrlCache;
+import url.shortener.challenge.cache.UrlCacheInvalidator;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.dto.LongUrlRequestDto;
+import url.shortener.challenge.dto.ShortUrlResponseDto;
+import url.shortener.challenge.entity.Url;
+import url.shortener.challenge.exception.AliasAlreadyExistsException;
+import url.shortener.challenge.repository.ReactiveUrlRepository;
+import url.shortener.challenge.service.CodeGenerator;
+import url.shortener.challenge.service.ResolvedUrl;
+import url.shortener.challenge.service.ReactiveUrlService;
+import url.shortener.challenge.util.Hashing;
+import url.shortener.challenge.util.UrlMetrics;
+import url.shortener.challenge.util.UrlMetrics.Outcome;
+import url.shortener.challenge.util.UrlMetrics.Stage;
+import url.shortener.challenge.util.UrlNormalizer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link UrlServiceImpl} on reactive Mongo and Redis: same cache levels, short code filter,
+ * load coalescing, hit counting and metrics, without parking a thread on any round trip.
+ * Bulkheads are not applied; the drivers' connection pools bound concurrency instead.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUrlServiceImpl implements ReactiveUrlService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveUrlServiceImpl.class);
+    // reactive streams can't carry null, this stands in for "never expires" inside load()
+    private static final Instant NO_EXPIRY = Instant.MAX;
+
+    private final ReactiveUrlRepository repo;
+    private final AppProperties props;
+    private final ReactiveStringRedisTemplate redis;
+    private final CodeGenerator codeGenerator;
+    private final LocalUrlCache localCache;
+    private final UrlCacheInvalidator invalidator;
+    private final HitCountBuffer hitCounts;
+    private final CodeExistenceFilter existenceFilter;
+    private final UrlMetrics metrics;
+    private final LongUrlDeduplicator deduplicator;
+    // one Redis/Mongo load per code at a time, concurrent misses subscribe to the same cached load
+    private final Map<String, Mono<ResolvedUrl>> loads = new ConcurrentHashMap<>();
+
+    public ReactiveUrlServiceImpl(ReactiveUrlRepository repo, AppProperties props, ReactiveStringRedisTemplate redis,
+                                  CodeGenerator codeGenerator, LocalUrlCache localCache,
+                                  UrlCacheInvalidator invalidator, HitCountBuffer hitCounts,
+                                  CodeExistenceFilter existenceFilter, UrlMetrics metrics,
+                                  LongUrlDeduplicator deduplicator) {
+        this.repo = repo;
+        this.props = props;
+        this.redis = redis;
+        this.codeGenerator = codeGenerator;
+        this.localCache = localCache;
+        this.invalidator = invalidator;
+        this.hitCounts = hitCounts;
+        this.existenceFilter = existenceFilter;
+        this.metrics = metrics;
+        this.deduplicator = deduplicator;
+    }
+
+    /**
+     * Generates and stores a short code for the given long URL.
+     * With dedup enabled, a long URL that already has a live code gets that code back instead.
+     *
+     * @param req long URL request
+     * @return response containing the short code
+     */
+    @Override
+    public Mono<ShortUrlResponseDto> create(LongUrlRequestDto req) {
+        log.debug("Creating short URL for longUrl={}", req.getLongUrl());
+        long ttl = props.getDefaultTtlSeconds();
+        String normalizedUrl = UrlNormalizer.normalize(req.getLongUrl());
+        long urlHash = Hashing.hash64(normalizedUrl);
+
+        Mono<ShortUrlResponseDto> created = generateCode()
+                .flatMap(this::checkUnique)
+                .flatMap(code -> {
+                    // a ttl of 0 means the mapping never expires
+                    Url entity = new Url();
+                    entity.setShortUrl(code);
+                    entity.setLongUrl(req.getLongUrl());
+                    entity.setLongUrlHash(urlHash);
+                    entity.setExpiresAt(ttl > 0 ? Instant.now().plusSeconds(ttl) : null);
+                    return repo.save(entity)
+                            .onErrorResume(DuplicateKeyException.class, e -> retrySave(entity));
+                })
+                .flatMap(saved -> {
+                    String code = saved.getShortUrl();
+                    log.debug("Saved shortUrl={} with ttl={}s", code, ttl);
+                    deduplicator.remember(normalizedUrl, urlHash, code, saved.getExpiresAt());
+                    long start = System.nanoTime();
+                    return cachePut(code, saved.getLongUrl(), ttl)
+                            .doFinally(signal -> metrics.record(Stage.CACHE_BACKFILL, start))
+                            // drop whatever another replica may still hold for a reused code
+                            .then(publishInvalidation(code))
+                            .thenReturn(new ShortUrlResponseDto(code));
+                });
+        return existingCode(normalizedUrl, urlHash)
+                .doOnNext(existing -> log.debug("Returning existing shortUrl={} for longUrl={}",
+                        existing, req.getLongUrl()))
+                .map(ShortUrlResponseDto::new)
+                .switchIfEmpty(created);
+    }
+
+    /**
+     * {@link LongUrlDeduplicator#find} with the candidates read through reactive Mongo.
+     */
+    private Mono<String> existingCode(String normalizedUrl, long urlHash) {
+        if (!deduplicator.isEnabled()) {
+            return Mono.empty();
+        }
+        return Mono.defer(() -> {
+            String known = deduplicator.findRecent(normalizedUrl, urlHash);
+            if (known != null) {
+                return Mono.just(known);
+            }
+            long start = System.nanoTime();
+            return repo.findByLongUrlHash(urlHash).collectList()
+                    .doFinally(signal -> metrics.record(Stage.DEDUP_LOOKUP, start))
+                    .mapNotNull(candidates -> deduplicator.match(normalizedUrl, urlHash, candidates));
+        });
+    }
+
+    /**
+     * Resolves a short URL identifier to its original long URL.
+     *
+     * @param shortUrl short URL identifier (hash code)
+     * @return the long URL, or empty if unknown or expired
+     */
+    @Override
+    public Mono<String> resolve(String shortUrl) {
+        return lookup(shortUrl).map(ResolvedUrl::longUrl);
+    }
+
+    /**
+     * Resolves a short URL identifier to its long URL together with the mapping's expiry.
+     * Concurrent misses for the same code are coalesced into a single load.
+     *
+     * @param shortUrl short URL identifier (hash code)
+     * @return the resolved mapping, or empty if unknown or expired
+     */
+    @Override
+    public Mono<ResolvedUrl> lookup(String shortUrl) {
+        return Mono.defer(() -> {
+            log.debug("Resolving shortUrl={}", shortUrl);
+
+            // in-process cache first, no network hop
+            LocalUrlCache.Entry local = localCache.get(shortUrl);
+            if (local != null) {
+                log.debug("Local cache hit for shortUrl={}", shortUrl);
+                if (localCache.isDueForRefresh(shortUrl, local)) {
+                    refresh(shortUrl);
+                }
+                metrics.count(Outcome.LOCAL_HIT);
+                hitCounts.increment(shortUrl);
+                return Mono.just(new ResolvedUrl(local.longUrl(), local.expiresAt()));
+            }
+            if (localCache.isKnownMissing(shortUrl)) {
+                log.debug("Negative cache hit for shortUrl={}", shortUrl);
+                metrics.count(Outcome.NEGATIVE_HIT);
+                return Mono.empty();
+            }
+
+            // every caller counts, including those that only joined another's load
+            return coalesced(shortUrl).doOnNext(resolved -> hitCounts.increment(shortUrl));
+        });
+    }
+
+    /**
+     * The in-flight load for the code, starting one if there is none. The entry is removed as soon
+     * as the load terminates, so later misses load again.
+     */
+    private Mono<ResolvedUrl> coalesced(String shortUrl) {
+        return loads.computeIfAbsent(shortUrl, code -> load(code)
+                .doFinally(signal -> loads.remove(code))
+                .cache());
+    }
+
+    /**
+     * Loads a mapping from Redis, falling back to Mongo, and fills both cache levels on the way back.
+     * Outcomes are counted per load, so callers coalesced into one load count once.
+     */
+    private Mono<ResolvedUrl> load(String shortUrl) {
+        return Mono.defer(() -> {
+                    // the shared Redis cache first
+                    long start = System.nanoTime();
+                    // both read-only commands are in flight together, one round trip on the shared connection
+                    return Mono.zip(redis.opsForValue().get(cacheKey(shortUrl)), redisExpiry(shortUrl),
+                                    (cached, expiresAt) -> new ResolvedUrl(cached,
+                                            expiresAt == NO_EXPIRY ? null : expiresAt))
+                            .doFinally(signal -> metrics.record(Stage.REDIS_LOOKUP, start));
+                })
+                .doOnNext(fromRedis -> {
+                    log.debug("Cache hit for shortUrl={}", shortUrl);
+                    metrics.count(Outcome.REDIS_HIT);
+                    localCache.put(shortUrl, fromRedis.longUrl(), fromRedis.expiresAt());
+                })
+                .switchIfEmpty(Mono.defer(() -> loadFromDb(shortUrl)));
+    }
+
+    private Mono<ResolvedUrl> loadFromDb(String shortUrl) {
+        // checked after Redis, which already knows codes created on other replicas
+        if (!existenceFilter.mightContain(shortUrl)) {
+            log.debug("Short code filter rejected shortUrl={}", shortUrl);
+            metrics.count(Outcome.FILTERED);
+            localCache.markMissing(shortUrl);
+            return Mono.empty();
+        }
+
+        // fallback to DB lookup
+        long start = System.nanoTime();
+        return repo.findByShortUrl(shortUrl)
+                .doFinally(signal -> metrics.record(Stage.MONGO_LOOKUP, start))
+                .switchIfEmpty(Mono.fromRunnable(() -> {
+                    metrics.count(Outcome.MISS);
+                    existenceFilter.recordFalsePositive();
+                    localCache.markMissing(shortUrl);
+                }))
+                .flatMap(m -> {
+                    if (m.getExpiresAt() != null && !m.getExpiresAt().isAfter(Instant.now())) {
+                        metrics.count(Outcome.EXPIRED);
+                        localCache.markMissing(shortUrl);
+                        return Mono.empty();
+                    }
+
+                    log.debug("Cache miss, found in DB shortUrl={}", shortUrl);
+                    metrics.count(Outcome.DB_HIT);
+                    // round up, a ttl of 0 would cache the mapping forever
+                    long ttl = (m.getExpiresAt() != null)
+                            ? Math.max(1, (Duration.between(Instant.now(), m.getExpiresAt()).toMillis() + 999) / 1000)
+                            : 0;
+                    localCache.put(shortUrl, m.getLongUrl(), m.getExpiresAt());
+                    long backfillStart = System.nanoTime();
+                    return cachePut(shortUrl, m.getLongUrl(), ttl)
+                            .doFinally(signal -> metrics.record(Stage.CACHE_BACKFILL, backfillStart))
+                            .thenReturn(new ResolvedUrl(m.getLongUrl(), m.getExpiresAt()));
+                });
+    }
+
+    /**
+     * Reloads a hot local entry in the background before it expires, so its readers never miss.
+     */
+    private void refresh(String shortUrl) {
+        coalesced(shortUrl).subscribe(null,
+                e -> log.warn("Refresh-ahead failed for shortUrl={}: {}", shortUrl, e.getMessage()));
+    }
+
+    /**
+     * Generators may block (the range generator leases its blocks from Redis), so they run off the event loop.
+     */
+    private Mono<String> generateCode() {
+        return Mono.fromCallable(() -> {
+                    long start = System.nanoTime();
+                    String code = codeGenerator.generate(props.getCodeLength());
+                    metrics.record(Stage.CODE_GENERATION, start);
+                    return code;
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Codes from a collision-free generator don't need the extra round trip.
+     */
+    private Mono<String> checkUnique(String code) {
+        if (codeGenerator.uniqueByConstruction()) {
+            return Mono.just(code);
+        }
+        return repo.existsByShortUrl(code).flatMap(exists -> {
+            if (exists) {
+                log.warn("Alias already exists for code={}", code);
+                return Mono.error(new AliasAlreadyExistsException(code));
+            }
+            return Mono.just(code);
+        });
+    }
+
+    private Mono<Url> retrySave(Url entity) {
+        log.error("Duplicate key for code={}, retrying with longer code", entity.getShortUrl());
+        long start = System.nanoTime();
+        entity.setShortUrl(retryCode());
+        return repo.save(entity)
+                .doOnSuccess(saved -> {
+                    metrics.record(Stage.DUPLICATE_RETRY, start);
+                    log.debug("Retry succeeded with shortUrl={}", saved.getShortUrl());
+                });
+    }
+
+    private Mono<Void> publishInvalidation(String shortUrl) {
+        return Mono.defer(() -> {
+            invalidator.invalidateLocally(shortUrl);
+            return redis.convertAndSend(UrlCacheInvalidator.CHANNEL, shortUrl).then();
+        });
+    }
+
+    private String cacheKey(String shortUrl) {
+        return "url:" + shortUrl;
+    }
+
+    /**
+     * Stores a short URL mapping in Redis with an optional TTL.
+     */
+    private Mono<Boolean> cachePut(String shortUrl, String longUrl, long ttlSeconds) {
+        if (ttlSeconds > 0) {
+            return redis.opsForValue().set(cacheKey(shortUrl), longUrl, Duration.ofSeconds(ttlSeconds));
+        }
+        return redis.opsForValue().set(cacheKey(shortUrl), longUrl);
+    }
+
+    /**
+     * Expiry of a cached mapping, derived from the key's remaining Redis TTL (which mirrors expiresAt).
+     * A key without TTL never expires ({@link #NO_EXPIRY}); a vanished key counts as expiring now.
+     */
+    private Mono<Instant> redisExpiry(String shortUrl) {
+        return redis.getExpire(cacheKey(shortUrl))
+                .map(ttl -> ttl.isZero() ? NO_EXPIRY : Instant.now().plus(ttl))
+                .switchIfEmpty(Mono.fromSupplier(Instant::now));
+    }
+
+    /**
+     * Code used when the generated one is already taken: a random NanoID one character longer.
+     */
+    private String retryCode() {
+        return NanoIdUtils.randomNanoId(
+                NanoIdUtils.DEFAULT_NUMBER_GENERATOR,
+                NanoIdUtils.DEFAULT_ALPHABET,
+                props.getCodeLength() + 1
+        );
+    }
+}
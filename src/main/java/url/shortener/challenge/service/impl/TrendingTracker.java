@@ -0,0 +1,173 @@
+package url.shortener.challenge.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.dto.TrendingResponseDto;
+import url.shortener.challenge.util.HeavyHitters;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks the most clicked codes with time decay. Each replica feeds its own {@link HeavyHitters} with the
+ * batches the {@link HitCountBuffer} drains and, every publish interval, decays it, writes it to one field
+ * of a Redis hash and merges all replicas' fields into the view served by the trending endpoint. Fields
+ * of replicas that stopped publishing are dropped, and if Redis is unreachable this replica's own view
+ * is served.
+ */
+@Component
+public class TrendingTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(TrendingTracker.class);
+
+    static final String KEY = "trending:sketches";
+    private static final byte[] KEY_BYTES = KEY.getBytes(StandardCharsets.UTF_8);
+    private static final int CANDIDATES_PER_RESULT = 4;
+    // publish intervals after which a replica's field is considered abandoned
+    private static final int STALE_AFTER_INTERVALS = 3;
+
+    private final StringRedisTemplate redis;
+    private final AppProperties.Trending cfg;
+    private final byte[] replicaId = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final HeavyHitters local;
+    private long lastDecay = System.currentTimeMillis();
+    private volatile TrendingResponseDto view = new TrendingResponseDto(Instant.EPOCH, 0, List.of());
+
+    public TrendingTracker(StringRedisTemplate redis, AppProperties props) {
+        this.redis = redis;
+        this.cfg = props.getTrending();
+        this.local = cfg.isEnabled() ? newSketch() : null;
+    }
+
+    public boolean isEnabled() {
+        return local != null;
+    }
+
+    /**
+     * Adds a batch of per-code hit counts.
+     */
+    public void record(Map<String, Long> hits) {
+        if (local == null || hits.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            hits.forEach((shortUrl, count) -> local.add(shortUrl, count));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return up to limit codes of the last merged view, heaviest first
+     */
+    public TrendingResponseDto top(int limit) {
+        TrendingResponseDto current = view;
+        List<TrendingResponseDto.Item> items = current.getItems();
+        return new TrendingResponseDto(current.getAsOf(), current.getReplicas(),
+                items.subList(0, Math.min(Math.max(limit, 0), items.size())));
+    }
+
+    /**
+     * Decays this replica's sketch, publishes it and rebuilds the merged view from every replica's sketch.
+     */
+    @Scheduled(fixedDelayString = "${app.trending.publish-interval-ms:5000}")
+    public void publish() {
+        if (local == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        byte[] sketch;
+        lock.lock();
+        try {
+            local.scale(decay(now - lastDecay));
+            lastDecay = now;
+            sketch = local.toBytes();
+        } finally {
+            lock.unlock();
+        }
+        byte[] value = ByteBuffer.allocate(Long.BYTES + sketch.length).putLong(now).put(sketch).array();
+
+        HeavyHitters merged;
+        int replicas;
+        try {
+            Map<byte[], byte[]> published = redis.execute((RedisCallback<Map<byte[], byte[]>>) connection -> {
+                connection.hashCommands().hSet(KEY_BYTES, replicaId, value);
+                connection.keyCommands().pExpire(KEY_BYTES, staleAfterMs());
+                return connection.hashCommands().hGetAll(KEY_BYTES);
+            });
+            merged = newSketch();
+            replicas = merge(merged, published, now);
+        } catch (RuntimeException e) {
+            log.warn("Could not exchange trending sketches through Redis, serving this replica's view: {}",
+                    e.getMessage());
+            merged = HeavyHitters.fromBytes(sketch);
+            replicas = 1;
+        }
+
+        List<TrendingResponseDto.Item> items = new ArrayList<>(cfg.getTopK());
+        for (Map.Entry<String, Double> entry : merged.top(cfg.getTopK())) {
+            items.add(new TrendingResponseDto.Item(entry.getKey(), Math.round(entry.getValue() * 10) / 10.0));
+        }
+        view = new TrendingResponseDto(Instant.ofEpochMilli(now), replicas, List.copyOf(items));
+    }
+
+    /**
+     * Merges the published sketches into target, each decayed by its age, and removes abandoned ones.
+     *
+     * @return the number of sketches merged
+     */
+    private int merge(HeavyHitters target, Map<byte[], byte[]> published, long now) {
+        if (published == null) {
+            return 0;
+        }
+        int merged = 0;
+        List<byte[]> stale = new ArrayList<>();
+        for (Map.Entry<byte[], byte[]> field : published.entrySet()) {
+            ByteBuffer value = ByteBuffer.wrap(field.getValue());
+            long age = Math.max(0, now - value.getLong());
+            if (age > staleAfterMs()) {
+                stale.add(field.getKey());
+                continue;
+            }
+            byte[] sketch = new byte[value.remaining()];
+            value.get(sketch);
+            try {
+                target.merge(HeavyHitters.fromBytes(sketch), decay(age));
+                merged++;
+            } catch (IllegalArgumentException e) {
+                // e.g. a replica still running with a different sketch size during a rollout
+                log.debug("Skipping a trending sketch that cannot be merged: {}", e.getMessage());
+            }
+        }
+        if (!stale.isEmpty()) {
+            redis.execute((RedisCallback<Long>) connection ->
+                    connection.hashCommands().hDel(KEY_BYTES, stale.toArray(new byte[0][])));
+        }
+        return merged;
+    }
+
+    private HeavyHitters newSketch() {
+        return new HeavyHitters(cfg.getSketchWidth(), cfg.getSketchDepth(), cfg.getTopK() * CANDIDATES_PER_RESULT);
+    }
+
+    private double decay(long elapsedMs) {
+        return Math.pow(0.5, (double) elapsedMs / cfg.getHalfLife().toMillis());
+    }
+
+    private long staleAfterMs() {
+        return cfg.getPublishIntervalMs() * STALE_AFTER_INTERVALS;
+    }
+}
@@ -4,21 +4,52 @@ import com.aventrix.jnanoid.jnanoid.NanoIdUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.stereotype.Service;
+import url.shortener.challenge.cache.CodeExistenceFilter;
+import url.shortener.challenge.cache.LocalUrlCache;
+import url.shortener.challenge.cache.ResolveIndex;
+import url.shortener.challenge.cache.UrlCacheInvalidator;
 import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.constants.ErrorMessages;
+import url.shortener.challenge.dto.BulkCreateResultDto;
 import url.shortener.challenge.dto.LongUrlRequestDto;
+import url.shortener.challenge.dto.ResolveResultDto;
 import url.shortener.challenge.dto.ShortUrlResponseDto;
 import url.shortener.challenge.entity.Url;
 import url.shortener.challenge.exception.AliasAlreadyExistsException;
+import url.shortener.challenge.exception.BackendBusyException;
 import url.shortener.challenge.exception.UrlNotFoundException;
 import url.shortener.challenge.repository.UrlRepository;
 import url.shortener.challenge.service.CodeGenerator;
+import url.shortener.challenge.service.ResolvedUrl;
 import url.shortener.challenge.service.UrlService;
+import url.shortener.challenge.util.Bulkheads;
+import url.shortener.challenge.util.Bulkheads.Backend;
+import url.shortener.challenge.util.Hashing;
+import url.shortener.challenge.util.SingleFlight;
+import url.shortener.challenge.util.UrlMetrics;
+import url.shortener.challenge.util.UrlMetrics.Outcome;
+import url.shortener.challenge.util.UrlMetrics.Stage;
+import url.shortener.challenge.util.UrlNormalizer;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 @Service
 public class UrlServiceImpl implements UrlService {
@@ -29,60 +60,216 @@ public class UrlServiceImpl implements UrlService {
     private final AppProperties props;
     private final StringRedisTemplate redis;
     private final CodeGenerator codeGenerator;
+    private final LocalUrlCache localCache;
+    private final UrlCacheInvalidator invalidator;
+    private final HitCountBuffer hitCounts;
+    private final CodeExistenceFilter existenceFilter;
+    private final UrlMetrics metrics;
+    private final Bulkheads bulkheads;
+    private final LongUrlDeduplicator deduplicator;
+    private final WriteBehindJournal journal;
+    private final ResolveIndex resolveIndex;
+    // one Redis/Mongo load per code at a time, concurrent misses share its result
+    private final SingleFlight<String, Optional<ResolvedUrl>> loads = new SingleFlight<>();
+    private final Executor refreshExecutor = task -> Thread.ofVirtual().name("url-refresh").start(task);
 
     public UrlServiceImpl(UrlRepository repo, AppProperties props, StringRedisTemplate redis,
-                          CodeGenerator codeGenerator) {
+                          CodeGenerator codeGenerator, LocalUrlCache localCache,
+                          UrlCacheInvalidator invalidator, HitCountBuffer hitCounts,
+                          CodeExistenceFilter existenceFilter, UrlMetrics metrics, Bulkheads bulkheads,
+                          LongUrlDeduplicator deduplicator, WriteBehindJournal journal,
+                          ResolveIndex resolveIndex) {
         this.repo = repo;
         this.props = props;
         this.redis = redis;
         this.codeGenerator = codeGenerator;
+        this.localCache = localCache;
+        this.invalidator = invalidator;
+        this.hitCounts = hitCounts;
+        this.existenceFilter = existenceFilter;
+        this.metrics = metrics;
+        this.bulkheads = bulkheads;
+        this.deduplicator = deduplicator;
+        this.journal = journal;
+        this.resolveIndex = resolveIndex;
     }
 
     /**
      * Generates and stores a short code for the given long URL.
+     * With dedup enabled, a long URL that already has a live code gets that code back instead.
+     * With write-behind enabled, the mapping is journaled locally and reaches Mongo with the next flush.
      *
      * @param req long URL request
      * @return response containing the short code
      */
     @Override
     public ShortUrlResponseDto create(LongUrlRequestDto req) {
-        log.info("Creating short URL for longUrl={}", req.getLongUrl());
+        log.debug("Creating short URL for longUrl={}", req.getLongUrl());
 
-        // generate NanoID with configurable length
-        String code = codeGenerator.generate(props.getCodeLength());
+        String normalizedUrl = UrlNormalizer.normalize(req.getLongUrl());
+        long urlHash = Hashing.hash64(normalizedUrl);
+        if (deduplicator.isEnabled()) {
+            String existing = deduplicator.find(normalizedUrl, urlHash);
+            if (existing != null) {
+                log.debug("Returning existing shortUrl={} for longUrl={}", existing, req.getLongUrl());
+                return new ShortUrlResponseDto(existing);
+            }
+        }
+
+        // generate code with configurable length
+        long start = System.nanoTime();
+        String generated = codeGenerator.generate(props.getCodeLength());
+        metrics.record(Stage.CODE_GENERATION, start);
 
-        if (repo.existsByShortUrl(code)) {
-            log.warn("Alias already exists for code={}", code);
-            throw new AliasAlreadyExistsException(code);
+        // codes from a collision-free generator don't need the extra round trip
+        if (!codeGenerator.uniqueByConstruction()
+                && bulkheads.call(Backend.MONGO, () -> repo.existsByShortUrl(generated))) {
+            log.warn("Alias already exists for code={}", generated);
+            throw new AliasAlreadyExistsException(generated);
         }
+        String code = generated;
 
+        // a ttl of 0 means the mapping never expires
         long ttl = props.getDefaultTtlSeconds();
-        Instant expiresAt = Instant.now().plusSeconds(ttl);
+        Instant expiresAt = ttl > 0 ? Instant.now().plusSeconds(ttl) : null;
 
         Url entity = new Url();
         entity.setShortUrl(code);
         entity.setLongUrl(req.getLongUrl());
+        entity.setLongUrlHash(urlHash);
         entity.setExpiresAt(expiresAt);
 
-        try {
-            repo.save(entity);
-            log.debug("Saved shortUrl={} with ttl={}s", code, ttl);
-        } catch (DuplicateKeyException e) {
-            log.error("Duplicate key for code={}, retrying with longer code", code);
-            code = NanoIdUtils.randomNanoId(
-                    NanoIdUtils.DEFAULT_NUMBER_GENERATOR,
-                    NanoIdUtils.DEFAULT_ALPHABET,
-                    props.getCodeLength() + 1
-            );
-            entity.setShortUrl(code);
-            repo.save(entity);
-            log.debug("Retry succeeded with shortUrl={}", code);
+        if (journal.isEnabled()) {
+            // the journal only accepts generators that are unique by construction, so there is nothing to retry
+            journal.append(entity);
+            log.debug("Journaled shortUrl={} with ttl={}s", code, ttl);
+        } else {
+            try {
+                bulkheads.call(Backend.MONGO, () -> repo.save(entity));
+                log.debug("Saved shortUrl={} with ttl={}s", code, ttl);
+            } catch (DuplicateKeyException e) {
+                log.error("Duplicate key for code={}, retrying with longer code", code);
+                start = System.nanoTime();
+                code = retryCode();
+                entity.setShortUrl(code);
+                bulkheads.call(Backend.MONGO, () -> repo.save(entity));
+                metrics.record(Stage.DUPLICATE_RETRY, start);
+                log.debug("Retry succeeded with shortUrl={}", code);
+            }
         }
 
+        start = System.nanoTime();
         cachePut(code, entity.getLongUrl(), ttl);
+        metrics.record(Stage.CACHE_BACKFILL, start);
+        // drop whatever another replica may still hold for a reused code
+        invalidator.publish(code);
+        deduplicator.remember(normalizedUrl, urlHash, code, expiresAt);
         return new ShortUrlResponseDto(entity.getShortUrl());
     }
 
+    /**
+     * Stores a chunk of long URLs with one unordered insertMany and caches them in one Redis pipeline.
+     * Items whose code is taken are retried once with a longer code, like {@link #create}.
+     * With dedup enabled, URLs that already have a live code get it back (looked up with one $in query),
+     * and repeats of a URL within the chunk share one new code.
+     *
+     * @param requests validated long URL requests
+     * @return one result per request, in request order
+     */
+    @Override
+    public List<BulkCreateResultDto> createAll(List<LongUrlRequestDto> requests) {
+        log.debug("Creating {} short URLs in bulk", requests.size());
+
+        long ttl = props.getDefaultTtlSeconds();
+        Instant expiresAt = ttl > 0 ? Instant.now().plusSeconds(ttl) : null;
+
+        List<String> normalizedUrls = new ArrayList<>(requests.size());
+        Map<String, Long> hashes = new HashMap<>();
+        for (LongUrlRequestDto req : requests) {
+            String normalizedUrl = UrlNormalizer.normalize(req.getLongUrl());
+            normalizedUrls.add(normalizedUrl);
+            hashes.computeIfAbsent(normalizedUrl, Hashing::hash64);
+        }
+        boolean dedup = deduplicator.isEnabled();
+        Map<String, String> existing = dedup ? deduplicator.findAll(hashes) : Map.of();
+
+        // position in entities of the mapping each request gets, -1 for an existing code
+        int[] entityOf = new int[requests.size()];
+        Map<String, Integer> firstEntity = new HashMap<>();
+        List<Url> entities = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            String normalizedUrl = normalizedUrls.get(i);
+            if (existing.containsKey(normalizedUrl)) {
+                entityOf[i] = -1;
+                continue;
+            }
+            Integer first = dedup ? firstEntity.putIfAbsent(normalizedUrl, entities.size()) : null;
+            if (first != null) {
+                entityOf[i] = first;
+                continue;
+            }
+            Url entity = new Url();
+            long start = System.nanoTime();
+            entity.setShortUrl(codeGenerator.generate(props.getCodeLength()));
+            metrics.record(Stage.CODE_GENERATION, start);
+            entity.setLongUrl(requests.get(i).getLongUrl());
+            entity.setLongUrlHash(hashes.get(normalizedUrl));
+            entity.setExpiresAt(expiresAt);
+            entityOf[i] = entities.size();
+            entities.add(entity);
+        }
+
+        Set<Integer> failed = new HashSet<>();
+        Set<Integer> duplicates = bulkheads.call(Backend.MONGO, () -> repo.insertAllUnordered(entities));
+        if (!duplicates.isEmpty()) {
+            log.warn("{} duplicate codes in bulk insert, retrying with longer codes", duplicates.size());
+            long start = System.nanoTime();
+            List<Integer> positions = new ArrayList<>(duplicates);
+            positions.sort(null);
+            List<Url> retries = new ArrayList<>(positions.size());
+            for (int position : positions) {
+                Url entity = entities.get(position);
+                entity.setShortUrl(retryCode());
+                retries.add(entity);
+            }
+            for (int retry : bulkheads.call(Backend.MONGO, () -> repo.insertAllUnordered(retries))) {
+                failed.add(positions.get(retry));
+            }
+            metrics.record(Stage.DUPLICATE_RETRY, start);
+        }
+
+        List<BulkCreateResultDto> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            if (entityOf[i] < 0) {
+                results.add(BulkCreateResultDto.created(existing.get(normalizedUrls.get(i))));
+                continue;
+            }
+            Url entity = entities.get(entityOf[i]);
+            if (failed.contains(entityOf[i])) {
+                results.add(BulkCreateResultDto.failed(ErrorMessages.ALIAS_EXISTS.getCode(),
+                        ErrorMessages.ALIAS_EXISTS.getMessage() + entity.getShortUrl()));
+            } else {
+                results.add(BulkCreateResultDto.created(entity.getShortUrl()));
+            }
+        }
+
+        List<Url> created = new ArrayList<>(entities.size());
+        for (int i = 0; i < entities.size(); i++) {
+            if (!failed.contains(i)) {
+                Url entity = entities.get(i);
+                created.add(entity);
+                if (dedup) {
+                    deduplicator.remember(UrlNormalizer.normalize(entity.getLongUrl()), entity.getLongUrlHash(),
+                            entity.getShortUrl(), entity.getExpiresAt());
+                }
+            }
+        }
+        long start = System.nanoTime();
+        cachePutAll(created, true);
+        metrics.record(Stage.CACHE_BACKFILL, start);
+        return results;
+    }
+
     /**
      * Resolves a short URL identifier to its original long URL.
      *
@@ -92,30 +279,257 @@ public class UrlServiceImpl implements UrlService {
      */
     @Override
     public Optional<String> resolve(String shortUrl) {
-        log.info("Resolving shortUrl={}", shortUrl);
+        return lookup(shortUrl).map(ResolvedUrl::longUrl);
+    }
 
-        // check cache first
-        String cached = redis.opsForValue().get(cacheKey(shortUrl));
-        if (cached != null) {
+    /**
+     * Resolves a short URL identifier to its long URL together with the mapping's expiry.
+     * Concurrent misses for the same code are coalesced into a single load.
+     *
+     * @param shortUrl short URL identifier (hash code)
+     * @return the resolved mapping, or empty if unknown or expired
+     */
+    @Override
+    public Optional<ResolvedUrl> lookup(String shortUrl) {
+        log.debug("Resolving shortUrl={}", shortUrl);
+
+        // in-process cache first, no network hop
+        LocalUrlCache.Entry local = localCache.get(shortUrl);
+        if (local != null) {
+            log.debug("Local cache hit for shortUrl={}", shortUrl);
+            if (localCache.isDueForRefresh(shortUrl, local)) {
+                refresh(shortUrl);
+            }
+            metrics.count(Outcome.LOCAL_HIT);
+            hitCounts.increment(shortUrl);
+            return Optional.of(new ResolvedUrl(local.longUrl(), local.expiresAt()));
+        }
+        // the full-dataset index is checked before the negative cache, it may know a code created since
+        ResolveIndex.Entry indexed = resolveIndex.get(shortUrl);
+        if (indexed != null) {
+            metrics.count(Outcome.INDEX_HIT);
+            hitCounts.increment(shortUrl);
+            return Optional.of(new ResolvedUrl(indexed.longUrl(), indexed.expiresAt()));
+        }
+        if (localCache.isKnownMissing(shortUrl)) {
+            log.debug("Negative cache hit for shortUrl={}", shortUrl);
+            metrics.count(Outcome.NEGATIVE_HIT);
+            return Optional.empty();
+        }
+
+        Optional<ResolvedUrl> resolved = loads.execute(shortUrl, () -> load(shortUrl));
+        // every caller counts, including those that only waited for another's load
+        resolved.ifPresent(r -> hitCounts.increment(shortUrl));
+        return resolved;
+    }
+
+    /**
+     * Loads a mapping from Redis, falling back to Mongo, and fills both cache levels on the way back.
+     * Outcomes are counted per load, so callers coalesced into one load count once.
+     */
+    private Optional<ResolvedUrl> load(String shortUrl) {
+        // the shared Redis cache first
+        long start = System.nanoTime();
+        ResolvedUrl fromRedis = bulkheads.call(Backend.REDIS,
+                () -> cachedEntry(redis.executePipelined((RedisCallback<Object>) connection -> {
+                    // read-only commands, so replica reads (app.redis.read-from) still apply
+                    byte[] key = cacheKey(shortUrl).getBytes(StandardCharsets.UTF_8);
+                    connection.stringCommands().get(key);
+                    connection.keyCommands().pTtl(key);
+                    return null;
+                })));
+        metrics.record(Stage.REDIS_LOOKUP, start);
+        if (fromRedis != null) {
             log.debug("Cache hit for shortUrl={}", shortUrl);
-            incrementHitAsync(shortUrl);
-            return Optional.of(cached);
+            metrics.count(Outcome.REDIS_HIT);
+            localCache.put(shortUrl, fromRedis.longUrl(), fromRedis.expiresAt());
+            return Optional.of(fromRedis);
+        }
+
+        // created here but not flushed to Mongo yet; Redis may have lost it already
+        Url journaled = journaled(shortUrl);
+        if (journaled != null) {
+            metrics.count(Outcome.DB_HIT);
+            localCache.put(shortUrl, journaled.getLongUrl(), journaled.getExpiresAt());
+            return Optional.of(new ResolvedUrl(journaled.getLongUrl(), journaled.getExpiresAt()));
+        }
+
+        // checked after Redis, which already knows codes created on other replicas
+        if (!existenceFilter.mightContain(shortUrl)) {
+            log.debug("Short code filter rejected shortUrl={}", shortUrl);
+            metrics.count(Outcome.FILTERED);
+            localCache.markMissing(shortUrl);
+            return Optional.empty();
         }
 
         // fallback to DB lookup
-        return repo.findByShortUrl(shortUrl)
-                .filter(m -> m.getExpiresAt() == null || m.getExpiresAt().isAfter(Instant.now()))
-                .map(m -> {
-                    log.debug("Cache miss, found in DB shortUrl={}", shortUrl);
-                    long ttl = (m.getExpiresAt() != null)
-                            ? Math.max(0, m.getExpiresAt().getEpochSecond() - Instant.now().getEpochSecond())
-                            : 0;
-                    cachePut(shortUrl, m.getLongUrl(), ttl);
-                    incrementHitAsync(shortUrl);
-                    return m.getLongUrl();
+        start = System.nanoTime();
+        Optional<Url> stored = bulkheads.call(Backend.MONGO, () -> repo.findByShortUrl(shortUrl));
+        metrics.record(Stage.MONGO_LOOKUP, start);
+        if (stored.isEmpty()) {
+            metrics.count(Outcome.MISS);
+            existenceFilter.recordFalsePositive();
+            localCache.markMissing(shortUrl);
+            return Optional.empty();
+        }
+        Url m = stored.get();
+        if (m.getExpiresAt() != null && !m.getExpiresAt().isAfter(Instant.now())) {
+            metrics.count(Outcome.EXPIRED);
+            localCache.markMissing(shortUrl);
+            return Optional.empty();
+        }
+
+        log.debug("Cache miss, found in DB shortUrl={}", shortUrl);
+        metrics.count(Outcome.DB_HIT);
+        // round up, a ttl of 0 would cache the mapping forever
+        long ttl = (m.getExpiresAt() != null)
+                ? Math.max(1, (Duration.between(Instant.now(), m.getExpiresAt()).toMillis() + 999) / 1000)
+                : 0;
+        backfill(() -> cachePut(shortUrl, m.getLongUrl(), ttl));
+        localCache.put(shortUrl, m.getLongUrl(), m.getExpiresAt());
+        return Optional.of(new ResolvedUrl(m.getLongUrl(), m.getExpiresAt()));
+    }
+
+    /**
+     * Reloads a hot local entry in the background before it expires, so its readers never miss.
+     */
+    private void refresh(String shortUrl) {
+        loads.executeAsync(shortUrl, () -> load(shortUrl), refreshExecutor)
+                .exceptionally(e -> {
+                    log.warn("Refresh-ahead failed for shortUrl={}: {}", shortUrl, e.getMessage());
+                    return Optional.empty();
                 });
     }
 
+    /**
+     * Resolves many codes at once: local cache and resolve index first, then one MGET for the rest, then one $in query
+     * for what Redis didn't have, the write-behind journal doesn't hold and the short code filter doesn't rule out.
+     * Mongo hits are written back to Redis in a single pipeline.
+     *
+     * @param shortUrls codes to resolve; duplicates are resolved once
+     * @return one result per distinct code, in request order
+     */
+    @Override
+    public Map<String, ResolveResultDto> resolveAll(Collection<String> shortUrls) {
+        log.debug("Resolving {} short urls in batch", shortUrls.size());
+
+        // null placeholders keep the request order, they are filled in below
+        Map<String, ResolveResultDto> results = new LinkedHashMap<>();
+        List<String> pending = new ArrayList<>();
+        for (String shortUrl : new LinkedHashSet<>(shortUrls)) {
+            LocalUrlCache.Entry local = localCache.get(shortUrl);
+            ResolveIndex.Entry indexed = local == null ? resolveIndex.get(shortUrl) : null;
+            if (local != null) {
+                results.put(shortUrl, ResolveResultDto.found(local.longUrl()));
+                metrics.count(Outcome.LOCAL_HIT);
+                hitCounts.increment(shortUrl);
+            } else if (indexed != null) {
+                results.put(shortUrl, ResolveResultDto.found(indexed.longUrl()));
+                metrics.count(Outcome.INDEX_HIT);
+                hitCounts.increment(shortUrl);
+            } else if (localCache.isKnownMissing(shortUrl)) {
+                results.put(shortUrl, ResolveResultDto.notFound());
+                metrics.count(Outcome.NEGATIVE_HIT);
+            } else {
+                results.put(shortUrl, null);
+                pending.add(shortUrl);
+            }
+        }
+        if (pending.isEmpty()) {
+            return results;
+        }
+
+        long start = System.nanoTime();
+        List<String> cached = bulkheads.call(Backend.REDIS,
+                () -> redis.opsForValue().multiGet(pending.stream().map(this::cacheKey).toList()));
+        metrics.record(Stage.REDIS_LOOKUP, start);
+        List<String> misses = new ArrayList<>();
+        for (int i = 0; i < pending.size(); i++) {
+            String longUrl = cached != null ? cached.get(i) : null;
+            // like load(), before anything may report the code missing; a journaled code leaves the
+            // journal only after it is in Mongo, so one that is gone by now is found by the $in query
+            Url journaled = longUrl == null ? journaled(pending.get(i)) : null;
+            if (longUrl != null) {
+                results.put(pending.get(i), ResolveResultDto.found(longUrl));
+                metrics.count(Outcome.REDIS_HIT);
+                hitCounts.increment(pending.get(i));
+            } else if (journaled != null) {
+                results.put(pending.get(i), ResolveResultDto.found(journaled.getLongUrl()));
+                metrics.count(Outcome.DB_HIT);
+                localCache.put(pending.get(i), journaled.getLongUrl(), journaled.getExpiresAt());
+                hitCounts.increment(pending.get(i));
+            } else if (existenceFilter.mightContain(pending.get(i))) {
+                misses.add(pending.get(i));
+            } else {
+                results.put(pending.get(i), ResolveResultDto.notFound());
+                metrics.count(Outcome.FILTERED);
+                localCache.markMissing(pending.get(i));
+            }
+        }
+        if (misses.isEmpty()) {
+            return results;
+        }
+
+        Instant now = Instant.now();
+        List<Url> backfill = new ArrayList<>();
+        start = System.nanoTime();
+        List<Url> stored = bulkheads.call(Backend.MONGO, () -> repo.findByShortUrlIn(misses));
+        metrics.record(Stage.MONGO_LOOKUP, start);
+        for (Url m : stored) {
+            if (m.getExpiresAt() != null && !m.getExpiresAt().isAfter(now)) {
+                results.put(m.getShortUrl(), ResolveResultDto.expired());
+                metrics.count(Outcome.EXPIRED);
+                localCache.markMissing(m.getShortUrl());
+                continue;
+            }
+            results.put(m.getShortUrl(), ResolveResultDto.found(m.getLongUrl()));
+            metrics.count(Outcome.DB_HIT);
+            localCache.put(m.getShortUrl(), m.getLongUrl(), m.getExpiresAt());
+            hitCounts.increment(m.getShortUrl());
+            backfill.add(m);
+        }
+        for (String shortUrl : misses) {
+            if (results.get(shortUrl) == null) {
+                results.put(shortUrl, ResolveResultDto.notFound());
+                metrics.count(Outcome.MISS);
+                existenceFilter.recordFalsePositive();
+                localCache.markMissing(shortUrl);
+            }
+        }
+
+        backfill(() -> cachePutAll(backfill, false));
+        log.debug("Batch resolve: {} local, {} redis, {} from db",
+                results.size() - pending.size(), pending.size() - misses.size(), backfill.size());
+        return results;
+    }
+
+    /**
+     * Fills the local cache and Redis with the given mappings, the latter in one pipeline.
+     * Used by {@link CacheWarmer} before the replica takes traffic.
+     *
+     * @param entities mappings read from Mongo
+     */
+    public void preload(List<Url> entities) {
+        for (Url entity : entities) {
+            localCache.put(entity.getShortUrl(), entity.getLongUrl(), entity.getExpiresAt());
+        }
+        cachePutAll(entities, false);
+    }
+
+    /**
+     * Writes a Mongo result back to Redis through the Redis bulkhead. The caller already has its
+     * answer, so a full bulkhead skips the write rather than failing the request.
+     */
+    private void backfill(Runnable write) {
+        long start = System.nanoTime();
+        try {
+            bulkheads.run(Backend.REDIS, write);
+        } catch (BackendBusyException e) {
+            log.debug("Skipped cache backfill, Redis bulkhead is full");
+        }
+        metrics.record(Stage.CACHE_BACKFILL, start);
+    }
+
     private String cacheKey(String shortUrl) {
         return "url:" + shortUrl;
     }
@@ -125,7 +539,7 @@ public class UrlServiceImpl implements UrlService {
      */
     private void cachePut(String shortUrl, String longUrl, long ttlSeconds) {
         if (ttlSeconds > 0) {
-            redis.opsForValue().set(cacheKey(shortUrl), longUrl, java.time.Duration.ofSeconds(ttlSeconds));
+            redis.opsForValue().set(cacheKey(shortUrl), longUrl, Duration.ofSeconds(ttlSeconds));
             log.debug("Cached shortUrl={} with ttl={}s", shortUrl, ttlSeconds);
         } else {
             redis.opsForValue().set(cacheKey(shortUrl), longUrl);
@@ -134,14 +548,72 @@ public class UrlServiceImpl implements UrlService {
     }
 
     /**
-     * Asynchronously increments the hit count for the given short URL.
+     * Stores mappings in Redis, each until its own expiresAt, in a single pipeline.
+     * With {@code publishInvalidation} the codes are also broadcast on the invalidation channel.
      */
-    @Async
-    void incrementHitAsync(String shortUrl) {
-        repo.findByShortUrl(shortUrl).ifPresent(m -> {
-            m.setHitCount(m.getHitCount() + 1);
-            repo.save(m);
-            log.debug("Incremented hit count for shortUrl={} (new count={})", shortUrl, m.getHitCount());
+    private void cachePutAll(List<Url> entities, boolean publishInvalidation) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        redis.executePipelined((RedisCallback<Object>) connection -> {
+            for (Url entity : entities) {
+                Expiration expiration = Expiration.persistent();
+                if (entity.getExpiresAt() != null) {
+                    long ttlMillis = Duration.between(now, entity.getExpiresAt()).toMillis();
+                    if (ttlMillis <= 0) {
+                        continue;
+                    }
+                    expiration = Expiration.milliseconds(ttlMillis);
+                }
+                connection.stringCommands().set(
+                        cacheKey(entity.getShortUrl()).getBytes(StandardCharsets.UTF_8),
+                        entity.getLongUrl().getBytes(StandardCharsets.UTF_8),
+                        expiration,
+                        RedisStringCommands.SetOption.upsert());
+                if (publishInvalidation) {
+                    invalidator.publish(connection, entity.getShortUrl());
+                }
+            }
+            return null;
         });
+        log.debug("Cached {} short urls", entities.size());
+    }
+
+    /**
+     * @return the unexpired mapping created on this replica and not flushed to Mongo yet, or null
+     */
+    private Url journaled(String shortUrl) {
+        Url journaled = journal.pending(shortUrl);
+        if (journaled == null
+                || (journaled.getExpiresAt() != null && !journaled.getExpiresAt().isAfter(Instant.now()))) {
+            return null;
+        }
+        return journaled;
+    }
+
+    /**
+     * Code used when the generated one is already taken: a random NanoID one character longer.
+     */
+    private String retryCode() {
+        return NanoIdUtils.randomNanoId(
+                NanoIdUtils.DEFAULT_NUMBER_GENERATOR,
+                NanoIdUtils.DEFAULT_ALPHABET,
+                props.getCodeLength() + 1
+        );
+    }
+
+    /**
+     * Mapping from a pipelined GET and PTTL, or null when the key is absent. The expiry is derived from the
+     * key's remaining TTL (which mirrors expiresAt): a key without TTL never expires, and one that vanished
+     * between the two commands counts as expiring now.
+     */
+    private static ResolvedUrl cachedEntry(List<Object> reply) {
+        if (reply.size() < 2 || reply.get(0) == null) {
+            return null;
+        }
+        long ttlMillis = reply.get(1) instanceof Number ttl ? ttl.longValue() : -2;
+        Instant expiresAt = ttlMillis == -1 ? null : Instant.now().plusMillis(Math.max(0, ttlMillis));
+        return new ResolvedUrl((String) reply.get(0), expiresAt);
     }
 }
@@ -0,0 +1,457 @@
+package url.shortener.challenge.service.impl;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import url.shortener.challenge.cache.UrlCacheInvalidator;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.entity.Url;
+import url.shortener.challenge.repository.UrlRepository;
+import url.shortener.challenge.service.CodeGenerator;
+import url.shortener.challenge.util.Bulkheads;
+import url.shortener.challenge.util.Bulkheads.Backend;
+import url.shortener.challenge.util.UrlMetrics;
+import url.shortener.challenge.util.UrlMetrics.Stage;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Local journal behind the write-behind create path. Creates are appended as CRC'd records to the active
+ * segment file; each flush seals that segment, writes its entries to Mongo with unordered bulk inserts and
+ * deletes the file. Segments left over from a crash are replayed by the first flush after startup, and a
+ * torn record at the end of a segment is dropped. A code that is already stored with the same long URL counts
+ * as written, so a segment replayed after a partial flush is harmless. One stored with another long URL is a
+ * collision: the journaled mapping is lost, so its cache entries are evicted and the conflict is logged and
+ * counted ({@code url.write.behind.conflicts}).
+ * <p>
+ * Until its flush, a create is only visible through Redis and {@link #pending} on this replica.
+ */
+@Component
+public class WriteBehindJournal implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindJournal.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    // length + crc32c
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    private final UrlRepository repo;
+    private final UrlCacheInvalidator invalidator;
+    private final Bulkheads bulkheads;
+    private final UrlMetrics metrics;
+    private final boolean enabled;
+    private final AppProperties.Durability durability;
+    private final Path dir;
+    private final int batchSize;
+
+    // lock order: flushLock, syncLock, appendLock
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    // creates not in Mongo yet, by code
+    private final Map<String, Url> pending = new ConcurrentHashMap<>();
+    // sealed segments waiting for the flush, oldest first
+    private final ConcurrentLinkedDeque<Segment> sealed = new ConcurrentLinkedDeque<>();
+    private Segment active;
+    private long nextSegmentId;
+    // records appended and records known to be on disk
+    private volatile long written;
+    private volatile long synced;
+    private final AtomicLong conflicts = new AtomicLong();
+
+    public WriteBehindJournal(UrlRepository repo, AppProperties props, CodeGenerator codeGenerator,
+                              UrlCacheInvalidator invalidator, Bulkheads bulkheads, UrlMetrics metrics) {
+        this.repo = repo;
+        this.invalidator = invalidator;
+        this.bulkheads = bulkheads;
+        this.metrics = metrics;
+        AppProperties.WriteBehind cfg = props.getWriteBehind();
+        this.enabled = cfg.isEnabled();
+        this.durability = cfg.getDurability();
+        this.dir = Path.of(cfg.getJournalDir());
+        this.batchSize = Math.max(1, cfg.getBatchSize());
+        if (!enabled) {
+            return;
+        }
+        // nothing is checked against Mongo before the flush, so codes must never repeat
+        if (!codeGenerator.uniqueByConstruction()) {
+            throw new IllegalStateException(
+                    "app.write-behind.enabled requires a code generator that is unique by construction, e.g. app.code-generator=range");
+        }
+        try {
+            Files.createDirectories(dir);
+            recover();
+            active = openSegment(nextSegmentId++);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open write-behind journal in " + dir.toAbsolutePath(), e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Journals a new mapping. With {@link AppProperties.Durability#FSYNC} this returns once the record is on disk.
+     *
+     * @param entity mapping with a code that is unique by construction
+     */
+    public void append(Url entity) {
+        long start = System.nanoTime();
+        ByteBuffer record = encode(entity);
+        long sequence;
+        appendLock.lock();
+        try {
+            while (record.hasRemaining()) {
+                active.channel.write(record);
+            }
+            active.entries.add(entity);
+            pending.put(entity.getShortUrl(), entity);
+            sequence = ++written;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to write-behind journal", e);
+        } finally {
+            appendLock.unlock();
+        }
+        if (durability == AppProperties.Durability.FSYNC) {
+            syncUpTo(sequence);
+        }
+        metrics.record(Stage.JOURNAL_APPEND, start);
+    }
+
+    /**
+     * @return the journaled mapping for a code that hasn't been flushed to Mongo yet, or null
+     */
+    public Url pending(String shortUrl) {
+        return pending.get(shortUrl);
+    }
+
+    /**
+     * Fsyncs the active segment for {@link AppProperties.Durability#INTERVAL}.
+     */
+    @Scheduled(fixedDelayString = "${app.write-behind.sync-interval-ms:10}")
+    public void sync() {
+        if (enabled && durability == AppProperties.Durability.INTERVAL && synced < written) {
+            syncUpTo(written);
+        }
+    }
+
+    /**
+     * Seals the active segment and writes every sealed segment to Mongo, oldest first.
+     * A segment whose write fails stays on disk and in memory for the next run.
+     */
+    @Scheduled(fixedDelayString = "${app.write-behind.flush-interval-ms:200}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            seal();
+            Segment segment;
+            while ((segment = sealed.peek()) != null) {
+                long start = System.nanoTime();
+                insert(segment.entries);
+                Files.delete(segment.path);
+                sealed.poll();
+                for (Url entity : segment.entries) {
+                    pending.remove(entity.getShortUrl(), entity);
+                }
+                metrics.record(Stage.WRITE_BEHIND_FLUSH, start);
+                log.debug("Flushed {} journaled creates from {}", segment.entries.size(), segment.path.getFileName());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Write-behind flush failed, {} creates stay journaled for the next run", pending.size(), e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        if (!enabled) {
+            return;
+        }
+        flush();
+        syncLock.lock();
+        appendLock.lock();
+        try {
+            active.channel.force(false);
+            active.channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close write-behind journal segment {}", active.path, e);
+        } finally {
+            appendLock.unlock();
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Group commit: whoever takes the lock fsyncs everything written so far, and waiters it covered return at once.
+     */
+    private void syncUpTo(long sequence) {
+        syncLock.lock();
+        try {
+            if (synced >= sequence) {
+                return;
+            }
+            long target;
+            FileChannel channel;
+            appendLock.lock();
+            try {
+                target = written;
+                channel = active.channel;
+            } finally {
+                appendLock.unlock();
+            }
+            // segments are only sealed under syncLock, so the channel can't be closed under us
+            channel.force(false);
+            synced = target;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to sync write-behind journal", e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void seal() throws IOException {
+        syncLock.lock();
+        appendLock.lock();
+        try {
+            if (active.entries.isEmpty()) {
+                return;
+            }
+            active.channel.force(false);
+            active.channel.close();
+            synced = written;
+            sealed.add(active);
+            active = openSegment(nextSegmentId++);
+        } finally {
+            appendLock.unlock();
+            syncLock.unlock();
+        }
+    }
+
+    private void insert(List<Url> entities) {
+        for (int from = 0; from < entities.size(); from += batchSize) {
+            List<Url> batch = entities.subList(from, Math.min(entities.size(), from + batchSize));
+            Set<Integer> existing = bulkheads.call(Backend.MONGO, () -> repo.insertAllUnordered(batch));
+            if (!existing.isEmpty()) {
+                checkReplayed(existing.stream().map(batch::get).toList());
+            }
+        }
+    }
+
+    /**
+     * Tells creates replayed after a partial flush, stored with the same long URL, from codes that were already
+     * taken by another mapping.
+     */
+    private void checkReplayed(List<Url> duplicates) {
+        Map<String, Url> stored = bulkheads.call(Backend.MONGO,
+                        () -> repo.findByShortUrlIn(duplicates.stream().map(Url::getShortUrl).toList()))
+                .stream()
+                .collect(Collectors.toMap(Url::getShortUrl, Function.identity(), (a, b) -> a));
+        int replayed = 0;
+        for (Url journaled : duplicates) {
+            Url existing = stored.get(journaled.getShortUrl());
+            // gone again (expired or deleted) since the insert: nothing left to conflict with
+            if (existing == null || Objects.equals(existing.getLongUrl(), journaled.getLongUrl())) {
+                replayed++;
+                continue;
+            }
+            conflicts.incrementAndGet();
+            invalidator.evict(journaled.getShortUrl());
+            log.error("Journaled create for shortUrl={} collided with a stored mapping: kept longUrl={}, lost longUrl={}",
+                    journaled.getShortUrl(), existing.getLongUrl(), journaled.getLongUrl());
+        }
+        if (replayed > 0) {
+            log.debug("{} journaled creates were already in Mongo", replayed);
+        }
+    }
+
+    /**
+     * Queues the segments a previous run left behind for the next flush.
+     */
+    private void recover() throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(dir)) {
+            segments = files.filter(f -> segmentId(f) >= 0)
+                    .sorted((a, b) -> Long.compare(segmentId(a), segmentId(b)))
+                    .toList();
+        }
+        for (Path path : segments) {
+            nextSegmentId = Math.max(nextSegmentId, segmentId(path) + 1);
+            List<Url> entries = read(path);
+            if (entries.isEmpty()) {
+                Files.delete(path);
+                continue;
+            }
+            for (Url entity : entries) {
+                pending.put(entity.getShortUrl(), entity);
+            }
+            sealed.add(new Segment(path, null, entries));
+        }
+        if (!pending.isEmpty()) {
+            log.info("Recovered {} unflushed creates from the write-behind journal", pending.size());
+        }
+    }
+
+    private Segment openSegment(long id) throws IOException {
+        Path path = dir.resolve(SEGMENT_PREFIX + id + SEGMENT_SUFFIX);
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return new Segment(path, channel, new ArrayList<>());
+    }
+
+    private static long segmentId(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name, SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length(), 10);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Record layout: payload length, CRC32C of the payload, payload.
+     */
+    private static ByteBuffer encode(Url entity) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeString(out, entity.getShortUrl());
+            writeString(out, entity.getLongUrl());
+            out.writeBoolean(entity.getLongUrlHash() != null);
+            if (entity.getLongUrlHash() != null) {
+                out.writeLong(entity.getLongUrlHash());
+            }
+            writeInstant(out, entity.getCreatedAt());
+            writeInstant(out, entity.getExpiresAt());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] payload = bytes.toByteArray();
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return ByteBuffer.allocate(HEADER_BYTES + payload.length)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .flip();
+    }
+
+    /**
+     * Reads records until the end of the file or the first torn or corrupt one.
+     */
+    private static List<Url> read(Path path) throws IOException {
+        List<Url> entries = new ArrayList<>();
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return entries;
+                }
+                int checksum = in.readInt();
+                if (length < 0 || length > MAX_RECORD_BYTES) {
+                    throw new EOFException("bad record length " + length);
+                }
+                byte[] payload = in.readNBytes(length);
+                CRC32C crc = new CRC32C();
+                crc.update(payload);
+                if (payload.length < length || (int) crc.getValue() != checksum) {
+                    throw new EOFException("torn or corrupt record");
+                }
+                entries.add(decode(payload));
+            }
+        } catch (EOFException e) {
+            log.warn("Dropped the tail of write-behind journal segment {} after {} records: {}",
+                    path.getFileName(), entries.size(), e.getMessage());
+            return entries;
+        }
+    }
+
+    private static Url decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        Url entity = new Url();
+        entity.setShortUrl(readString(in));
+        entity.setLongUrl(readString(in));
+        if (in.readBoolean()) {
+            entity.setLongUrlHash(in.readLong());
+        }
+        entity.setCreatedAt(readInstant(in));
+        entity.setExpiresAt(readInstant(in));
+        return entity;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8);
+    }
+
+    private static void writeInstant(DataOutputStream out, Instant value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getEpochSecond());
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+        return in.readBoolean() ? Instant.ofEpochSecond(in.readLong(), in.readInt()) : null;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("url.write.behind.conflicts", conflicts, AtomicLong::get)
+                .description("Journaled creates whose code was already stored with another long URL")
+                .register(registry);
+    }
+
+    private record Segment(Path path, FileChannel channel, List<Url> entries) {
+    }
+}
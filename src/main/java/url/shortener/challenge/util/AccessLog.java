@@ -0,0 +1,207 @@
+package url.shortener.challenge.util;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import url.shortener.challenge.config.AppProperties;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Access log decoupled from request latency. Request threads claim a preallocated slot in a
+ * bounded lock-free ring (multi-producer, single consumer) and copy a few references into it;
+ * nothing is formatted and nothing blocks. A background thread drains the ring every flush
+ * interval and writes each batch as logfmt lines in a single call to the {@code access} logger.
+ * When the ring is full events are dropped and counted rather than slowing requests down.
+ */
+@Component
+public class AccessLog implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(AccessLog.class);
+    private static final Logger access = LoggerFactory.getLogger("access");
+
+    private final boolean enabled;
+    private final double sampleRate;
+    private final boolean alwaysLogErrors;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Consumer<CharSequence> sink;
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head; // consumer thread only
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread consumer;
+
+    @Autowired
+    public AccessLog(AppProperties props) {
+        this(props, batch -> access.info(batch.toString()));
+    }
+
+    AccessLog(AppProperties props, Consumer<CharSequence> sink) {
+        AppProperties.AccessLog cfg = props.getAccessLog();
+        this.enabled = cfg.isEnabled();
+        this.sampleRate = cfg.getSampleRate();
+        this.alwaysLogErrors = cfg.isAlwaysLogErrors();
+        this.batchSize = Math.max(1, cfg.getBatchSize());
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(cfg.getFlushIntervalMs());
+        this.sink = sink;
+        int size = Integer.highestOneBit(Math.max(2, cfg.getBufferSize()) - 1) << 1;
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot(i);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Records one request, subject to sampling.
+     *
+     * @param startNanos {@link System#nanoTime()} taken when the request began
+     * @return false if the event was sampled out or dropped
+     */
+    public boolean record(String method, String uri, int status, long startNanos, String client) {
+        if (!enabled || !sampled(status)) {
+            return false;
+        }
+        long durationNanos = System.nanoTime() - startNanos;
+        long pos = tail.get();
+        while (true) {
+            Slot slot = slots[(int) pos & mask];
+            long diff = slot.sequence - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slot.timestamp = System.currentTimeMillis();
+                    slot.method = method;
+                    slot.uri = uri;
+                    slot.status = status;
+                    slot.durationNanos = durationNanos;
+                    slot.client = client;
+                    slot.sequence = pos + 1; // publish
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                dropped.incrementAndGet();
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    private boolean sampled(int status) {
+        if (status >= 400 && alwaysLogErrors) {
+            return true;
+        }
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        consumer = Thread.ofPlatform().name("access-log").daemon().start(() -> {
+            while (running) {
+                if (drain() < batchSize) {
+                    LockSupport.parkNanos(flushIntervalNanos);
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+            consumer.join(TimeUnit.SECONDS.toMillis(5));
+            drainAll();
+        }
+    }
+
+    private void drainAll() {
+        while (drain() > 0) {
+            // keep going until the ring is empty
+        }
+    }
+
+    /**
+     * Writes up to one batch of events. Only ever called from a single thread at a time.
+     *
+     * @return number of events written
+     */
+    int drain() {
+        StringBuilder batch = null;
+        int count = 0;
+        while (count < batchSize) {
+            Slot slot = slots[(int) head & mask];
+            if (slot.sequence != head + 1) {
+                break;
+            }
+            if (batch == null) {
+                batch = new StringBuilder(batchSize * 96);
+            } else {
+                batch.append('\n');
+            }
+            batch.append("ts=").append(Instant.ofEpochMilli(slot.timestamp))
+                    .append(" method=").append(slot.method)
+                    .append(" uri=").append(slot.uri)
+                    .append(" status=").append(slot.status)
+                    .append(" micros=").append(slot.durationNanos / 1000)
+                    .append(" client=").append(slot.client);
+            slot.method = null;
+            slot.uri = null;
+            slot.client = null;
+            slot.sequence = head + slots.length; // hand the slot back to producers
+            head++;
+            count++;
+        }
+        if (batch != null) {
+            try {
+                sink.accept(batch);
+            } catch (RuntimeException e) {
+                log.warn("Failed to write {} access events", count, e);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("access.log.dropped", dropped, AtomicLong::get)
+                .description("Access events dropped because the buffer was full")
+                .register(registry);
+    }
+
+    private static final class Slot {
+        // position this slot is free for (== pos) or holds an event for (== pos + 1)
+        private volatile long sequence;
+        private long timestamp;
+        private String method;
+        private String uri;
+        private int status;
+        private long durationNanos;
+        private String client;
+
+        Slot(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package url.shortener.challenge.util;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.exception.BackendBusyException;
+
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Semaphore bulkheads bounding concurrent calls per backend. With virtual threads nothing else caps
+ * how many requests wait on a slow Mongo or Redis, so a call that can't get a permit within the
+ * acquire timeout fails fast with {@link BackendBusyException} (503) instead of queueing.
+ */
+@Component
+public class Bulkheads implements MeterBinder {
+
+    public enum Backend {
+        MONGO, REDIS
+    }
+
+    private final Semaphore[] permits = new Semaphore[Backend.values().length];
+    private final int[] limits = new int[Backend.values().length];
+    private final AtomicLong[] rejections = new AtomicLong[Backend.values().length];
+    private final long acquireTimeoutNanos;
+
+    public Bulkheads(AppProperties props) {
+        AppProperties.Bulkhead cfg = props.getBulkhead();
+        limits[Backend.MONGO.ordinal()] = cfg.getMongoMaxConcurrent();
+        limits[Backend.REDIS.ordinal()] = cfg.getRedisMaxConcurrent();
+        for (Backend backend : Backend.values()) {
+            permits[backend.ordinal()] = new Semaphore(limits[backend.ordinal()]);
+            rejections[backend.ordinal()] = new AtomicLong();
+        }
+        this.acquireTimeoutNanos = cfg.getAcquireTimeout().toNanos();
+    }
+
+    public <T> T call(Backend backend, Supplier<T> call) {
+        Semaphore semaphore = acquire(backend);
+        try {
+            return call.get();
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    public void run(Backend backend, Runnable call) {
+        Semaphore semaphore = acquire(backend);
+        try {
+            call.run();
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    private Semaphore acquire(Backend backend) {
+        Semaphore semaphore = permits[backend.ordinal()];
+        try {
+            if (semaphore.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                return semaphore;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejections[backend.ordinal()].incrementAndGet();
+        throw new BackendBusyException(backend.name().toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Backend backend : Backend.values()) {
+            String name = backend.name().toLowerCase(Locale.ROOT);
+            int i = backend.ordinal();
+            Gauge.builder("bulkhead.in.use", this, b -> b.limits[i] - b.permits[i].availablePermits())
+                    .tag("backend", name)
+                    .register(registry);
+            FunctionCounter.builder("bulkhead.rejections", rejections[i], AtomicLong::get)
+                    .tag("backend", name)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package url.shortener.challenge.util;
+
+/**
+ * Count-min sketch with conservative update over decaying (double) counts. Estimates never undercount,
+ * and overcount by at most about e/width of the total weight with probability 1 - e^-depth. Memory is
+ * width x depth counters however many keys are added. Not thread-safe.
+ */
+public class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final double[] counters;
+
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("Sketch width and depth must be positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counters = new double[width * depth];
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Adds weight to the key, raising only the counters that hold its current minimum.
+     *
+     * @return the key's estimate after the update
+     */
+    public double add(CharSequence key, double weight) {
+        long hash = Hashing.hash64(key);
+        double estimate = estimate(hash) + weight;
+        long h2 = Hashing.mix64(hash);
+        for (int row = 0; row < depth; row++) {
+            int slot = slot(row, hash, h2);
+            if (counters[slot] < estimate) {
+                counters[slot] = estimate;
+            }
+        }
+        return estimate;
+    }
+
+    public double estimate(CharSequence key) {
+        return estimate(Hashing.hash64(key));
+    }
+
+    /**
+     * Multiplies every counter, e.g. by 0.5 once per half-life.
+     */
+    public void scale(double factor) {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] *= factor;
+        }
+    }
+
+    /**
+     * Adds another sketch's counters. Sums of sketches still never undercount, so sketches built on
+     * different replicas merge into one for the combined stream.
+     */
+    public void merge(CountMinSketch other, double factor) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Only sketches of the same dimensions can be merged");
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] += other.counters[i] * factor;
+        }
+    }
+
+    double[] counters() {
+        return counters;
+    }
+
+    private double estimate(long hash) {
+        long h2 = Hashing.mix64(hash);
+        double min = Double.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters[slot(row, hash, h2)]);
+        }
+        return min;
+    }
+
+    private int slot(int row, long hash, long h2) {
+        // Kirsch-Mitzenmacher double hashing, one column per row
+        return row * width + (int) (((hash + (row + 1) * h2) & Long.MAX_VALUE) % width);
+    }
+}
@@ -0,0 +1,35 @@
+package url.shortener.challenge.util;
+
+/**
+ * Small, allocation-free 64-bit string hashing.
+ */
+public final class Hashing {
+
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private Hashing() {
+    }
+
+    /**
+     * FNV-1a over the UTF-16 code units, finished with the SplitMix64 mixer so every input bit
+     * affects every output bit.
+     */
+    public static long hash64(CharSequence value) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= FNV_PRIME;
+        }
+        return mix64(h);
+    }
+
+    /**
+     * SplitMix64 finalizer.
+     */
+    public static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,151 @@
+package url.shortener.challenge.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Heaviest keys of a decaying stream: a {@link CountMinSketch} estimates every key's weight, and the
+ * {@code capacity} keys with the highest estimates are kept as candidates. A key enters the candidates
+ * by outweighing the lightest one, so memory stays bounded however many distinct keys are seen.
+ * Not thread-safe.
+ */
+public class HeavyHitters {
+
+    private static final int FORMAT = 1;
+
+    private final CountMinSketch sketch;
+    private final int capacity;
+    private final Map<String, double[]> candidates = new HashMap<>();
+    // never above the lightest candidate's score, so most keys are turned away without a scan
+    private double floor;
+
+    public HeavyHitters(int width, int depth, int capacity) {
+        this.sketch = new CountMinSketch(width, depth);
+        this.capacity = Math.max(1, capacity);
+    }
+
+    public void add(String key, double weight) {
+        offer(key, sketch.add(key, weight));
+    }
+
+    /**
+     * Decays every weight, e.g. by 0.5 once per half-life.
+     */
+    public void scale(double factor) {
+        sketch.scale(factor);
+        candidates.values().forEach(score -> score[0] *= factor);
+        floor *= factor;
+    }
+
+    /**
+     * Adds another instance's weights, scaled by factor, and re-ranks the union of both candidate sets.
+     */
+    public void merge(HeavyHitters other, double factor) {
+        sketch.merge(other.sketch, factor);
+        List<String> keys = new ArrayList<>(candidates.keySet());
+        keys.addAll(other.candidates.keySet());
+        candidates.clear();
+        floor = 0;
+        for (String key : keys) {
+            offer(key, sketch.estimate(key));
+        }
+    }
+
+    /**
+     * @return up to n candidates with their current estimates, heaviest first
+     */
+    public List<Map.Entry<String, Double>> top(int n) {
+        List<Map.Entry<String, Double>> ranked = new ArrayList<>(candidates.size());
+        candidates.keySet().forEach(key -> ranked.add(Map.entry(key, sketch.estimate(key))));
+        ranked.sort(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()));
+        return ranked.subList(0, Math.min(n, ranked.size()));
+    }
+
+    /**
+     * Layout: format, width, depth, capacity, counters as floats, candidate count, candidate keys.
+     * Candidate scores are not written, they are re-estimated from the counters.
+     */
+    public byte[] toBytes() {
+        int size = sketch.counters().length * Float.BYTES + candidates.size() * 16;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(size);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            out.writeInt(sketch.width());
+            out.writeInt(sketch.depth());
+            out.writeInt(capacity);
+            for (double counter : sketch.counters()) {
+                out.writeFloat((float) counter);
+            }
+            out.writeInt(candidates.size());
+            for (String key : candidates.keySet()) {
+                out.writeUTF(key);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static HeavyHitters fromBytes(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readByte() != FORMAT) {
+                throw new IllegalArgumentException("Unknown heavy hitters format");
+            }
+            int width = in.readInt();
+            int depth = in.readInt();
+            if ((long) width * depth * Float.BYTES > data.length) {
+                throw new IllegalArgumentException("Truncated heavy hitters data");
+            }
+            HeavyHitters decoded = new HeavyHitters(width, depth, in.readInt());
+            double[] counters = decoded.sketch.counters();
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] = in.readFloat();
+            }
+            int keys = in.readInt();
+            for (int i = 0; i < keys; i++) {
+                String key = in.readUTF();
+                decoded.offer(key, decoded.sketch.estimate(key));
+            }
+            return decoded;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Truncated heavy hitters data", e);
+        }
+    }
+
+    private void offer(String key, double estimate) {
+        double[] score = candidates.get(key);
+        if (score != null) {
+            score[0] = estimate;
+            return;
+        }
+        if (candidates.size() < capacity) {
+            candidates.put(key, new double[]{estimate});
+            return;
+        }
+        if (estimate <= floor) {
+            return;
+        }
+        Map.Entry<String, double[]> lightest = null;
+        for (Map.Entry<String, double[]> candidate : candidates.entrySet()) {
+            if (lightest == null || candidate.getValue()[0] < lightest.getValue()[0]) {
+                lightest = candidate;
+            }
+        }
+        double lightestScore = lightest.getValue()[0];
+        if (estimate > lightestScore) {
+            candidates.remove(lightest.getKey());
+            candidates.put(key, new double[]{estimate});
+        }
+        // every candidate left, including a new one, weighs at least as much as the lightest did
+        floor = lightestScore;
+    }
+}
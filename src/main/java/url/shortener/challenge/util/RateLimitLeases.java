@@ -0,0 +1,74 @@
+package url.shortener.challenge.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import url.shortener.challenge.config.AppProperties;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tokens leased per rate limit key for local admission, shared by {@link RateLimiter} and
+ * {@link ReactiveRateLimiter}. A rejection is remembered until Redis says to retry.
+ */
+final class RateLimitLeases {
+
+    private final Cache<String, Lease> leases;
+
+    RateLimitLeases(AppProperties.RateLimit cfg) {
+        this.leases = Caffeine.newBuilder()
+                .maximumSize(cfg.getMaxLocalKeys())
+                .expireAfterWrite(cfg.getLeaseTtl())
+                .build();
+    }
+
+    /**
+     * @return the local decision for the key, or null when tokens have to be leased from Redis
+     */
+    Boolean tryAdmit(String redisKey) {
+        Lease lease = leases.getIfPresent(redisKey);
+        if (lease != null) {
+            if (lease.tokens.decrementAndGet() >= 0) {
+                return Boolean.TRUE;
+            }
+            if (System.nanoTime() < lease.retryAtNanos) {
+                return Boolean.FALSE;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Keeps what's left of a fresh grant after admitting the current request from it.
+     * @return whether the current request is admitted
+     */
+    boolean admit(String redisKey, Grant grant) {
+        long retryAt = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(grant.retryAfterMicros());
+        leases.put(redisKey, new Lease(Math.max(0, grant.granted() - 1), retryAt));
+        return grant.granted() > 0;
+    }
+
+    /**
+     * Reply of the GCRA script: tokens granted and how long until the next one frees up.
+     */
+    record Grant(long granted, long retryAfterMicros) {
+
+        static Grant of(List<?> reply) {
+            if (reply == null || reply.size() < 2) {
+                throw new IllegalStateException("Unexpected rate limit script reply: " + reply);
+            }
+            return new Grant(((Number) reply.get(0)).longValue(), ((Number) reply.get(1)).longValue());
+        }
+    }
+
+    private static final class Lease {
+        private final AtomicLong tokens;
+        private final long retryAtNanos;
+
+        Lease(long tokens, long retryAtNanos) {
+            this.tokens = new AtomicLong(tokens);
+            this.retryAtNanos = retryAtNanos;
+        }
+    }
+}
@@ -1,24 +1,109 @@
 package url.shortener.challenge.util;
 
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.util.RateLimitLeases.Grant;
 
-import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * GCRA rate limiter: every decision is one atomic script call against a single Redis key holding
+ * the key's theoretical arrival time, so there are no window edges to burst across.
+ * With local admission enabled, each replica leases a batch of tokens per key in one call and
+ * admits from it in memory; a rejection is also remembered until Redis says to retry.
+ */
 @Component
+@ImportRuntimeHints(RateLimiter.ScriptHints.class)
 public class RateLimiter {
+
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> GCRA = RedisScript.of(new ClassPathResource("scripts/gcra.lua"), List.class);
+
     private final StringRedisTemplate redis;
+    private final AppProperties.RateLimit cfg;
+    private final RateLimitLeases leases;
+    private final UrlMetrics metrics;
+    private final Bulkheads bulkheads;
 
-    public RateLimiter(StringRedisTemplate redis) {
+    public RateLimiter(StringRedisTemplate redis, AppProperties props, UrlMetrics metrics, Bulkheads bulkheads) {
         this.redis = redis;
+        this.metrics = metrics;
+        this.bulkheads = bulkheads;
+        this.cfg = props.getRateLimit();
+        this.leases = new RateLimitLeases(cfg);
+    }
+
+    /**
+     * @param route configured route name, see {@link AppProperties.RateLimit#getRoutes()}
+     * @param key   the caller, usually the client IP
+     * @return whether the request may proceed
+     */
+    public boolean allow(String route, String key) {
+        long start = System.nanoTime();
+        try {
+            return decide(route, key);
+        } finally {
+            metrics.record(UrlMetrics.Stage.RATE_LIMIT, start);
+        }
+    }
+
+    private boolean decide(String route, String key) {
+        AppProperties.Limit limit = limitFor(cfg, route);
+        String redisKey = redisKey(route, key);
+        if (!cfg.isLocalAdmission()) {
+            return acquire(redisKey, limit, key, 1).granted() > 0;
+        }
+
+        Boolean local = leases.tryAdmit(redisKey);
+        if (local != null) {
+            return local;
+        }
+        return leases.admit(redisKey, acquire(redisKey, limit, key, Math.max(1, cfg.getLeaseSize())));
+    }
+
+    private Grant acquire(String redisKey, AppProperties.Limit limit, String key, long wanted) {
+        List<String> args = scriptArgs(limit, key, wanted);
+        List<?> reply = bulkheads.call(Bulkheads.Backend.REDIS,
+                () -> redis.execute(GCRA, List.of(redisKey), args.toArray()));
+        return Grant.of(reply);
+    }
+
+    static AppProperties.Limit limitFor(AppProperties.RateLimit cfg, String route) {
+        AppProperties.Limit limit = cfg.getRoutes().get(route);
+        if (limit == null) {
+            throw new IllegalArgumentException("No rate limit configured for route " + route);
+        }
+        return limit;
+    }
+
+    static String redisKey(String route, String key) {
+        return "rate:" + route + ":" + key;
+    }
+
+    /**
+     * GCRA script arguments: emission interval and burst tolerance in microseconds, then tokens wanted.
+     */
+    static List<String> scriptArgs(AppProperties.Limit limit, String key, long wanted) {
+        long perPeriod = Math.max(1, limit.getKeys().getOrDefault(key, limit.getLimit()));
+        long burst = limit.getBurst() > 0 ? limit.getBurst() : perPeriod;
+        long interval = Math.max(1, TimeUnit.NANOSECONDS.toMicros(limit.getPeriod().toNanos()) / perPeriod);
+        return List.of(Long.toString(interval), Long.toString(interval * burst), Long.toString(wanted));
     }
 
-    public boolean allow(String key, int maxPerMinute) {
-        String redisKey = "rate:" + key + ":" + (System.currentTimeMillis() / 60000);
-        Long count = redis.opsForValue().increment(redisKey);
-        if (count == 1) {
-            redis.expire(redisKey, Duration.ofMinutes(2));
+    /**
+     * Keeps the Lua script in a native image, where classpath resources are only included on request.
+     */
+    static class ScriptHints implements RuntimeHintsRegistrar {
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.resources().registerPattern("scripts/*.lua");
         }
-        return count <= maxPerMinute;
     }
 }
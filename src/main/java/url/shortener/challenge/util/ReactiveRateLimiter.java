@@ -0,0 +1,66 @@
+package url.shortener.challenge.util;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.util.RateLimitLeases.Grant;
+
+import java.util.List;
+
+/**
+ * {@link RateLimiter} on reactive Redis commands: same GCRA script, keys, limits and local admission.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRateLimiter {
+
+    private final ReactiveStringRedisTemplate redis;
+    private final AppProperties.RateLimit cfg;
+    private final RateLimitLeases leases;
+    private final UrlMetrics metrics;
+
+    public ReactiveRateLimiter(ReactiveStringRedisTemplate redis, AppProperties props, UrlMetrics metrics) {
+        this.redis = redis;
+        this.metrics = metrics;
+        this.cfg = props.getRateLimit();
+        this.leases = new RateLimitLeases(cfg);
+    }
+
+    /**
+     * @param route configured route name, see {@link AppProperties.RateLimit#getRoutes()}
+     * @param key   the caller, usually the client IP
+     * @return whether the request may proceed
+     */
+    public Mono<Boolean> allow(String route, String key) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return decide(route, key)
+                    .doFinally(signal -> metrics.record(UrlMetrics.Stage.RATE_LIMIT, start));
+        });
+    }
+
+    private Mono<Boolean> decide(String route, String key) {
+        AppProperties.Limit limit = RateLimiter.limitFor(cfg, route);
+        String redisKey = RateLimiter.redisKey(route, key);
+        if (!cfg.isLocalAdmission()) {
+            return acquire(redisKey, limit, key, 1).map(grant -> grant.granted() > 0);
+        }
+
+        Boolean local = leases.tryAdmit(redisKey);
+        if (local != null) {
+            return Mono.just(local);
+        }
+        return acquire(redisKey, limit, key, Math.max(1, cfg.getLeaseSize()))
+                .map(grant -> leases.admit(redisKey, grant));
+    }
+
+    private Mono<Grant> acquire(String redisKey, AppProperties.Limit limit, String key, long wanted) {
+        return redis.execute(RateLimiter.GCRA, List.of(redisKey), RateLimiter.scriptArgs(limit, key, wanted))
+                .collectList()
+                // depending on the driver a multi-bulk reply arrives as one list or element by element
+                .map(items -> items.size() == 1 && items.get(0) instanceof List<?> nested ? nested : items)
+                .map(Grant::of);
+    }
+}
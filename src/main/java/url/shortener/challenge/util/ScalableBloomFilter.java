@@ -0,0 +1,144 @@
+package url.shortener.challenge.util;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe scalable Bloom filter (Almeida et al.): a chain of plain Bloom filters where each new
+ * slice doubles the capacity and halves the false-positive rate, so the overall rate stays bounded
+ * by twice the initial one however many elements are added. There are no false negatives.
+ */
+public class ScalableBloomFilter {
+
+    private static final int GROWTH = 2;
+    private static final double TIGHTENING = 0.5;
+
+    private final List<Slice> slices = new CopyOnWriteArrayList<>();
+
+    public ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        slices.add(new Slice(Math.max(1, initialCapacity), falsePositiveRate * (1 - TIGHTENING)));
+    }
+
+    public boolean mightContain(CharSequence value) {
+        long hash = Hashing.hash64(value);
+        for (Slice slice : slices) {
+            if (slice.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void put(CharSequence value) {
+        long hash = Hashing.hash64(value);
+        for (Slice slice : slices) {
+            if (slice.mightContain(hash)) {
+                return;
+            }
+        }
+        Slice last = slices.get(slices.size() - 1);
+        if (last.count.get() >= last.capacity) {
+            last = grow(last);
+        }
+        last.put(hash);
+    }
+
+    /**
+     * False-positive probability estimated from how full each slice actually is.
+     */
+    public double expectedFalsePositiveRate() {
+        double allMiss = 1;
+        for (Slice slice : slices) {
+            allMiss *= 1 - slice.expectedFalsePositiveRate();
+        }
+        return 1 - allMiss;
+    }
+
+    public long approximateElementCount() {
+        long count = 0;
+        for (Slice slice : slices) {
+            count += slice.count.get();
+        }
+        return count;
+    }
+
+    public long bitSize() {
+        long bits = 0;
+        for (Slice slice : slices) {
+            bits += slice.numBits;
+        }
+        return bits;
+    }
+
+    private synchronized Slice grow(Slice full) {
+        Slice last = slices.get(slices.size() - 1);
+        if (last != full) {
+            // another thread already grew the chain
+            return last;
+        }
+        Slice next = new Slice(full.capacity * GROWTH, full.falsePositiveRate * TIGHTENING);
+        slices.add(next);
+        return next;
+    }
+
+    private static final class Slice {
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final long numBits;
+        private final int numHashes;
+        private final AtomicLongArray words;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong bitsSet = new AtomicLong();
+
+        Slice(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.numBits = Math.max(64, (bits + 63) / 64 * 64);
+            this.numHashes = Math.max(1, (int) Math.round((double) numBits / capacity * Math.log(2)));
+            this.words = new AtomicLongArray((int) (numBits / 64));
+        }
+
+        boolean mightContain(long hash) {
+            long h2 = Hashing.mix64(hash);
+            for (int i = 1; i <= numHashes; i++) {
+                long bit = index(hash + i * h2);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void put(long hash) {
+            long h2 = Hashing.mix64(hash);
+            for (int i = 1; i <= numHashes; i++) {
+                long bit = index(hash + i * h2);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = words.get(word);
+                    if ((current & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(word, current, current | mask));
+                if ((current & mask) == 0) {
+                    bitsSet.incrementAndGet();
+                }
+            }
+            count.incrementAndGet();
+        }
+
+        double expectedFalsePositiveRate() {
+            return Math.pow((double) bitsSet.get() / numBits, numHashes);
+        }
+
+        private long index(long combined) {
+            // Kirsch-Mitzenmacher double hashing, kept non-negative
+            return (combined & Long.MAX_VALUE) % numBits;
+        }
+    }
+}
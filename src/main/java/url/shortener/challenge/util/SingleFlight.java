@@ -0,0 +1,74 @@
+package url.shortener.challenge.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the loader, everyone
+ * arriving while it runs waits for and shares its result (or exception). Nothing is cached
+ * once the load completes.
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the loader on the calling thread unless a load for the key is already in flight.
+     */
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return await(running);
+        }
+        run(key, loader, mine);
+        return await(mine);
+    }
+
+    /**
+     * Starts the loader on the executor unless a load for the key is already in flight,
+     * in which case that load's future is returned.
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<V> loader, Executor executor) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return running;
+        }
+        try {
+            executor.execute(() -> run(key, loader, mine));
+        } catch (RuntimeException e) {
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(e);
+        }
+        return mine;
+    }
+
+    private void run(K key, Supplier<V> loader, CompletableFuture<V> future) {
+        try {
+            future.complete(loader.get());
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package url.shortener.challenge.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stage timers ({@code url.stage}, tagged by stage, with percentile histograms) and resolve outcome
+ * counters ({@code url.resolve}, tagged by outcome). All meters are registered up front, so recording
+ * is an array lookup plus the meter update, with no tag resolution on the hot path.
+ */
+@Component
+public class UrlMetrics {
+
+    public enum Stage {
+        REDIS_LOOKUP, MONGO_LOOKUP, CACHE_BACKFILL, CODE_GENERATION, DUPLICATE_RETRY, RATE_LIMIT, DEDUP_LOOKUP,
+        JOURNAL_APPEND, WRITE_BEHIND_FLUSH
+    }
+
+    public enum Outcome {
+        LOCAL_HIT, INDEX_HIT, NEGATIVE_HIT, REDIS_HIT, DB_HIT, FILTERED, MISS, EXPIRED
+    }
+
+    private final Timer[] timers = new Timer[Stage.values().length];
+    private final Counter[] counters = new Counter[Outcome.values().length];
+
+    public UrlMetrics(MeterRegistry registry) {
+        for (Stage stage : Stage.values()) {
+            timers[stage.ordinal()] = Timer.builder("url.stage")
+                    .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(50_000))
+                    .maximumExpectedValue(Duration.ofSeconds(5))
+                    .register(registry);
+        }
+        for (Outcome outcome : Outcome.values()) {
+            counters[outcome.ordinal()] = Counter.builder("url.resolve")
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+        }
+    }
+
+    /**
+     * @param startNanos {@link System#nanoTime()} taken when the stage began
+     */
+    public void record(Stage stage, long startNanos) {
+        timers[stage.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void count(Outcome outcome) {
+        counters[outcome.ordinal()].increment();
+    }
+}
@@ -0,0 +1,50 @@
+package url.shortener.challenge.util;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Locale;
+
+/**
+ * Syntax-based URL normalization (RFC 3986 section 6.2.2): scheme and host are lower-cased,
+ * the scheme's default port is dropped and an empty path becomes "/". Everything else,
+ * including percent-encoding, query and fragment, is kept as submitted.
+ */
+public final class UrlNormalizer {
+
+    private UrlNormalizer() {
+    }
+
+    /**
+     * @return the normalized URL, or the input unchanged if it can't be parsed as an absolute URL
+     */
+    public static String normalize(String url) {
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            return url;
+        }
+        if (uri.getScheme() == null || uri.getRawAuthority() == null || uri.getHost() == null) {
+            return url;
+        }
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(url.length()).append(scheme).append("://");
+        if (uri.getRawUserInfo() != null) {
+            sb.append(uri.getRawUserInfo()).append('@');
+        }
+        sb.append(uri.getHost().toLowerCase(Locale.ROOT));
+        int port = uri.getPort();
+        if (port != -1 && !(port == 80 && scheme.equals("http")) && !(port == 443 && scheme.equals("https"))) {
+            sb.append(':').append(port);
+        }
+        String path = uri.getRawPath();
+        sb.append(path == null || path.isEmpty() ? "/" : path);
+        if (uri.getRawQuery() != null) {
+            sb.append('?').append(uri.getRawQuery());
+        }
+        if (uri.getRawFragment() != null) {
+            sb.append('#').append(uri.getRawFragment());
+        }
+        return sb.toString();
+    }
+}
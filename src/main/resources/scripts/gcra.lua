@@ -0,0 +1,29 @@
+-- GCRA (generic cell rate algorithm) with partial grants.
+-- KEYS[1]  theoretical arrival time (TAT) of the next request, in microseconds
+-- ARGV[1]  emission interval: microseconds per request
+-- ARGV[2]  burst tolerance: how far the TAT may run ahead of now, in microseconds
+-- ARGV[3]  requests wanted
+-- Returns {granted, retry after in microseconds}; grants as many of the wanted requests as fit.
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+local interval = tonumber(ARGV[1])
+local tolerance = tonumber(ARGV[2])
+local wanted = tonumber(ARGV[3])
+
+local tat = tonumber(redis.call('GET', KEYS[1]) or now)
+if tat < now then
+    tat = now
+end
+
+local granted = math.floor((tolerance - (tat - now)) / interval)
+if granted > wanted then
+    granted = wanted
+end
+if granted <= 0 then
+    return {0, tat + interval - tolerance - now}
+end
+
+tat = tat + granted * interval
+-- %.0f keeps all digits, tostring would round the microsecond timestamp
+redis.call('SET', KEYS[1], string.format('%.0f', tat), 'PX', math.ceil((tat - now) / 1000) + 1)
+return {granted, 0}
@@ -0,0 +1,102 @@
+package url.shortener.challenge.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import url.shortener.challenge.config.AppProperties;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalUrlCacheTest {
+
+    private AppProperties props;
+
+    @BeforeEach
+    void setUp() {
+        props = new AppProperties();
+        props.getLocalCache().setMaxTtl(Duration.ofMinutes(1));
+    }
+
+    @Test
+    void put_ShouldCapTtlAtMappingExpiry() {
+        LocalUrlCache cache = new LocalUrlCache(props);
+        Instant expiresAt = Instant.now().plusSeconds(5);
+
+        cache.put("abc123", "https://example.com", expiresAt);
+
+        LocalUrlCache.Entry entry = cache.get("abc123");
+        assertThat(entry.longUrl()).isEqualTo("https://example.com");
+        assertThat(entry.ttlNanos()).isLessThanOrEqualTo(Duration.ofSeconds(5).toNanos());
+    }
+
+    @Test
+    void put_ShouldUseMaxTtl_WhenMappingNeverExpires() {
+        LocalUrlCache cache = new LocalUrlCache(props);
+
+        cache.put("abc123", "https://example.com", null);
+
+        assertThat(cache.get("abc123").ttlNanos()).isEqualTo(Duration.ofMinutes(1).toNanos());
+    }
+
+    @Test
+    void put_ShouldSkipExpiredMappings() {
+        LocalUrlCache cache = new LocalUrlCache(props);
+
+        cache.put("abc123", "https://example.com", Instant.now().minusSeconds(1));
+
+        assertThat(cache.get("abc123")).isNull();
+    }
+
+    @Test
+    void get_ShouldMiss_WhenDisabled() {
+        props.getLocalCache().setEnabled(false);
+        LocalUrlCache cache = new LocalUrlCache(props);
+
+        cache.put("abc123", "https://example.com", null);
+
+        assertThat(cache.get("abc123")).isNull();
+    }
+
+    @Test
+    void invalidate_ShouldDropEntry() {
+        LocalUrlCache cache = new LocalUrlCache(props);
+        cache.put("abc123", "https://example.com", null);
+
+        cache.invalidate("abc123");
+
+        assertThat(cache.get("abc123")).isNull();
+    }
+
+    @Test
+    void invalidate_ShouldForgetKnownMissingCode() {
+        LocalUrlCache cache = new LocalUrlCache(props);
+        cache.markMissing("abc123");
+        assertThat(cache.isKnownMissing("abc123")).isTrue();
+
+        cache.invalidate("abc123");
+
+        assertThat(cache.isKnownMissing("abc123")).isFalse();
+    }
+
+    @Test
+    void isDueForRefresh_ShouldOnlyFlagEntriesNearLocalExpiry_ThatOutliveIt() {
+        props.getLocalCache().setMaxTtl(Duration.ofSeconds(5));
+        props.getLocalCache().setRefreshAhead(Duration.ofSeconds(10));
+        LocalUrlCache cache = new LocalUrlCache(props);
+        cache.put("forever", "https://example.com", null);
+        cache.put("short", "https://example.com", Instant.now().plusSeconds(3));
+
+        assertThat(cache.isDueForRefresh("forever", cache.get("forever"))).isTrue();
+        assertThat(cache.isDueForRefresh("short", cache.get("short"))).isFalse();
+    }
+
+    @Test
+    void isDueForRefresh_ShouldBeOff_ByDefault() {
+        LocalUrlCache cache = new LocalUrlCache(props);
+        cache.put("abc123", "https://example.com", null);
+
+        assertThat(cache.isDueForRefresh("abc123", cache.get("abc123"))).isFalse();
+    }
+}
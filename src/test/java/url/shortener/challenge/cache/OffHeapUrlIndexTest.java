@@ -0,0 +1,83 @@
+package url.shortener.challenge.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapUrlIndexTest {
+
+    @Test
+    void pack_ShouldBeDistinctPerCode_AndRejectUnpackableCodes() {
+        Set<Long> packed = new HashSet<>();
+        for (String code : new String[]{"a", "a0", "0a", "abc123", "ABC123", "a_b-c", "zzzzzzzzzz", "0", "00"}) {
+            assertThat(packed.add(OffHeapUrlIndex.pack(code))).as(code).isTrue();
+        }
+
+        assertThat(OffHeapUrlIndex.pack("")).isZero();
+        assertThat(OffHeapUrlIndex.pack("abcdefghijk")).isZero();
+        assertThat(OffHeapUrlIndex.pack("abc.12")).isZero();
+        assertThat(OffHeapUrlIndex.pack("abcé")).isZero();
+    }
+
+    @Test
+    void put_ShouldReplaceAndGrow_AndRemoveShouldKeepProbeRunsIntact() {
+        OffHeapUrlIndex index = new OffHeapUrlIndex(16);
+        for (int i = 0; i < 1000; i++) {
+            index.put(OffHeapUrlIndex.pack("c" + i), "https://example.com/" + i, null);
+        }
+        index.put(OffHeapUrlIndex.pack("c7"), "https://example.com/replaced", null);
+
+        assertThat(index.size()).isEqualTo(1000);
+        assertThat(index.get(OffHeapUrlIndex.pack("c7")).longUrl()).isEqualTo("https://example.com/replaced");
+
+        for (int i = 0; i < 1000; i += 2) {
+            index.remove(OffHeapUrlIndex.pack("c" + i));
+        }
+        assertThat(index.size()).isEqualTo(500);
+        for (int i = 0; i < 1000; i++) {
+            ResolveIndex.Entry entry = index.get(OffHeapUrlIndex.pack("c" + i));
+            if (i % 2 == 0) {
+                assertThat(entry).isNull();
+            } else if (i != 7) {
+                assertThat(entry.longUrl()).isEqualTo("https://example.com/" + i);
+            }
+        }
+    }
+
+    @Test
+    void compact_ShouldDropExpiredMappings_AndKeepTheRest() {
+        OffHeapUrlIndex index = new OffHeapUrlIndex(16);
+        Instant later = Instant.ofEpochMilli(System.currentTimeMillis() + 60_000);
+        index.put(OffHeapUrlIndex.pack("gone"), "https://example.com/gone", Instant.now().minusSeconds(1));
+        index.put(OffHeapUrlIndex.pack("later"), "https://example.com/later", later);
+        index.put(OffHeapUrlIndex.pack("never"), "https://example.com/never", null);
+
+        assertThat(index.compact(Instant.now())).isEqualTo(1);
+
+        assertThat(index.get(OffHeapUrlIndex.pack("gone"))).isNull();
+        assertThat(index.get(OffHeapUrlIndex.pack("later")))
+                .isEqualTo(new ResolveIndex.Entry("https://example.com/later", later));
+        assertThat(index.get(OffHeapUrlIndex.pack("never")))
+                .isEqualTo(new ResolveIndex.Entry("https://example.com/never", null));
+    }
+
+    @Test
+    void bytesPerEntry_ShouldStayFarBelowAHashMapOfStrings() {
+        OffHeapUrlIndex index = new OffHeapUrlIndex(1 << 17);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 90_000; i++) {
+            String code = Long.toString(random.nextLong(Long.MAX_VALUE), 36).substring(0, 7);
+            index.put(OffHeapUrlIndex.pack(code), "https://example.com/articles/" + i, null);
+        }
+
+        // a 7-char code and a ~35-char URL as a HashMap<String, String> entry take ~150 bytes of heap:
+        // node 32, two String headers 48, two byte arrays 72, table slot 4-8; the index needs the
+        // URL bytes, 12 bytes of header and a 16-byte slot at 70% load
+        assertThat(index.bytesPerEntry()).isLessThan(75);
+    }
+}
@@ -0,0 +1,75 @@
+package url.shortener.challenge.cache;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.entity.Url;
+import url.shortener.challenge.repository.UrlRepository;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ResolveIndexTest {
+
+    private UrlRepository repo;
+    private AppProperties props;
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(UrlRepository.class);
+        props = new AppProperties();
+        props.getResolveIndex().setEnabled(true);
+        props.getResolveIndex().setInitialCapacity(16);
+    }
+
+    @Test
+    void get_ShouldAnswerOnlyOnceLoaded_AndSkipExpiredMappings() {
+        when(repo.streamLive(any(Sort.class), anyInt(), anyInt())).thenReturn(Stream.of(
+                url("abc123", null), url("soon", Instant.now().plusMillis(50)), url("not.packable", null)));
+        ResolveIndex index = new ResolveIndex(repo, null, props);
+
+        assertThat(index.get("abc123")).isNull();
+        index.load();
+
+        assertThat(index.get("abc123").longUrl()).isEqualTo("https://example.com/abc123");
+        assertThat(index.get("soon")).isNotNull();
+        assertThat(index.get("not.packable")).isNull();
+        assertThat(index.get("missing")).isNull();
+        Instant expired = Instant.now().plusMillis(100);
+        while (Instant.now().isBefore(expired)) {
+            Thread.onSpinWait();
+        }
+        assertThat(index.get("soon")).isNull();
+    }
+
+    @Test
+    void apply_ShouldIndexChangeStreamDocuments() {
+        when(repo.streamLive(any(Sort.class), anyInt(), anyInt())).thenReturn(Stream.empty());
+        ResolveIndex index = new ResolveIndex(repo, null, props);
+        index.load();
+        Instant expiresAt = Instant.ofEpochMilli(System.currentTimeMillis() + 60_000);
+
+        index.apply(new Document("shortUrl", "new123").append("longUrl", "https://example.com/new")
+                .append("expiresAt", Date.from(expiresAt)));
+        index.apply(null);
+
+        assertThat(index.get("new123")).isEqualTo(new ResolveIndex.Entry("https://example.com/new", expiresAt));
+    }
+
+    private static Url url(String code, Instant expiresAt) {
+        Url url = new Url();
+        url.setShortUrl(code);
+        url.setLongUrl("https://example.com/" + code);
+        url.setExpiresAt(expiresAt);
+        return url;
+    }
+}
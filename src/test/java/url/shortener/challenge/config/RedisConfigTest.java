@@ -0,0 +1,77 @@
+package url.shortener.challenge.config;
+
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.models.role.RedisInstance;
+import io.lettuce.core.models.role.RedisNodeDescription;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.RedisStaticMasterReplicaConfiguration;
+
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RedisConfigTest {
+
+    @Test
+    void serverConfiguration_ShouldPickClusterThenReplicasThenStandalone() {
+        RedisProperties redis = new RedisProperties();
+        redis.setHost("primary");
+        AppProperties.Redis cfg = new AppProperties().getRedis();
+
+        assertThat(RedisConfig.serverConfiguration(redis, cfg)).isInstanceOfSatisfying(
+                RedisStandaloneConfiguration.class, standalone -> assertThat(standalone.getHostName()).isEqualTo("primary"));
+
+        cfg.setReplicas(List.of("replica-1:6380", "replica-2:6381"));
+        assertThat(RedisConfig.serverConfiguration(redis, cfg)).isInstanceOfSatisfying(
+                RedisStaticMasterReplicaConfiguration.class, replicated -> assertThat(replicated.getNodes())
+                        .extracting(RedisStandaloneConfiguration::getHostName)
+                        .containsExactly("primary", "replica-1", "replica-2"));
+
+        RedisProperties.Cluster cluster = new RedisProperties.Cluster();
+        cluster.setNodes(List.of("node-1:7000", "node-2:7001"));
+        redis.setCluster(cluster);
+        assertThat(RedisConfig.serverConfiguration(redis, cfg)).isInstanceOfSatisfying(
+                RedisClusterConfiguration.class, clustered -> assertThat(clustered.getClusterNodes()).hasSize(2));
+    }
+
+    @Test
+    void nearestReplica_ShouldKeepLatencyOrder_WithThePrimaryLast() {
+        RedisNodeDescription primary = node(6379, RedisInstance.Role.UPSTREAM);
+        RedisNodeDescription near = node(6380, RedisInstance.Role.REPLICA);
+        RedisNodeDescription far = node(6381, RedisInstance.Role.REPLICA);
+        ReadFrom.Nodes nodes = new ReadFrom.Nodes() {
+            @Override
+            public List<RedisNodeDescription> getNodes() {
+                return List.of(primary, near, far);
+            }
+
+            @Override
+            public Iterator<RedisNodeDescription> iterator() {
+                return getNodes().iterator();
+            }
+        };
+
+        assertThat(RedisConfig.readFrom("nearest-replica").select(nodes)).containsExactly(near, far, primary);
+        assertThat(RedisConfig.readFrom("")).isNull();
+        assertThat(RedisConfig.readFrom("replicaPreferred")).isSameAs(ReadFrom.REPLICA_PREFERRED);
+    }
+
+    private static RedisNodeDescription node(int port, RedisInstance.Role role) {
+        return new RedisNodeDescription() {
+            @Override
+            public RedisURI getUri() {
+                return RedisURI.create("localhost", port);
+            }
+
+            @Override
+            public RedisInstance.Role getRole() {
+                return role;
+            }
+        };
+    }
+}
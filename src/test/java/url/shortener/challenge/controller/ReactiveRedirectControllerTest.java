@@ -0,0 +1,64 @@
+package url.shortener.challenge.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.service.ReactiveUrlService;
+import url.shortener.challenge.service.ResolvedUrl;
+import url.shortener.challenge.util.AccessLog;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(controllers = ReactiveRedirectController.class)
+@Import(AppProperties.class)
+class ReactiveRedirectControllerTest {
+
+    @Autowired
+    private WebTestClient client;
+
+    @MockBean
+    private ReactiveUrlService service;
+
+    @MockBean
+    private AccessLog accessLog;
+
+    @Test
+    void redirect_ShouldReturn302WithLocationAndDefaultMaxAge() {
+        when(service.lookup("abc123")).thenReturn(Mono.just(new ResolvedUrl("https://example.com", null)));
+
+        client.get().uri("/abc123")
+                .exchange()
+                .expectStatus().isFound()
+                .expectHeader().valueEquals("Location", "https://example.com")
+                .expectHeader().valueEquals("Cache-Control", "public, max-age=60")
+                .expectHeader().exists("Expires");
+    }
+
+    @Test
+    void redirect_ShouldCapMaxAgeAtMappingExpiry() {
+        when(service.lookup("abc123"))
+                .thenReturn(Mono.just(new ResolvedUrl("https://example.com", Instant.now().plusSeconds(10))));
+
+        client.get().uri("/abc123")
+                .exchange()
+                .expectStatus().isFound()
+                .expectHeader().value("Cache-Control", value -> assertThat(value).matches("public, max-age=(9|10)"));
+    }
+
+    @Test
+    void redirect_ShouldReturn404_WhenUrlNotFound() {
+        when(service.lookup("notfound")).thenReturn(Mono.empty());
+
+        client.get().uri("/notfound")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+}
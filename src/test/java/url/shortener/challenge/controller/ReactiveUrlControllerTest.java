@@ -0,0 +1,107 @@
+package url.shortener.challenge.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.dto.LongUrlRequestDto;
+import url.shortener.challenge.dto.ShortUrlResponseDto;
+import url.shortener.challenge.exception.BackendBusyException;
+import url.shortener.challenge.service.ReactiveUrlService;
+import url.shortener.challenge.util.AccessLog;
+import url.shortener.challenge.util.ReactiveRateLimiter;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(controllers = ReactiveUrlController.class)
+@Import(AppProperties.class)
+class ReactiveUrlControllerTest {
+
+    @Autowired
+    private WebTestClient client;
+
+    @MockBean
+    private ReactiveUrlService service;
+
+    @MockBean
+    private AccessLog accessLog;
+
+    @MockBean
+    private ReactiveRateLimiter limiter;
+
+    @Test
+    void create_ShouldReturn201WithShortUrl() {
+        when(limiter.allow(eq("create"), any())).thenReturn(Mono.just(true));
+        when(service.create(any(LongUrlRequestDto.class)))
+                .thenReturn(Mono.just(new ShortUrlResponseDto("abc123")));
+
+        client.post().uri("/api/v1/urls")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"longUrl\":\"https://example.com\"}")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody().jsonPath("$.shortUrl").isEqualTo("abc123");
+    }
+
+    @Test
+    void create_ShouldReturn429_WhenRateLimitExceeded() {
+        when(limiter.allow(eq("create"), any())).thenReturn(Mono.just(false));
+
+        client.post().uri("/api/v1/urls")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"longUrl\":\"https://example.com\"}")
+                .exchange()
+                .expectStatus().isEqualTo(429);
+        verify(service, never()).create(any());
+    }
+
+    @Test
+    void create_ShouldReturn400_WhenLongUrlIsMissing() {
+        when(limiter.allow(eq("create"), any())).thenReturn(Mono.just(true));
+
+        client.post().uri("/api/v1/urls")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.code").isEqualTo(100);
+    }
+
+    @Test
+    void resolve_ShouldReturn200WithLongUrl() {
+        when(service.resolve("abc123")).thenReturn(Mono.just("https://example.com"));
+
+        client.get().uri("/api/v1/urls/abc123")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.longUrl").isEqualTo("https://example.com");
+    }
+
+    @Test
+    void resolve_ShouldReturn404_WhenUrlNotFound() {
+        when(service.resolve("notfound")).thenReturn(Mono.empty());
+
+        client.get().uri("/api/v1/urls/notfound")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void resolve_ShouldReturn503_WhenBackendIsBusy() {
+        when(service.resolve("abc123")).thenReturn(Mono.error(new BackendBusyException("mongo")));
+
+        client.get().uri("/api/v1/urls/abc123")
+                .exchange()
+                .expectStatus().isEqualTo(503)
+                .expectHeader().valueEquals("Retry-After", "1");
+    }
+}
@@ -0,0 +1,64 @@
+package url.shortener.challenge.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.service.ResolvedUrl;
+import url.shortener.challenge.service.UrlService;
+import url.shortener.challenge.util.AccessLog;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = RedirectController.class)
+@Import(AppProperties.class)
+class RedirectControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private UrlService service;
+
+    @MockBean
+    private AccessLog accessLog;
+
+    @Test
+    void redirect_ShouldReturn302WithLocationAndDefaultMaxAge() throws Exception {
+        when(service.lookup("abc123"))
+                .thenReturn(Optional.of(new ResolvedUrl("https://example.com", null)));
+
+        mockMvc.perform(get("/abc123"))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Location", "https://example.com"))
+                .andExpect(header().string("Cache-Control", "public, max-age=60"))
+                .andExpect(header().exists("Expires"));
+    }
+
+    @Test
+    void redirect_ShouldCapMaxAgeAtMappingExpiry() throws Exception {
+        when(service.lookup("abc123"))
+                .thenReturn(Optional.of(new ResolvedUrl("https://example.com", Instant.now().plusSeconds(10))));
+
+        mockMvc.perform(get("/abc123"))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Cache-Control", matchesPattern("public, max-age=(9|10)")));
+    }
+
+    @Test
+    void redirect_ShouldReturn404_WhenUrlNotFound() throws Exception {
+        when(service.lookup("notfound")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/notfound"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -4,22 +4,42 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.dto.BulkCreateResultDto;
+import url.shortener.challenge.dto.ClickStatsResponseDto;
 import url.shortener.challenge.dto.LongUrlRequestDto;
+import url.shortener.challenge.dto.ResolveResultDto;
 import url.shortener.challenge.dto.ShortUrlResponseDto;
+import url.shortener.challenge.dto.TrendingResponseDto;
+import url.shortener.challenge.entity.ClickBucket.Granularity;
+import url.shortener.challenge.exception.BackendBusyException;
 import url.shortener.challenge.service.UrlService;
+import url.shortener.challenge.service.impl.ClickStats;
+import url.shortener.challenge.service.impl.TrendingTracker;
+import url.shortener.challenge.util.AccessLog;
 import url.shortener.challenge.util.RateLimiter;
 
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(controllers = UrlController.class)
+@Import(AppProperties.class)
 class UrlControllerTest {
 
     @Autowired
@@ -28,13 +48,22 @@ class UrlControllerTest {
     @MockBean
     private UrlService service;
 
+    @MockBean
+    private AccessLog accessLog;
+
     @MockBean
     private RateLimiter limiter;
 
+    @MockBean
+    private ClickStats clickStats;
+
+    @MockBean
+    private TrendingTracker trending;
+
     @Test
     void create_ShouldReturn201WithShortUrl() throws Exception {
         // Mock rate limiter allows the request
-        when(limiter.allow(any(), eq(60))).thenReturn(true);
+        when(limiter.allow(eq("create"), any())).thenReturn(true);
         when(service.create(any(LongUrlRequestDto.class)))
                 .thenReturn(new ShortUrlResponseDto("abc123"));
 
@@ -51,7 +80,7 @@ class UrlControllerTest {
 
     @Test
     void create_ShouldReturn429_WhenRateLimitExceeded() throws Exception {
-        when(limiter.allow(any(), eq(60))).thenReturn(false);
+        when(limiter.allow(eq("create"), any())).thenReturn(false);
 
         mockMvc.perform(post("/api/v1/urls")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -82,9 +111,19 @@ class UrlControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void resolve_ShouldReturn503_WhenBackendIsBusy() throws Exception {
+        when(service.resolve("abc123")).thenThrow(new BackendBusyException("mongo"));
+
+        mockMvc.perform(get("/api/v1/urls/abc123"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.code").value(105));
+    }
+
     @Test
     void create_ShouldReturn400_WhenLongUrlIsMissing() throws Exception {
-        when(limiter.allow(any(), eq(60))).thenReturn(true);
+        when(limiter.allow(eq("create"), any())).thenReturn(true);
 
         mockMvc.perform(post("/api/v1/urls")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -95,4 +134,125 @@ class UrlControllerTest {
                 }))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    void createBulk_ShouldStreamOneResultPerNdjsonItem() throws Exception {
+        when(limiter.allow(eq("bulk"), any())).thenReturn(true);
+        when(service.createAll(anyList()))
+                .thenReturn(List.of(BulkCreateResultDto.created("abc123"), BulkCreateResultDto.created("def456")));
+
+        MvcResult result = mockMvc.perform(post("/api/v1/urls/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"longUrl\":\"https://a.com\"}\n{\"longUrl\":\"ftp://bad\"}\n{\"longUrl\":\"https://b.com\"}\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        "{\"index\":1,\"errorCode\":101,\"error\":\"Must start with http:// or https://\"}\n"
+                                + "{\"index\":0,\"shortUrl\":\"abc123\"}\n"
+                                + "{\"index\":2,\"shortUrl\":\"def456\"}\n"));
+    }
+
+    @Test
+    void createBulk_ShouldAcceptJsonArray() throws Exception {
+        when(limiter.allow(eq("bulk"), any())).thenReturn(true);
+        when(service.createAll(anyList())).thenReturn(List.of(BulkCreateResultDto.created("abc123")));
+
+        MvcResult result = mockMvc.perform(post("/api/v1/urls/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"longUrl\":\"https://a.com\"}]"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"index\":0,\"shortUrl\":\"abc123\"}\n"));
+    }
+
+    @Test
+    void createBulk_ShouldReturn429_WhenRateLimitExceeded() throws Exception {
+        when(limiter.allow(eq("bulk"), any())).thenReturn(false);
+
+        mockMvc.perform(post("/api/v1/urls/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"longUrl\":\"https://a.com\"}\n"))
+                .andExpect(status().isTooManyRequests());
+
+        verify(service, never()).createAll(anyList());
+    }
+
+    @Test
+    void resolveAll_ShouldReturnResultPerCode() throws Exception {
+        Map<String, ResolveResultDto> results = new LinkedHashMap<>();
+        results.put("abc123", ResolveResultDto.found("https://example.com"));
+        results.put("gone12", ResolveResultDto.expired());
+        results.put("nope12", ResolveResultDto.notFound());
+        when(service.resolveAll(List.of("abc123", "gone12", "nope12"))).thenReturn(results);
+
+        mockMvc.perform(post("/api/v1/urls/resolve")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"shortUrls\":[\"abc123\",\"gone12\",\"nope12\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results.abc123.status").value("FOUND"))
+                .andExpect(jsonPath("$.results.abc123.longUrl").value("https://example.com"))
+                .andExpect(jsonPath("$.results.gone12.status").value("EXPIRED"))
+                .andExpect(jsonPath("$.results.nope12.status").value("NOT_FOUND"));
+    }
+
+    @Test
+    void resolveAll_ShouldReturn400_WhenNoCodesGiven() throws Exception {
+        mockMvc.perform(post("/api/v1/urls/resolve")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"shortUrls\":[]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(104));
+    }
+
+    @Test
+    void stats_ShouldReturnBuckets() throws Exception {
+        Instant from = Instant.parse("2026-01-01T10:00:00Z");
+        Instant to = Instant.parse("2026-01-01T12:00:00Z");
+        when(clickStats.isEnabled()).thenReturn(true);
+        when(clickStats.query("abc123", Granularity.HOUR, from, to)).thenReturn(Optional.of(
+                new ClickStatsResponseDto("abc123", "hour", from, to, 7, List.of(
+                        new ClickStatsResponseDto.Bucket(from, 7),
+                        new ClickStatsResponseDto.Bucket(Instant.parse("2026-01-01T11:00:00Z"), 0)))));
+
+        mockMvc.perform(get("/api/v1/urls/abc123/stats")
+                .param("granularity", "hour")
+                .param("from", from.toString())
+                .param("to", to.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(7))
+                .andExpect(jsonPath("$.buckets[0].start").value("2026-01-01T10:00:00Z"))
+                .andExpect(jsonPath("$.buckets[1].count").value(0));
+    }
+
+    @Test
+    void stats_ShouldReturn400_ForUnknownGranularity_And404_WhenDisabled() throws Exception {
+        when(clickStats.isEnabled()).thenReturn(true);
+        mockMvc.perform(get("/api/v1/urls/abc123/stats").param("granularity", "week"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(106));
+
+        when(clickStats.isEnabled()).thenReturn(false);
+        mockMvc.perform(get("/api/v1/urls/abc123/stats"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void trending_ShouldReturnTopCodes() throws Exception {
+        when(trending.isEnabled()).thenReturn(true);
+        when(trending.top(2)).thenReturn(new TrendingResponseDto(Instant.parse("2026-01-01T10:00:00Z"), 3, List.of(
+                new TrendingResponseDto.Item("hot123", 120.5), new TrendingResponseDto.Item("warm12", 40.0))));
+
+        mockMvc.perform(get("/api/v1/urls/trending").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.replicas").value(3))
+                .andExpect(jsonPath("$.items[0].shortUrl").value("hot123"))
+                .andExpect(jsonPath("$.items[1].score").value(40.0));
+        verify(service, never()).resolve(any());
+    }
+}
@@ -0,0 +1,128 @@
+package url.shortener.challenge.grpc;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.dto.LongUrlRequestDto;
+import url.shortener.challenge.dto.ResolveResultDto;
+import url.shortener.challenge.dto.ShortUrlResponseDto;
+import url.shortener.challenge.grpc.proto.CreateRequest;
+import url.shortener.challenge.grpc.proto.ResolveRequest;
+import url.shortener.challenge.grpc.proto.ResolveResponse;
+import url.shortener.challenge.grpc.proto.UrlShortenerGrpc;
+import url.shortener.challenge.service.UrlService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class UrlGrpcServiceTest {
+
+    private UrlService service;
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = mock(UrlService.class);
+        AppProperties props = new AppProperties();
+        props.getGrpc().setStreamBatchSize(50);
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .addService(new UrlGrpcService(service,
+                        Validation.buildDefaultValidatorFactory().getValidator(), props))
+                .build().start();
+        channel = InProcessChannelBuilder.forName(name).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Test
+    void createAndResolve_ShouldUseTheUrlService() {
+        when(service.create(new LongUrlRequestDto("https://example.com"))).thenReturn(new ShortUrlResponseDto("abc123"));
+        when(service.resolve("abc123")).thenReturn(Optional.of("https://example.com"));
+        when(service.resolve("nope12")).thenReturn(Optional.empty());
+        UrlShortenerGrpc.UrlShortenerBlockingStub stub = UrlShortenerGrpc.newBlockingStub(channel);
+
+        assertThat(stub.create(CreateRequest.newBuilder().setLongUrl("https://example.com").build()).getShortUrl())
+                .isEqualTo("abc123");
+        assertThat(stub.resolve(ResolveRequest.newBuilder().setShortUrl("abc123").build()).getLongUrl())
+                .isEqualTo("https://example.com");
+        assertThat(stub.resolve(ResolveRequest.newBuilder().setShortUrl("nope12").build()).getStatus())
+                .isEqualTo(ResolveResponse.Status.NOT_FOUND);
+        assertThatThrownBy(() -> stub.create(CreateRequest.newBuilder().setLongUrl("ftp://example.com").build()))
+                .isInstanceOfSatisfying(StatusRuntimeException.class, e -> assertThat(e.getStatus().getCode())
+                        .isEqualTo(Status.Code.INVALID_ARGUMENT));
+        verify(service, times(1)).create(any());
+    }
+
+    @Test
+    void resolveStream_ShouldAnswerEveryCode_InBatches() throws Exception {
+        List<Integer> batchSizes = new ArrayList<>();
+        when(service.resolveAll(anyCollection())).thenAnswer(inv -> {
+            Collection<String> codes = inv.getArgument(0);
+            synchronized (batchSizes) {
+                batchSizes.add(codes.size());
+            }
+            Map<String, ResolveResultDto> results = new LinkedHashMap<>();
+            codes.forEach(code -> results.put(code, code.startsWith("gone")
+                    ? ResolveResultDto.expired() : ResolveResultDto.found("https://example.com/" + code)));
+            return results;
+        });
+        Map<String, ResolveResponse> received = new ConcurrentHashMap<>();
+        CompletableFuture<Void> completed = new CompletableFuture<>();
+
+        StreamObserver<ResolveRequest> requests = UrlShortenerGrpc.newStub(channel).resolveStream(
+                new StreamObserver<>() {
+                    @Override
+                    public void onNext(ResolveResponse response) {
+                        received.put(response.getShortUrl(), response);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        completed.completeExceptionally(t);
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        completed.complete(null);
+                    }
+                });
+        for (int i = 0; i < 500; i++) {
+            requests.onNext(ResolveRequest.newBuilder().setShortUrl((i % 100 == 0 ? "gone" : "code") + i).build());
+        }
+        requests.onCompleted();
+        completed.get(10, TimeUnit.SECONDS);
+
+        assertThat(received).hasSize(500);
+        assertThat(received.get("code1").getLongUrl()).isEqualTo("https://example.com/code1");
+        assertThat(received.get("gone100").getStatus()).isEqualTo(ResolveResponse.Status.EXPIRED);
+        assertThat(batchSizes).allSatisfy(size -> assertThat(size).isBetween(1, 50));
+    }
+}
@@ -0,0 +1,80 @@
+package url.shortener.challenge.repository;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoSocketOpenException;
+import com.mongodb.MongoSocketReadException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import url.shortener.challenge.entity.ClickBucket;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ClickStatsRepositoryTest {
+
+    private final MongoTemplate mongo = mock(MongoTemplate.class);
+    private final BulkOperations ops = mock(BulkOperations.class);
+    private final ClickStatsRepository repo;
+
+    @SuppressWarnings("unchecked")
+    ClickStatsRepositoryTest() {
+        MongoMappingContext context = new MongoMappingContext();
+        context.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        when(mongo.getConverter()).thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, context));
+        when(mongo.indexOps(ClickBucket.class)).thenReturn(mock(IndexOperations.class));
+        when(mongo.bulkOps(any(BulkOperations.BulkMode.class), eq(ClickBucket.class))).thenReturn(ops);
+        ObjectProvider<MongoTemplate> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(mongo);
+        repo = new ClickStatsRepository(provider);
+    }
+
+    @Test
+    void increment_ShouldReportOnlyBucketsWithWriteErrors() {
+        BulkWriteError error = new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1);
+        when(ops.execute()).thenThrow(new BulkOperationException("bulk write failed", new MongoBulkWriteException(
+                BulkWriteResult.unacknowledged(), List.of(error), null, new ServerAddress(), Set.of())));
+
+        assertThat(repo.increment(buckets())).containsExactly(1);
+    }
+
+    @Test
+    void increment_ShouldReportAllBuckets_OnlyWhenNothingWasSent() {
+        when(ops.execute())
+                .thenThrow(new DataAccessResourceFailureException("connect",
+                        new MongoSocketOpenException("refused", new ServerAddress())))
+                .thenThrow(new DataAccessResourceFailureException("read",
+                        new MongoSocketReadException("reset", new ServerAddress())));
+
+        assertThat(repo.increment(buckets())).containsExactlyInAnyOrder(0, 1, 2);
+        assertThatThrownBy(() -> repo.increment(buckets())).isInstanceOf(DataAccessResourceFailureException.class);
+    }
+
+    private static List<ClickBucket> buckets() {
+        Instant start = Instant.parse("2026-01-01T10:00:00Z");
+        return List.of(
+                ClickBucket.builder().shortUrl("abc123").granularity("m").start(start).count(1).build(),
+                ClickBucket.builder().shortUrl("abc123").granularity("h").start(start).count(1).build(),
+                ClickBucket.builder().shortUrl("abc123").granularity("d").start(start).count(1).build());
+    }
+}
@@ -0,0 +1,76 @@
+package url.shortener.challenge.repository;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import url.shortener.challenge.entity.Url;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UrlIndexesTest {
+
+    private final MongoTemplate mongo = mock(MongoTemplate.class);
+    private final IndexOperations indexOps = mock(IndexOperations.class);
+
+    UrlIndexesTest() {
+        MongoMappingContext context = new MongoMappingContext();
+        context.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        when(mongo.getConverter()).thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, context));
+        when(mongo.indexOps(Url.class)).thenReturn(indexOps);
+    }
+
+    @Test
+    void ensure_ShouldCreateEachDeclaredIndexOnce() {
+        List<Document> created = new ArrayList<>();
+        doAnswer(inv -> {
+            created.add(inv.<IndexDefinition>getArgument(0).getIndexKeys());
+            return "index";
+        }).when(indexOps).createIndex(any(IndexDefinition.class));
+        UrlIndexes indexes = new UrlIndexes(provider(mongo));
+
+        indexes.ensure();
+        indexes.ensure();
+
+        assertThat(created).containsExactlyInAnyOrder(
+                new Document("shortUrl", 1),
+                new Document("longUrlHash", 1),
+                new Document("expiresAt", 1),
+                new Document("hitCount", -1));
+    }
+
+    @Test
+    void ensure_ShouldRetryAfterAFailure() {
+        doThrow(new IllegalStateException("no server")).doReturn("index")
+                .when(indexOps).createIndex(any(IndexDefinition.class));
+        UrlIndexes indexes = new UrlIndexes(provider(mongo));
+
+        indexes.ensure();
+        indexes.ensure();
+
+        verify(indexOps, times(5)).createIndex(any(IndexDefinition.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<MongoTemplate> provider(MongoTemplate template) {
+        ObjectProvider<MongoTemplate> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(template);
+        return provider;
+    }
+}
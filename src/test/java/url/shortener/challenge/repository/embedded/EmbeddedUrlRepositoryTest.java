@@ -0,0 +1,228 @@
+package url.shortener.challenge.repository.embedded;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.entity.Url;
+import url.shortener.challenge.repository.ShortUrlView;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmbeddedUrlRepositoryTest {
+
+    @TempDir
+    Path dir;
+
+    private AppProperties props;
+    private EmbeddedUrlRepository repo;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        props = new AppProperties();
+        props.getEmbedded().setDir(dir.toString());
+        props.getEmbedded().setIndexCapacity(16);
+        props.getEmbedded().setSegmentBytes(4096);
+        repo = new EmbeddedUrlRepository(props);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        repo.close();
+    }
+
+    @Test
+    void save_ShouldBeFoundByShortUrl_AndRejectTakenCodes() {
+        repo.save(url("abc123", null));
+
+        assertThat(repo.findByShortUrl("abc123")).get()
+                .extracting(Url::getLongUrl).isEqualTo("https://example.com/abc123");
+        assertThat(repo.existsByShortUrl("abc123")).isTrue();
+        assertThat(repo.existsByShortUrl("zzz999")).isFalse();
+        assertThatThrownBy(() -> repo.save(url("abc123", null))).isInstanceOf(DuplicateKeyException.class);
+        assertThat(repo.insertAllUnordered(List.of(url("def456", null), url("abc123", null)))).containsExactly(1);
+    }
+
+    @Test
+    void findByShortUrl_ShouldReadRecordsLargerThanOneRead() {
+        Url big = url("big123", null);
+        big.setLongUrl("https://example.com/" + "a".repeat(2000));
+        repo.save(big);
+        repo.save(url("after", null));
+
+        assertThat(repo.findByShortUrl("big123")).get().extracting(Url::getLongUrl).isEqualTo(big.getLongUrl());
+        assertThat(repo.findByShortUrl("after")).isPresent();
+    }
+
+    @Test
+    void index_ShouldGrowPastItsInitialCapacity() {
+        for (int i = 0; i < 500; i++) {
+            repo.save(url("code" + i, null));
+        }
+
+        assertThat(repo.count()).isEqualTo(500);
+        assertThat(repo.findByShortUrlIn(List.of("code0", "code250", "code499", "missing"))).hasSize(3);
+    }
+
+    @Test
+    void reopen_ShouldKeepMappings_AfterCleanAndUncleanShutdown() throws IOException {
+        repo.save(url("abc123", null));
+        repo.incrementHitCounts(Map.of("abc123", 5L));
+        repo.close();
+
+        repo = new EmbeddedUrlRepository(props);
+        assertThat(repo.findByShortUrl("abc123")).get().extracting(Url::getHitCount).isEqualTo(5L);
+
+        // simulate a crash: the segments made it to disk, the index was never marked clean
+        repo.save(url("def456", null));
+        repo.delete(repo.findByShortUrl("abc123").orElseThrow());
+        repo.sync();
+        Path crashed = Files.createDirectory(dir.resolve("crashed"));
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path segment : files.filter(f -> f.getFileName().toString().startsWith("segment-")).toList()) {
+                Files.copy(segment, crashed.resolve(segment.getFileName()));
+            }
+        }
+        props.getEmbedded().setDir(crashed.toString());
+        EmbeddedUrlRepository recovered = new EmbeddedUrlRepository(props);
+        try {
+            assertThat(recovered.findByShortUrl("def456")).isPresent();
+            assertThat(recovered.findByShortUrl("abc123")).isEmpty();
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    void compact_ShouldDropExpiredAndOverwrittenRecords() throws IOException {
+        repo.save(url("expired", Instant.now().minusSeconds(1)));
+        repo.save(url("live", Instant.now().plusSeconds(3600)));
+        for (int i = 0; i < 100; i++) {
+            repo.incrementHitCounts(Map.of("live", 1L));
+            repo.save(repo.findByShortUrl("live").orElseThrow());
+        }
+        long before = segmentCount();
+
+        repo.compact();
+
+        assertThat(segmentCount()).isLessThan(before);
+        assertThat(repo.findByShortUrl("expired")).isEmpty();
+        assertThat(repo.findByShortUrl("live")).get().extracting(Url::getHitCount).isEqualTo(100L);
+        repo.close();
+        repo = new EmbeddedUrlRepository(props);
+        assertThat(repo.findByShortUrl("expired")).isEmpty();
+        assertThat(repo.findByShortUrl("live")).isPresent();
+    }
+
+    @Test
+    void incrementHitCounts_ShouldNotAppendToTheLog_AndSurviveReopen() throws IOException {
+        repo.save(url("abc123", null));
+        repo.sync();
+        long logBytes = logBytes();
+
+        for (int i = 0; i < 100; i++) {
+            repo.incrementHitCounts(Map.of("abc123", 1L, "missing", 1L));
+        }
+        repo.sync();
+
+        assertThat(logBytes()).isEqualTo(logBytes);
+        assertThat(repo.findByShortUrl("abc123")).get().extracting(Url::getHitCount).isEqualTo(100L);
+        assertThat(repo.findByShortUrl("missing")).isEmpty();
+        repo.close();
+        repo = new EmbeddedUrlRepository(props);
+        assertThat(repo.findByShortUrl("abc123")).get().extracting(Url::getHitCount).isEqualTo(100L);
+    }
+
+    @Test
+    void constructor_ShouldRejectDedup() {
+        props.getDedup().setEnabled(true);
+
+        assertThatThrownBy(() -> new EmbeddedUrlRepository(props)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void streamLive_ShouldSortByHitCount_AndSkipExpired() {
+        repo.save(url("cold", null));
+        repo.save(url("hot", null));
+        repo.save(url("gone", Instant.now().minusSeconds(1)));
+        repo.incrementHitCounts(Map.of("hot", 10L, "cold", 1L));
+
+        try (Stream<Url> live = repo.streamLive(Sort.by(Sort.Direction.DESC, "hitCount"), 10, 10)) {
+            assertThat(live.map(Url::getShortUrl)).containsExactly("hot", "cold");
+        }
+    }
+
+    @Test
+    void streamLive_ShouldKeepOnlyTheTopN() {
+        for (int i = 0; i < 50; i++) {
+            repo.save(url("code" + i, null));
+            repo.incrementHitCounts(Map.of("code" + i, (long) i));
+        }
+
+        try (Stream<Url> live = repo.streamLive(Sort.by(Sort.Direction.DESC, "hitCount"), 3, 10)) {
+            assertThat(live.map(Url::getShortUrl)).containsExactly("code49", "code48", "code47");
+        }
+    }
+
+    @Test
+    void streamAllBy_ShouldNotMissCodes_WhenCompactionRunsMidWalk() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            repo.save(url("code" + i, null));
+        }
+        for (int i = 0; i < 100; i++) {
+            repo.save(repo.findByShortUrl("code" + i).orElseThrow());
+        }
+        repo.delete(url("code7", null));
+        Set<String> seen = new HashSet<>();
+        long before = segmentCount();
+
+        try (Stream<ShortUrlView> all = repo.streamAllBy()) {
+            Iterator<ShortUrlView> codes = all.iterator();
+            seen.add(codes.next().getShortUrl());
+            repo.compact();
+            codes.forEachRemaining(view -> seen.add(view.getShortUrl()));
+        }
+
+        assertThat(segmentCount()).isLessThan(before);
+        assertThat(seen).hasSize(99).doesNotContain("code7");
+    }
+
+    private long logBytes() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            long bytes = 0;
+            for (Path segment : files.filter(f -> f.getFileName().toString().startsWith("segment-")).toList()) {
+                bytes += Files.size(segment);
+            }
+            return bytes;
+        }
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.getFileName().toString().startsWith("segment-")).count();
+        }
+    }
+
+    private static Url url(String code, Instant expiresAt) {
+        Url url = new Url();
+        url.setShortUrl(code);
+        url.setLongUrl("https://example.com/" + code);
+        url.setExpiresAt(expiresAt);
+        return url;
+    }
+}
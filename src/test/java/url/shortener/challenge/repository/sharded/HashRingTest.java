@@ -0,0 +1,51 @@
+package url.shortener.challenge.repository.sharded;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashRingTest {
+
+    private static final int KEYS = 30_000;
+
+    @Test
+    void owner_ShouldSpreadKeysEvenly() {
+        HashRing<String> ring = new HashRing<>(nodes("a", "b", "c"), 160);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.owner("code" + i), 1, Integer::sum);
+        }
+
+        assertThat(counts).hasSize(3);
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(KEYS / 3 * 8 / 10, KEYS / 3 * 12 / 10));
+    }
+
+    @Test
+    void addingANode_ShouldOnlyMoveKeysToIt_FromTheirPreviousOwner() {
+        HashRing<String> before = new HashRing<>(nodes("a", "b", "c"), 160);
+        HashRing<String> after = new HashRing<>(nodes("a", "b", "c", "d"), 160);
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "code" + i;
+            if (!before.owner(key).equals(after.owner(key))) {
+                moved++;
+                assertThat(after.owner(key)).isEqualTo("d");
+                assertThat(after.previousOwner(key)).isEqualTo(before.owner(key));
+            }
+        }
+
+        assertThat(moved).isBetween(KEYS / 4 * 8 / 10, KEYS / 4 * 12 / 10);
+    }
+
+    private static Map<String, String> nodes(String... names) {
+        Map<String, String> nodes = new LinkedHashMap<>();
+        for (String name : names) {
+            nodes.put(name, name);
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,96 @@
+package url.shortener.challenge.repository.sharded;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.entity.Url;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ShardedUrlRepositoryTest {
+
+    private final MongoTemplate one = mock(MongoTemplate.class);
+    private final MongoTemplate two = mock(MongoTemplate.class);
+    private final MongoTemplate three = mock(MongoTemplate.class);
+    private AppProperties.Sharding cfg;
+    private Map<String, MongoTemplate> shards;
+    private HashRing<MongoTemplate> ring;
+
+    @BeforeEach
+    void setUp() {
+        cfg = new AppProperties().getSharding();
+        shards = new LinkedHashMap<>();
+        shards.put("shard-1", one);
+        shards.put("shard-2", two);
+        shards.put("shard-3", three);
+        // same names and virtual nodes as the repository, so the same placement
+        ring = new HashRing<>(shards, cfg.getVirtualNodes());
+    }
+
+    @Test
+    void findByShortUrl_ShouldOnlyAskTheOwningShard() {
+        ShardedUrlRepository repo = new ShardedUrlRepository(cfg, shards);
+        MongoTemplate owner = ring.owner("abc123");
+        when(owner.findOne(any(Query.class), eq(Url.class))).thenReturn(url("abc123"));
+
+        assertThat(repo.findByShortUrl("abc123")).isPresent();
+        repo.save(url("abc123"));
+
+        for (MongoTemplate shard : shards.values()) {
+            verify(shard, times(shard == owner ? 1 : 0)).findOne(any(Query.class), eq(Url.class));
+            verify(shard, times(shard == owner ? 1 : 0)).save(any(Url.class));
+        }
+    }
+
+    @Test
+    void findByShortUrl_ShouldAskThePreviousOwner_OnlyWhileRebalancing() {
+        ShardedUrlRepository repo = new ShardedUrlRepository(cfg, shards);
+        String code = IntStream.range(0, 1000).mapToObj(i -> "code" + i)
+                .filter(c -> ring.owner(c) != ring.previousOwner(c)).findFirst().orElseThrow();
+        MongoTemplate previous = ring.previousOwner(code);
+        when(previous.findOne(any(Query.class), eq(Url.class))).thenReturn(url(code));
+
+        assertThat(repo.findByShortUrl(code)).isEmpty();
+        verify(previous, never()).findOne(any(Query.class), eq(Url.class));
+
+        cfg.setRebalancing(true);
+        assertThat(repo.findByShortUrl(code)).isPresent();
+    }
+
+    @Test
+    void findByShortUrlIn_ShouldSendOneQueryPerOwningShard() {
+        ShardedUrlRepository repo = new ShardedUrlRepository(cfg, shards);
+        List<String> codes = IntStream.range(0, 60).mapToObj(i -> "code" + i).toList();
+        for (MongoTemplate shard : shards.values()) {
+            List<Url> owned = codes.stream().filter(c -> ring.owner(c) == shard).map(ShardedUrlRepositoryTest::url).toList();
+            when(shard.find(any(Query.class), eq(Url.class))).thenReturn(owned);
+        }
+
+        assertThat(repo.findByShortUrlIn(codes)).hasSize(60);
+
+        for (MongoTemplate shard : shards.values()) {
+            verify(shard).find(any(Query.class), eq(Url.class));
+        }
+    }
+
+    private static Url url(String code) {
+        Url url = new Url();
+        url.setShortUrl(code);
+        url.setLongUrl("https://example.com/" + code);
+        return url;
+    }
+}
@@ -0,0 +1,84 @@
+package url.shortener.challenge.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Sort;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.entity.Url;
+import url.shortener.challenge.repository.UrlIndexes;
+import url.shortener.challenge.repository.UrlRepository;
+import url.shortener.challenge.service.impl.CacheWarmer;
+import url.shortener.challenge.service.impl.UrlServiceImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CacheWarmerTest {
+
+    @Mock
+    private UrlRepository repo;
+
+    @Mock
+    private UrlServiceImpl service;
+
+    @Mock
+    private UrlIndexes indexes;
+
+    private AppProperties props;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        props = new AppProperties();
+        props.getWarmUp().setBatchSize(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void run_ShouldPreloadHottestThenNewest_InBatchesWithoutDuplicates() {
+        props.getWarmUp().setTopN(3);
+        props.getWarmUp().setRecentN(2);
+        when(repo.streamLive(eq(Sort.by(Sort.Direction.DESC, "hitCount")), eq(3), eq(2)))
+                .thenReturn(Stream.of(url("aaa"), url("bbb"), url("ccc")));
+        when(repo.streamLive(eq(Sort.by(Sort.Direction.DESC, "_id")), eq(2), eq(2)))
+                .thenReturn(Stream.of(url("ccc"), url("ddd")));
+        List<List<String>> batches = new ArrayList<>();
+        doAnswer(inv -> batches.add(((List<Url>) inv.getArgument(0)).stream().map(Url::getShortUrl).toList()))
+                .when(service).preload(anyList());
+
+        new CacheWarmer(repo, service, indexes, props).run(null);
+
+        assertThat(batches).containsExactly(List.of("aaa", "bbb"), List.of("ccc"), List.of("ddd"));
+        // the hitCount index exists before the top-N read
+        InOrder order = inOrder(indexes, repo);
+        order.verify(indexes).ensure();
+        order.verify(repo, times(2)).streamLive(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void run_ShouldNotFailStartup_WhenMongoIsUnavailable() {
+        when(repo.streamLive(any(), anyInt(), anyInt())).thenThrow(new IllegalStateException("down"));
+
+        new CacheWarmer(repo, service, indexes, props).run(null);
+
+        verifyNoInteractions(service);
+    }
+
+    private static Url url(String shortUrl) {
+        Url url = new Url();
+        url.setShortUrl(shortUrl);
+        url.setLongUrl("https://" + shortUrl + ".com");
+        return url;
+    }
+}
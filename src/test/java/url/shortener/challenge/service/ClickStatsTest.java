@@ -0,0 +1,128 @@
+package url.shortener.challenge.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import url.shortener.challenge.cache.CodeExistenceFilter;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.dto.ClickStatsResponseDto;
+import url.shortener.challenge.entity.ClickBucket;
+import url.shortener.challenge.entity.ClickBucket.Granularity;
+import url.shortener.challenge.exception.InvalidStatsQueryException;
+import url.shortener.challenge.repository.ClickStatsRepository;
+import url.shortener.challenge.service.impl.ClickStats;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class ClickStatsTest {
+
+    @Mock
+    private ClickStatsRepository store;
+
+    @Mock
+    private CodeExistenceFilter existenceFilter;
+
+    private ClickStats stats;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(store.isAvailable()).thenReturn(true);
+        when(existenceFilter.mightContain("abc123")).thenReturn(true);
+        AppProperties props = new AppProperties();
+        props.getClickStats().setEnabled(true);
+        props.getClickStats().setMaxBuckets(100);
+        stats = new ClickStats(store, existenceFilter, props);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldRollHitsUpIntoMinuteHourAndDayBuckets() {
+        Instant at = Instant.parse("2026-01-01T10:15:30Z");
+        stats.record(Map.of("abc123", 3L), at);
+        stats.record(Map.of("abc123", 2L), at.plusSeconds(60));
+
+        stats.flush();
+
+        ArgumentCaptor<List<ClickBucket>> captor = ArgumentCaptor.forClass(List.class);
+        verify(store).increment(captor.capture());
+        assertThat(captor.getValue())
+                .extracting(ClickBucket::getGranularity, ClickBucket::getStart, ClickBucket::getCount,
+                        ClickBucket::getExpiresAt)
+                .containsExactlyInAnyOrder(
+                        tuple("m", Instant.parse("2026-01-01T10:15:00Z"), 3L, Instant.parse("2026-01-03T10:15:00Z")),
+                        tuple("m", Instant.parse("2026-01-01T10:16:00Z"), 2L, Instant.parse("2026-01-03T10:16:00Z")),
+                        tuple("h", Instant.parse("2026-01-01T10:00:00Z"), 5L,
+                                Instant.parse("2026-01-01T10:00:00Z").plus(Duration.ofDays(90))),
+                        tuple("d", Instant.parse("2026-01-01T00:00:00Z"), 5L, null));
+    }
+
+    @Test
+    void flush_ShouldKeepBuckets_WhenWriteNeverReachedMongo() {
+        stats.record(Map.of("abc123", 1L), Instant.parse("2026-01-01T10:15:30Z"));
+        when(store.increment(anyList())).thenReturn(Set.of(0, 1, 2)).thenReturn(Set.of());
+
+        stats.flush();
+        stats.flush();
+        stats.flush();
+
+        verify(store, times(2)).increment(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldRetryOnlyFailedBuckets_AndDropUnknownOutcomes() {
+        stats.record(Map.of("abc123", 1L), Instant.parse("2026-01-01T10:15:30Z"));
+        List<List<ClickBucket>> writes = new ArrayList<>();
+        when(store.increment(anyList())).thenAnswer(inv -> {
+            writes.add(List.copyOf((List<ClickBucket>) inv.getArgument(0)));
+            return writes.size() == 1 ? Set.of(1) : Set.of();
+        });
+
+        stats.flush();
+        stats.flush();
+
+        assertThat(writes.get(1)).containsExactly(writes.get(0).get(1));
+
+        stats.record(Map.of("abc123", 1L), Instant.parse("2026-01-01T10:15:30Z"));
+        doThrow(new DataAccessResourceFailureException("connection reset")).when(store).increment(anyList());
+        stats.flush();
+        stats.flush();
+
+        verify(store, times(3)).increment(anyList());
+    }
+
+    @Test
+    void query_ShouldFillEmptyBuckets_AndRejectOversizedRanges() {
+        Instant from = Instant.parse("2026-01-01T10:20:00Z");
+        Instant to = Instant.parse("2026-01-01T12:40:00Z");
+        Instant start = Instant.parse("2026-01-01T10:00:00Z");
+        Instant end = Instant.parse("2026-01-01T13:00:00Z");
+        when(store.find("abc123", Granularity.HOUR, start, end)).thenReturn(List.of(
+                ClickBucket.builder().start(Instant.parse("2026-01-01T11:00:00Z")).count(4).build()));
+
+        ClickStatsResponseDto result = stats.query("abc123", Granularity.HOUR, from, to).orElseThrow();
+
+        assertThat(result.getFrom()).isEqualTo(start);
+        assertThat(result.getTo()).isEqualTo(end);
+        assertThat(result.getTotal()).isEqualTo(4);
+        assertThat(result.getBuckets()).extracting(ClickStatsResponseDto.Bucket::getCount).containsExactly(0L, 4L, 0L);
+        assertThat(stats.query("nope12", Granularity.HOUR, from, to)).isEmpty();
+        assertThatThrownBy(() -> stats.query("abc123", Granularity.MINUTE, from, from.plus(Duration.ofDays(1))))
+                .isInstanceOf(InvalidStatsQueryException.class);
+    }
+}
@@ -0,0 +1,115 @@
+package url.shortener.challenge.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.repository.UrlRepository;
+import url.shortener.challenge.service.impl.ClickStats;
+import url.shortener.challenge.service.impl.HitCountBuffer;
+import url.shortener.challenge.service.impl.TrendingTracker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class HitCountBufferTest {
+
+    @Mock
+    private UrlRepository repo;
+
+    @Mock
+    private ClickStats clickStats;
+
+    @Mock
+    private TrendingTracker trending;
+
+    private HitCountBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        buffer = new HitCountBuffer(repo, clickStats, trending, new AppProperties());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldAggregateHitsFromAllThreads() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    buffer.increment("abc123");
+                }
+                buffer.increment("xyz789");
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        buffer.flush();
+
+        ArgumentCaptor<Map<String, Long>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(repo).incrementHitCounts(captor.capture());
+        assertThat(captor.getValue()).containsExactlyInAnyOrderEntriesOf(Map.of("abc123", 8000L, "xyz789", 8L));
+    }
+
+    @Test
+    void flush_ShouldSkipMongo_WhenNothingBuffered() {
+        buffer.flush();
+
+        verifyNoInteractions(repo);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldKeepCounts_WhenWriteFails() {
+        buffer.increment("abc123");
+        doThrow(new RuntimeException("mongo down")).doNothing().when(repo).incrementHitCounts(anyMap());
+
+        buffer.flush();
+        buffer.flush();
+
+        ArgumentCaptor<Map<String, Long>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(repo, times(2)).incrementHitCounts(captor.capture());
+        assertThat(captor.getAllValues().get(1)).containsEntry("abc123", 1L);
+        // the retried count reaches the stats only once
+        verify(clickStats).record(eq(Map.of("abc123", 1L)), any());
+        verify(clickStats).record(eq(Map.of()), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldKeepOnlyTheBusiestCodes_AndCountDroppedHits() {
+        AppProperties props = new AppProperties();
+        props.getHitCounter().setMaxRetainedCodes(2);
+        buffer = new HitCountBuffer(repo, clickStats, trending, props);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        buffer.bindTo(registry);
+        buffer.increment("cold");
+        for (int i = 0; i < 3; i++) {
+            buffer.increment("warm");
+            buffer.increment("hot");
+            buffer.increment("hot");
+        }
+        doThrow(new RuntimeException("mongo down")).doNothing().when(repo).incrementHitCounts(anyMap());
+
+        buffer.flush();
+        buffer.flush();
+
+        ArgumentCaptor<Map<String, Long>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(repo, times(2)).incrementHitCounts(captor.capture());
+        assertThat(captor.getAllValues().get(1)).containsExactlyInAnyOrderEntriesOf(Map.of("hot", 6L, "warm", 3L));
+        assertThat(registry.get("url.hit.counts.dropped").functionCounter().count()).isEqualTo(1.0);
+    }
+}
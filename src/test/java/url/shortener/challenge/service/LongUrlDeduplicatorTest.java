@@ -0,0 +1,95 @@
+package url.shortener.challenge.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.entity.Url;
+import url.shortener.challenge.repository.UrlRepository;
+import url.shortener.challenge.service.impl.LongUrlDeduplicator;
+import url.shortener.challenge.util.Bulkheads;
+import url.shortener.challenge.util.UrlMetrics;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class LongUrlDeduplicatorTest {
+
+    private static final String URL = "https://example.com/";
+    private static final long HASH = 42L;
+
+    @Mock
+    private UrlRepository repo;
+
+    @Mock
+    private UrlMetrics metrics;
+
+    private LongUrlDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        AppProperties props = new AppProperties();
+        props.getDedup().setEnabled(true);
+        deduplicator = new LongUrlDeduplicator(repo, props, new Bulkheads(props), metrics);
+    }
+
+    @Test
+    void find_ShouldReturnLiveMatch_AndAnswerRepeatsLocally() {
+        when(repo.findByLongUrlHash(HASH)).thenReturn(List.of(url("old123", "HTTPS://EXAMPLE.com", null)));
+
+        assertThat(deduplicator.find(URL, HASH)).isEqualTo("old123");
+        assertThat(deduplicator.find(URL, HASH)).isEqualTo("old123");
+        verify(repo, times(1)).findByLongUrlHash(HASH);
+    }
+
+    @Test
+    void find_ShouldIgnoreHashCollisionsAndExpiredMappings() {
+        when(repo.findByLongUrlHash(HASH)).thenReturn(List.of(
+                url("other1", "https://other.com/", null),
+                url("gone12", URL, Instant.now().minusSeconds(60))));
+
+        assertThat(deduplicator.find(URL, HASH)).isNull();
+    }
+
+    @Test
+    void find_ShouldUseRememberedCode_WithoutQueryingMongo() {
+        deduplicator.remember(URL, HASH, "new123", Instant.now().plusSeconds(60));
+
+        assertThat(deduplicator.find(URL, HASH)).isEqualTo("new123");
+        verifyNoInteractions(repo);
+    }
+
+    @Test
+    void findAll_ShouldQueryOnlyUnknownHashes_InOneQuery() {
+        deduplicator.remember(URL, HASH, "new123", null);
+        when(repo.findByLongUrlHashIn(Set.of(7L))).thenReturn(List.of(
+                url("old123", "https://OTHER.com", null),
+                url("gone12", "https://third.com/", Instant.now().minusSeconds(60))));
+
+        Map<String, String> found = deduplicator.findAll(Map.of(
+                URL, HASH,
+                "https://other.com/", 7L));
+
+        assertThat(found).isEqualTo(Map.of(URL, "new123", "https://other.com/", "old123"));
+        verify(repo, times(1)).findByLongUrlHashIn(any());
+        assertThat(deduplicator.find("https://other.com/", 7L)).isEqualTo("old123");
+        verify(repo, never()).findByLongUrlHash(anyLong());
+    }
+
+    private static Url url(String code, String longUrl, Instant expiresAt) {
+        Url url = new Url();
+        url.setShortUrl(code);
+        url.setLongUrl(longUrl);
+        url.setExpiresAt(expiresAt);
+        return url;
+    }
+}
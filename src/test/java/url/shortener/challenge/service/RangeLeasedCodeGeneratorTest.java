@@ -0,0 +1,130 @@
+package url.shortener.challenge.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.bson.Document;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.service.impl.RangeLeasedCodeGenerator;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class RangeLeasedCodeGeneratorTest {
+
+    @Mock
+    private StringRedisTemplate redis;
+
+    @Mock
+    private ValueOperations<String, String> valueOps;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private AppProperties props;
+    private RangeLeasedCodeGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(redis.opsForValue()).thenReturn(valueOps);
+        when(valueOps.increment(anyString(), anyLong()))
+                .thenAnswer(inv -> sequence.addAndGet(inv.getArgument(1, Long.class)));
+
+        props = new AppProperties();
+        props.getRangeGenerator().setBlockSize(100);
+        generator = new RangeLeasedCodeGenerator(redis, provider(null), props);
+    }
+
+    @Test
+    void generate_ShouldReturnDistinctFixedLengthBase62Codes() {
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            codes.add(generator.generate(6));
+        }
+
+        assertThat(codes).hasSize(1000);
+        assertThat(codes).allMatch(code -> code.matches("[0-9A-Za-z]{6}"));
+    }
+
+    @Test
+    void generate_ShouldLeaseOneBlockPerBlockSizeCodes() {
+        for (int i = 0; i < 250; i++) {
+            generator.generate(6);
+        }
+
+        verify(valueOps, times(3)).increment(anyString(), eq(100L));
+    }
+
+    @Test
+    void generate_ShouldStayUniqueAcrossThreads() throws Exception {
+        Set<String> codes = java.util.concurrent.ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 500; i++) {
+                    codes.add(generator.generate(6));
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(codes).hasSize(4000);
+    }
+
+    @Test
+    void generate_ShouldFail_WhenCodeSpaceIsExhausted() {
+        sequence.set(62 * 62);
+
+        assertThatThrownBy(() -> generator.generate(2))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void generate_ShouldLeaseFromMongo_AfterSeedingPastTheRedisSequence() {
+        MongoTemplate mongo = mock(MongoTemplate.class);
+        when(valueOps.get("seq:url")).thenReturn("700");
+        when(mongo.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Document.class), eq("counters")))
+                .thenReturn(new Document("seq", 800L), new Document("seq", 900L));
+        RangeLeasedCodeGenerator durable = new RangeLeasedCodeGenerator(redis, provider(mongo), props);
+
+        for (int i = 0; i < 150; i++) {
+            durable.generate(6);
+        }
+
+        assertThat(durable.uniqueByConstruction()).isTrue();
+        verify(mongo).upsert(any(Query.class), eq(new Update().max("seq", 700L)), eq("counters"));
+        verify(mongo, times(2)).findAndModify(any(Query.class), eq(new Update().inc("seq", 100L)),
+                any(FindAndModifyOptions.class), eq(Document.class), eq("counters"));
+        verify(valueOps, never()).increment(anyString(), anyLong());
+    }
+
+    @Test
+    void generate_ShouldNotClaimUniqueness_WithTheRedisCounter() {
+        assertThat(generator.uniqueByConstruction()).isFalse();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<MongoTemplate> provider(MongoTemplate template) {
+        ObjectProvider<MongoTemplate> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(template);
+        return provider;
+    }
+}
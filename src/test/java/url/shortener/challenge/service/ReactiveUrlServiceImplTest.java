@@ -0,0 +1,244 @@
+package url.shortener.challenge.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import url.shortener.challenge.cache.CodeExistenceFilter;
+import url.shortener.challenge.cache.LocalUrlCache;
+import url.shortener.challenge.cache.UrlCacheInvalidator;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.dto.LongUrlRequestDto;
+import url.shortener.challenge.entity.Url;
+import url.shortener.challenge.exception.AliasAlreadyExistsException;
+import url.shortener.challenge.repository.ReactiveUrlRepository;
+import url.shortener.challenge.service.impl.HitCountBuffer;
+import url.shortener.challenge.service.impl.LongUrlDeduplicator;
+import url.shortener.challenge.service.impl.ReactiveUrlServiceImpl;
+import url.shortener.challenge.util.UrlMetrics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ReactiveUrlServiceImplTest {
+
+    @Mock
+    private ReactiveUrlRepository repo;
+
+    @Mock
+    private ReactiveStringRedisTemplate redis;
+
+    @Mock
+    private ReactiveValueOperations<String, String> valueOps;
+
+    @Mock
+    private AppProperties props;
+
+    @Mock
+    private CodeGenerator codeGenerator;
+
+    @Mock
+    private LocalUrlCache localCache;
+
+    @Mock
+    private UrlCacheInvalidator invalidator;
+
+    @Mock
+    private HitCountBuffer hitCounts;
+
+    @Mock
+    private CodeExistenceFilter existenceFilter;
+
+    @Mock
+    private UrlMetrics metrics;
+
+    @Mock
+    private LongUrlDeduplicator deduplicator;
+
+    @InjectMocks
+    private ReactiveUrlServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(redis.opsForValue()).thenReturn(valueOps);
+        when(valueOps.get(anyString())).thenReturn(Mono.empty());
+        when(redis.getExpire(anyString())).thenReturn(Mono.empty());
+        when(valueOps.set(anyString(), anyString())).thenReturn(Mono.just(true));
+        when(valueOps.set(anyString(), anyString(), any(Duration.class))).thenReturn(Mono.just(true));
+        when(redis.convertAndSend(anyString(), anyString())).thenReturn(Mono.just(1L));
+        when(repo.save(any(Url.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+        when(existenceFilter.mightContain(any())).thenReturn(true);
+
+        // Defaults to avoid NPE
+        when(props.getCodeLength()).thenReturn(6);
+        when(props.getDefaultTtlSeconds()).thenReturn(60L);
+    }
+
+    @Test
+    void create_ShouldGenerateShortUrl() {
+        when(repo.existsByShortUrl(any())).thenReturn(Mono.just(false));
+        when(codeGenerator.generate(anyInt())).thenReturn("abc123");
+
+        StepVerifier.create(service.create(new LongUrlRequestDto("https://example.com")))
+                .expectNextMatches(response -> response.getShortUrl().equals("abc123"))
+                .verifyComplete();
+
+        verify(valueOps).set(eq("url:abc123"), eq("https://example.com"), eq(Duration.ofSeconds(60)));
+        verify(invalidator).invalidateLocally("abc123");
+        verify(redis).convertAndSend(UrlCacheInvalidator.CHANNEL, "abc123");
+    }
+
+    @Test
+    void create_ShouldReturnExistingCode_WhenDedupFindsLongUrl() {
+        Url existing = new Url();
+        existing.setShortUrl("old123");
+        existing.setLongUrl("https://example.com/");
+        when(deduplicator.isEnabled()).thenReturn(true);
+        when(repo.findByLongUrlHash(anyLong())).thenReturn(Flux.just(existing));
+        when(deduplicator.match(eq("https://example.com/"), anyLong(), anyList())).thenReturn("old123");
+
+        StepVerifier.create(service.create(new LongUrlRequestDto("HTTPS://Example.com:443")))
+                .expectNextMatches(response -> response.getShortUrl().equals("old123"))
+                .verifyComplete();
+
+        verify(deduplicator).match(eq("https://example.com/"), anyLong(), eq(List.of(existing)));
+        verifyNoInteractions(codeGenerator);
+        verify(repo, never()).save(any());
+    }
+
+    @Test
+    void create_ShouldFailIfAliasAlreadyExists() {
+        when(repo.existsByShortUrl(any())).thenReturn(Mono.just(true));
+        when(codeGenerator.generate(anyInt())).thenReturn("abc123");
+
+        StepVerifier.create(service.create(new LongUrlRequestDto("https://example.com")))
+                .verifyError(AliasAlreadyExistsException.class);
+        verify(repo, never()).save(any());
+    }
+
+    @Test
+    void create_ShouldRetryWithLongerCode_OnDuplicateKey() {
+        when(codeGenerator.generate(anyInt())).thenReturn("abc123");
+        when(codeGenerator.uniqueByConstruction()).thenReturn(true);
+        when(repo.save(any(Url.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("taken")))
+                .thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+
+        StepVerifier.create(service.create(new LongUrlRequestDto("https://example.com")))
+                .expectNextMatches(response -> response.getShortUrl().length() == 7)
+                .verifyComplete();
+        verify(repo, never()).existsByShortUrl(any());
+    }
+
+    @Test
+    void resolve_ShouldReturnFromCache() {
+        when(valueOps.get("url:cache123")).thenReturn(Mono.just("https://cached.com"));
+        when(redis.getExpire("url:cache123")).thenReturn(Mono.just(Duration.ZERO));
+
+        StepVerifier.create(service.resolve("cache123"))
+                .expectNext("https://cached.com")
+                .verifyComplete();
+
+        verify(localCache).put("cache123", "https://cached.com", null);
+        verify(hitCounts).increment("cache123");
+        verifyNoInteractions(repo);
+    }
+
+    @Test
+    void resolve_ShouldReturnFromLocalCache_WithoutTouchingRedis() {
+        when(localCache.get("local123"))
+                .thenReturn(new LocalUrlCache.Entry("https://local.com", null, 1_000_000L));
+
+        StepVerifier.create(service.resolve("local123"))
+                .expectNext("https://local.com")
+                .verifyComplete();
+        verifyNoInteractions(valueOps);
+    }
+
+    @Test
+    void resolve_ShouldReturnFromDatabase_WhenNotInCache() {
+        Url entity = new Url();
+        entity.setShortUrl("db123");
+        entity.setLongUrl("https://db.com");
+        entity.setExpiresAt(Instant.now().plusSeconds(60));
+        when(repo.findByShortUrl("db123")).thenReturn(Mono.just(entity));
+
+        StepVerifier.create(service.resolve("db123"))
+                .expectNext("https://db.com")
+                .verifyComplete();
+
+        verify(valueOps).set(eq("url:db123"), eq("https://db.com"), any(Duration.class));
+        verify(localCache).put("db123", "https://db.com", entity.getExpiresAt());
+        verify(hitCounts).increment("db123");
+    }
+
+    @Test
+    void resolve_ShouldReturnEmpty_WhenUrlExpired() {
+        Url entity = new Url();
+        entity.setShortUrl("expired123");
+        entity.setLongUrl("https://expired.com");
+        entity.setExpiresAt(Instant.now().minusSeconds(60));
+        when(repo.findByShortUrl("expired123")).thenReturn(Mono.just(entity));
+
+        StepVerifier.create(service.resolve("expired123")).verifyComplete();
+        verify(localCache).markMissing("expired123");
+        verify(existenceFilter, never()).recordFalsePositive();
+    }
+
+    @Test
+    void resolve_ShouldSkipDatabase_WhenFilterRulesCodeOut() {
+        when(existenceFilter.mightContain("none123")).thenReturn(false);
+
+        StepVerifier.create(service.resolve("none123")).verifyComplete();
+        verify(localCache).markMissing("none123");
+        verifyNoInteractions(repo);
+    }
+
+    @Test
+    void resolve_ShouldAnswerFromNegativeCache_WithoutTouchingRedis() {
+        when(localCache.isKnownMissing("none123")).thenReturn(true);
+
+        StepVerifier.create(service.resolve("none123")).verifyComplete();
+        verifyNoInteractions(valueOps, repo);
+    }
+
+    @Test
+    void resolve_ShouldRememberMissingCode_WhenFilterLetsItThrough() {
+        when(repo.findByShortUrl("none123")).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.resolve("none123")).verifyComplete();
+        verify(existenceFilter).recordFalsePositive();
+        verify(localCache).markMissing("none123");
+    }
+
+    @Test
+    void lookup_ShouldShareOneLoad_BetweenConcurrentMisses() {
+        Url entity = new Url();
+        entity.setShortUrl("db123");
+        entity.setLongUrl("https://db.com");
+        when(repo.findByShortUrl("db123")).thenReturn(Mono.just(entity).delayElement(Duration.ofMillis(100)));
+
+        StepVerifier.create(Mono.zip(service.lookup("db123"), service.lookup("db123")))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(repo, times(1)).findByShortUrl("db123");
+        verify(hitCounts, times(2)).increment("db123");
+    }
+}
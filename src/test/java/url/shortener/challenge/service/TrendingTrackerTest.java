@@ -0,0 +1,90 @@
+package url.shortener.challenge.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisHashCommands;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.dto.TrendingResponseDto;
+import url.shortener.challenge.service.impl.TrendingTracker;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TrendingTrackerTest {
+
+    // the shared hash, keyed by the replica field as a string
+    private final Map<String, byte[]> hash = new LinkedHashMap<>();
+    private StringRedisTemplate redis;
+    private AppProperties props;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisHashCommands hashCommands = mock(RedisHashCommands.class);
+        when(hashCommands.hSet(any(), any(), any())).thenAnswer(inv -> {
+            hash.put(new String((byte[]) inv.getArgument(1)), inv.getArgument(2));
+            return true;
+        });
+        when(hashCommands.hGetAll(any())).thenAnswer(inv -> {
+            Map<byte[], byte[]> all = new LinkedHashMap<>();
+            hash.forEach((field, value) -> all.put(field.getBytes(), value));
+            return all;
+        });
+        when(hashCommands.hDel(any(), any(byte[][].class))).thenAnswer(inv -> {
+            for (byte[] field : (byte[][]) inv.getRawArguments()[1]) {
+                hash.remove(new String(field));
+            }
+            return 1L;
+        });
+        RedisConnection connection = mock(RedisConnection.class);
+        when(connection.hashCommands()).thenReturn(hashCommands);
+        when(connection.keyCommands()).thenReturn(mock(RedisKeyCommands.class));
+        redis = mock(StringRedisTemplate.class);
+        when(redis.execute(any(RedisCallback.class)))
+                .thenAnswer(inv -> ((RedisCallback<?>) inv.getArgument(0)).doInRedis(connection));
+
+        props = new AppProperties();
+        props.getTrending().setEnabled(true);
+        props.getTrending().setTopK(2);
+        props.getTrending().setSketchWidth(256);
+    }
+
+    @Test
+    void publish_ShouldMergeAllReplicas_AndDropAbandonedOnes() {
+        TrendingTracker first = new TrendingTracker(redis, props);
+        TrendingTracker second = new TrendingTracker(redis, props);
+        first.record(Map.of("abc123", 50L, "cold01", 1L));
+        second.record(Map.of("abc123", 20L, "xyz789", 40L));
+        hash.put("gone", ByteBuffer.allocate(Long.BYTES).putLong(0).array());
+
+        first.publish();
+        second.publish();
+        TrendingResponseDto top = second.top(5);
+
+        assertThat(top.getReplicas()).isEqualTo(2);
+        assertThat(top.getItems()).extracting(TrendingResponseDto.Item::getShortUrl).containsExactly("abc123", "xyz789");
+        assertThat(top.getItems().get(0).getScore()).isBetween(69.0, 70.0);
+        assertThat(hash).doesNotContainKey("gone").hasSize(2);
+    }
+
+    @Test
+    void publish_ShouldServeTheLocalView_WhenRedisIsDown() {
+        when(redis.execute(any(RedisCallback.class))).thenThrow(new RuntimeException("redis down"));
+        TrendingTracker tracker = new TrendingTracker(redis, props);
+        tracker.record(Map.of("abc123", 5L));
+
+        tracker.publish();
+
+        assertThat(tracker.top(1).getReplicas()).isEqualTo(1);
+        assertThat(tracker.top(1).getItems()).extracting(TrendingResponseDto.Item::getShortUrl).containsExactly("abc123");
+    }
+}
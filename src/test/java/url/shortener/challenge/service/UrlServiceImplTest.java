@@ -5,25 +5,47 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import url.shortener.challenge.cache.CodeExistenceFilter;
+import url.shortener.challenge.cache.LocalUrlCache;
+import url.shortener.challenge.cache.ResolveIndex;
+import url.shortener.challenge.cache.UrlCacheInvalidator;
 import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.dto.BulkCreateResultDto;
 import url.shortener.challenge.dto.LongUrlRequestDto;
+import url.shortener.challenge.dto.ResolveResultDto;
 import url.shortener.challenge.dto.ShortUrlResponseDto;
 import url.shortener.challenge.exception.AliasAlreadyExistsException;
 import url.shortener.challenge.entity.Url;
 import url.shortener.challenge.repository.UrlRepository;
 import url.shortener.challenge.service.CodeGenerator;
+import url.shortener.challenge.service.impl.HitCountBuffer;
+import url.shortener.challenge.service.impl.LongUrlDeduplicator;
 import url.shortener.challenge.service.impl.UrlServiceImpl;
+import url.shortener.challenge.service.impl.WriteBehindJournal;
+import url.shortener.challenge.util.Bulkheads;
+import url.shortener.challenge.util.Hashing;
+import url.shortener.challenge.util.UrlMetrics;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 class UrlServiceImplTest {
@@ -43,6 +65,33 @@ class UrlServiceImplTest {
     @Mock
     private CodeGenerator codeGenerator;
 
+    @Mock
+    private LocalUrlCache localCache;
+
+    @Mock
+    private UrlCacheInvalidator invalidator;
+
+    @Mock
+    private HitCountBuffer hitCounts;
+
+    @Mock
+    private CodeExistenceFilter existenceFilter;
+
+    @Mock
+    private UrlMetrics metrics;
+
+    @Mock
+    private LongUrlDeduplicator deduplicator;
+
+    @Mock
+    private WriteBehindJournal journal;
+
+    @Mock
+    private ResolveIndex resolveIndex;
+
+    @Spy
+    private Bulkheads bulkheads = new Bulkheads(new AppProperties());
+
     @InjectMocks
     private UrlServiceImpl service;
 
@@ -50,6 +99,7 @@ class UrlServiceImplTest {
     void setUp() {
         MockitoAnnotations.openMocks(this);
         when(redis.opsForValue()).thenReturn(valueOps);
+        when(existenceFilter.mightContain(any())).thenReturn(true);
 
         // Defaults to avoid NPE
         when(props.getCodeLength()).thenReturn(6);
@@ -67,6 +117,47 @@ class UrlServiceImplTest {
 
         assertThat(response.getShortUrl()).isEqualTo("abc123");
         verify(repo).save(any(Url.class));
+        verify(invalidator).publish("abc123");
+    }
+
+    @Test
+    void create_ShouldReturnExistingCode_WhenDedupFindsLongUrl() {
+        when(deduplicator.isEnabled()).thenReturn(true);
+        when(deduplicator.find(eq("https://example.com/"), anyLong())).thenReturn("old123");
+
+        ShortUrlResponseDto response = service.create(new LongUrlRequestDto("HTTPS://Example.com:443"));
+
+        assertThat(response.getShortUrl()).isEqualTo("old123");
+        verifyNoInteractions(codeGenerator);
+        verify(repo, never()).save(any());
+    }
+
+    @Test
+    void create_ShouldStoreUrlHash_AndRememberNewCode() {
+        when(deduplicator.isEnabled()).thenReturn(true);
+        when(codeGenerator.generate(anyInt())).thenReturn("abc123");
+        when(codeGenerator.uniqueByConstruction()).thenReturn(true);
+
+        service.create(new LongUrlRequestDto("https://example.com"));
+
+        long hash = Hashing.hash64("https://example.com/");
+        verify(repo).save(argThat(url -> url.getLongUrlHash() == hash));
+        verify(deduplicator).remember(eq("https://example.com/"), eq(hash), eq("abc123"), any());
+    }
+
+    @Test
+    void create_ShouldJournalInsteadOfSaving_WhenWriteBehindIsEnabled() {
+        when(journal.isEnabled()).thenReturn(true);
+        when(codeGenerator.generate(anyInt())).thenReturn("abc123");
+        when(codeGenerator.uniqueByConstruction()).thenReturn(true);
+
+        ShortUrlResponseDto response = service.create(new LongUrlRequestDto("https://example.com"));
+
+        assertThat(response.getShortUrl()).isEqualTo("abc123");
+        verify(journal).append(argThat(url -> url.getShortUrl().equals("abc123")));
+        verify(repo, never()).save(any());
+        verify(valueOps).set(eq("url:abc123"), eq("https://example.com"), any());
+        verify(invalidator).publish("abc123");
     }
 
     @Test
@@ -80,15 +171,115 @@ class UrlServiceImplTest {
                 .isInstanceOf(AliasAlreadyExistsException.class);
     }
 
+    @Test
+    void create_ShouldSkipExistenceCheck_WhenCodesAreUniqueByConstruction() {
+        LongUrlRequestDto req = new LongUrlRequestDto("https://example.com");
+
+        when(codeGenerator.generate(anyInt())).thenReturn("abc123");
+        when(codeGenerator.uniqueByConstruction()).thenReturn(true);
+
+        ShortUrlResponseDto response = service.create(req);
+
+        assertThat(response.getShortUrl()).isEqualTo("abc123");
+        verify(repo, never()).existsByShortUrl(any());
+        verify(repo).save(any(Url.class));
+    }
+
+    @Test
+    void createAll_ShouldRetryDuplicateCodesAndReportLeftovers() {
+        when(codeGenerator.generate(anyInt())).thenReturn("aaa111", "bbb222", "ccc333");
+        when(repo.insertAllUnordered(anyList()))
+                .thenReturn(Set.of(1, 2))   // first pass: two codes taken
+                .thenReturn(Set.of(1));     // retry: the second of those still clashes
+
+        List<BulkCreateResultDto> results = service.createAll(List.of(
+                new LongUrlRequestDto("https://a.com"),
+                new LongUrlRequestDto("https://b.com"),
+                new LongUrlRequestDto("https://c.com")));
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0).getShortUrl()).isEqualTo("aaa111");
+        assertThat(results.get(1).getShortUrl()).hasSize(7);
+        assertThat(results.get(2).getShortUrl()).isNull();
+        assertThat(results.get(2).getErrorCode()).isEqualTo(102);
+        verify(repo, times(2)).insertAllUnordered(anyList());
+        verify(redis).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    void createAll_ShouldReuseExistingCodes_AndShareOneCodePerRepeatedUrl() {
+        when(deduplicator.isEnabled()).thenReturn(true);
+        when(deduplicator.findAll(any())).thenReturn(Map.of("https://old.com/", "old123"));
+        when(codeGenerator.generate(anyInt())).thenReturn("new123", "new456");
+        when(repo.insertAllUnordered(anyList())).thenReturn(Set.of());
+
+        List<BulkCreateResultDto> results = service.createAll(List.of(
+                new LongUrlRequestDto("https://a.com"),
+                new LongUrlRequestDto("HTTPS://OLD.com"),
+                new LongUrlRequestDto("https://A.com:443/"),
+                new LongUrlRequestDto("https://b.com")));
+
+        assertThat(results).extracting(BulkCreateResultDto::getShortUrl)
+                .containsExactly("new123", "old123", "new123", "new456");
+        verify(repo).insertAllUnordered(argThat(urls -> urls.size() == 2));
+        verify(deduplicator).remember(eq("https://a.com/"), anyLong(), eq("new123"), any());
+        verify(deduplicator).remember(eq("https://b.com/"), anyLong(), eq("new456"), any());
+    }
+
     @Test
     void resolve_ShouldReturnFromCache() {
         String shortUrl = "cache123";
-        when(valueOps.get("url:" + shortUrl)).thenReturn("https://cached.com");
+        cacheHolds(shortUrl, "https://cached.com", 30_000L);
 
         Optional<String> result = service.resolve(shortUrl);
 
         assertThat(result).contains("https://cached.com");
-        verify(valueOps).get("url:" + shortUrl);
+        verify(redis).executePipelined(any(RedisCallback.class));
+        verify(valueOps, never()).get(any());
+        verify(localCache).put(eq(shortUrl), eq("https://cached.com"), argThat(expiresAt ->
+                expiresAt.isAfter(Instant.now().plusSeconds(25)) && !expiresAt.isAfter(Instant.now().plusSeconds(30))));
+        verify(hitCounts).increment(shortUrl);
+        verifyNoInteractions(repo);
+    }
+
+    @Test
+    void resolve_ShouldReturnFromLocalCache_WithoutTouchingRedis() {
+        String shortUrl = "local123";
+        when(localCache.get(shortUrl))
+                .thenReturn(new LocalUrlCache.Entry("https://local.com", null, 1_000_000L));
+
+        Optional<String> result = service.resolve(shortUrl);
+
+        assertThat(result).contains("https://local.com");
+        verifyNoInteractions(redis, valueOps);
+    }
+
+    @Test
+    void resolve_ShouldAnswerFromResolveIndex_BeforeNegativeCacheAndRedis() {
+        String shortUrl = "index123";
+        when(resolveIndex.get(shortUrl)).thenReturn(new ResolveIndex.Entry("https://indexed.com", null));
+        when(localCache.isKnownMissing(shortUrl)).thenReturn(true);
+
+        Optional<String> result = service.resolve(shortUrl);
+
+        assertThat(result).contains("https://indexed.com");
+        verify(hitCounts).increment(shortUrl);
+        verifyNoInteractions(redis, valueOps, repo);
+    }
+
+    @Test
+    void resolve_ShouldReloadHotLocalEntry_InTheBackground() {
+        String shortUrl = "hot123";
+        LocalUrlCache.Entry entry = new LocalUrlCache.Entry("https://local.com", null, 1_000_000L);
+        when(localCache.get(shortUrl)).thenReturn(entry);
+        when(localCache.isDueForRefresh(shortUrl, entry)).thenReturn(true);
+        cacheHolds(shortUrl, "https://local.com", -1L);
+
+        Optional<String> result = service.resolve(shortUrl);
+
+        assertThat(result).contains("https://local.com");
+        verify(localCache, timeout(1000)).put(shortUrl, "https://local.com", null);
+        verify(hitCounts, times(1)).increment(shortUrl);
     }
 
     @Test
@@ -99,7 +290,6 @@ class UrlServiceImplTest {
         entity.setLongUrl("https://db.com");
         entity.setExpiresAt(Instant.now().plusSeconds(60));
 
-        when(valueOps.get("url:" + shortUrl)).thenReturn(null);
         when(repo.findByShortUrl(shortUrl)).thenReturn(Optional.of(entity));
 
         Optional<String> result = service.resolve(shortUrl);
@@ -107,6 +297,19 @@ class UrlServiceImplTest {
         assertThat(result).contains("https://db.com");
         verify(repo, atLeastOnce()).findByShortUrl(shortUrl);
         verify(valueOps).set(eq("url:" + shortUrl), eq("https://db.com"), any());
+        verify(localCache).put(shortUrl, "https://db.com", entity.getExpiresAt());
+    }
+
+    @Test
+    void resolve_ShouldReturnJournaledMapping_BeforeItReachesMongo() {
+        Url entity = new Url();
+        entity.setShortUrl("new123");
+        entity.setLongUrl("https://new.com");
+        when(journal.pending("new123")).thenReturn(entity);
+
+        assertThat(service.resolve("new123")).contains("https://new.com");
+        verify(localCache).put("new123", "https://new.com", null);
+        verifyNoInteractions(repo);
     }
 
     @Test
@@ -117,11 +320,123 @@ class UrlServiceImplTest {
         entity.setLongUrl("https://expired.com");
         entity.setExpiresAt(Instant.now().minusSeconds(60)); // already expired
 
-        when(valueOps.get("url:" + shortUrl)).thenReturn(null);
         when(repo.findByShortUrl(shortUrl)).thenReturn(Optional.of(entity));
 
         Optional<String> result = service.resolve(shortUrl);
 
         assertThat(result).isEmpty();
     }
+
+    @Test
+    void resolve_ShouldSkipDatabase_WhenFilterRulesCodeOut() {
+        String shortUrl = "none123";
+        when(existenceFilter.mightContain(shortUrl)).thenReturn(false);
+
+        Optional<String> result = service.resolve(shortUrl);
+
+        assertThat(result).isEmpty();
+        verify(redis).executePipelined(any(RedisCallback.class));
+        verify(localCache).markMissing(shortUrl);
+        verifyNoInteractions(repo);
+    }
+
+    @Test
+    void resolve_ShouldAnswerFromNegativeCache_WithoutTouchingRedis() {
+        String shortUrl = "none123";
+        when(localCache.isKnownMissing(shortUrl)).thenReturn(true);
+
+        Optional<String> result = service.resolve(shortUrl);
+
+        assertThat(result).isEmpty();
+        verifyNoInteractions(redis, valueOps, repo);
+    }
+
+    @Test
+    void resolve_ShouldRememberMissingCode_WhenFilterLetsItThrough() {
+        String shortUrl = "none123";
+        when(repo.findByShortUrl(shortUrl)).thenReturn(Optional.empty());
+
+        Optional<String> result = service.resolve(shortUrl);
+
+        assertThat(result).isEmpty();
+        verify(existenceFilter).recordFalsePositive();
+        verify(localCache).markMissing(shortUrl);
+    }
+
+    @Test
+    void resolveAll_ShouldUseOneMgetAndOneInQuery() {
+        Url fromDb = new Url();
+        fromDb.setShortUrl("db123");
+        fromDb.setLongUrl("https://db.com");
+        Url expired = new Url();
+        expired.setShortUrl("old123");
+        expired.setLongUrl("https://old.com");
+        expired.setExpiresAt(Instant.now().minusSeconds(60));
+
+        when(valueOps.multiGet(List.of("url:cache123", "url:db123", "url:old123", "url:none123")))
+                .thenReturn(Arrays.asList("https://cached.com", null, null, null));
+        when(repo.findByShortUrlIn(List.of("db123", "old123", "none123")))
+                .thenReturn(List.of(fromDb, expired));
+
+        Map<String, ResolveResultDto> results =
+                service.resolveAll(List.of("cache123", "db123", "old123", "none123", "cache123"));
+
+        assertThat(results.keySet()).containsExactly("cache123", "db123", "old123", "none123");
+        assertThat(results.get("cache123")).isEqualTo(ResolveResultDto.found("https://cached.com"));
+        assertThat(results.get("db123")).isEqualTo(ResolveResultDto.found("https://db.com"));
+        assertThat(results.get("old123")).isEqualTo(ResolveResultDto.expired());
+        assertThat(results.get("none123")).isEqualTo(ResolveResultDto.notFound());
+        verify(valueOps, never()).get(any());
+        verify(redis).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    void resolveAll_ShouldReturnJournaledMapping_WithoutMarkingItMissing() {
+        Url entity = new Url();
+        entity.setShortUrl("new123");
+        entity.setLongUrl("https://new.com");
+        when(journal.pending("new123")).thenReturn(entity);
+        when(existenceFilter.mightContain("new123")).thenReturn(false);
+        when(valueOps.multiGet(List.of("url:new123", "url:none123"))).thenReturn(Arrays.asList(null, null));
+
+        Map<String, ResolveResultDto> results = service.resolveAll(List.of("new123", "none123"));
+
+        assertThat(results.get("new123")).isEqualTo(ResolveResultDto.found("https://new.com"));
+        assertThat(results.get("none123")).isEqualTo(ResolveResultDto.notFound());
+        verify(localCache).put("new123", "https://new.com", null);
+        verify(localCache, never()).markMissing("new123");
+        verify(repo).findByShortUrlIn(List.of("none123"));
+    }
+
+    @Test
+    void resolveAll_ShouldLeaveFilteredCodesOutOfInQuery() {
+        Url fromDb = new Url();
+        fromDb.setShortUrl("db123");
+        fromDb.setLongUrl("https://db.com");
+
+        when(existenceFilter.mightContain("none123")).thenReturn(false);
+        when(valueOps.multiGet(List.of("url:db123", "url:none123"))).thenReturn(Arrays.asList(null, null));
+        when(repo.findByShortUrlIn(List.of("db123"))).thenReturn(List.of(fromDb));
+
+        Map<String, ResolveResultDto> results = service.resolveAll(List.of("db123", "none123"));
+
+        assertThat(results.get("db123")).isEqualTo(ResolveResultDto.found("https://db.com"));
+        assertThat(results.get("none123")).isEqualTo(ResolveResultDto.notFound());
+        verify(localCache).markMissing("none123");
+    }
+
+    /**
+     * Answers the pipelined GET and PTTL of a cache lookup, checking that both read the code's key.
+     */
+    @SuppressWarnings("unchecked")
+    private void cacheHolds(String shortUrl, String longUrl, long ttlMillis) {
+        byte[] key = ("url:" + shortUrl).getBytes(StandardCharsets.UTF_8);
+        when(redis.executePipelined(any(RedisCallback.class))).thenAnswer(inv -> {
+            RedisConnection connection = mock(RedisConnection.class, RETURNS_DEEP_STUBS);
+            inv.<RedisCallback<Object>>getArgument(0).doInRedis(connection);
+            verify(connection.stringCommands()).get(key);
+            verify(connection.keyCommands()).pTtl(key);
+            return Arrays.asList(longUrl, ttlMillis);
+        });
+    }
 }
@@ -0,0 +1,156 @@
+package url.shortener.challenge.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import url.shortener.challenge.cache.UrlCacheInvalidator;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.entity.Url;
+import url.shortener.challenge.repository.UrlRepository;
+import url.shortener.challenge.service.impl.WriteBehindJournal;
+import url.shortener.challenge.util.Bulkheads;
+import url.shortener.challenge.util.UrlMetrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class WriteBehindJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Mock
+    private UrlRepository repo;
+
+    @Mock
+    private CodeGenerator codeGenerator;
+
+    @Mock
+    private UrlCacheInvalidator invalidator;
+
+    @Mock
+    private UrlMetrics metrics;
+
+    private AppProperties props;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(codeGenerator.uniqueByConstruction()).thenReturn(true);
+        when(repo.insertAllUnordered(anyList())).thenReturn(Set.of());
+        props = new AppProperties();
+        props.getWriteBehind().setEnabled(true);
+        props.getWriteBehind().setJournalDir(dir.toString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldInsertJournaledCreates_AndDeleteTheSegment() throws IOException {
+        WriteBehindJournal journal = journal();
+        journal.append(url("abc123", Instant.now().plusSeconds(60)));
+        journal.append(url("def456", null));
+        assertThat(journal.pending("abc123")).isNotNull();
+
+        journal.flush();
+
+        ArgumentCaptor<List<Url>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(repo).insertAllUnordered(inserted.capture());
+        assertThat(inserted.getValue()).extracting(Url::getShortUrl).containsExactly("abc123", "def456");
+        assertThat(journal.pending("abc123")).isNull();
+        // only the fresh, empty active segment is left
+        assertThat(segments()).hasSize(1).allSatisfy(p -> assertThat(Files.size(p)).isZero());
+    }
+
+    @Test
+    void flush_ShouldKeepCreatesJournaled_WhenMongoFails() {
+        WriteBehindJournal journal = journal();
+        journal.append(url("abc123", null));
+        when(repo.insertAllUnordered(anyList())).thenThrow(new RuntimeException("mongo down")).thenReturn(Set.of());
+
+        journal.flush();
+        assertThat(journal.pending("abc123")).isNotNull();
+
+        journal.flush();
+        assertThat(journal.pending("abc123")).isNull();
+        verify(repo, times(2)).insertAllUnordered(anyList());
+    }
+
+    @Test
+    void flush_ShouldEvictCollidingCodes_ButNotReplayedOnes() {
+        WriteBehindJournal journal = journal();
+        journal.append(url("abc123", null));
+        journal.append(url("def456", null));
+        when(repo.insertAllUnordered(anyList())).thenReturn(Set.of(0, 1));
+        Url replayed = url("abc123", null);
+        Url other = url("def456", null);
+        other.setLongUrl("https://other.example.com");
+        when(repo.findByShortUrlIn(anyCollection())).thenReturn(List.of(replayed, other));
+
+        journal.flush();
+
+        verify(invalidator).evict("def456");
+        verify(invalidator, never()).evict("abc123");
+        assertThat(journal.pending("def456")).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recover_ShouldReplayUnflushedCreates_AndDropTornTail() throws IOException {
+        Instant expiresAt = Instant.now().plusSeconds(60);
+        WriteBehindJournal crashed = journal();
+        crashed.append(url("abc123", expiresAt));
+        crashed.append(url("def456", null));
+        // a record cut short by the crash
+        Files.write(segments().get(0), new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        WriteBehindJournal restarted = journal();
+        assertThat(restarted.pending("abc123").getExpiresAt()).isEqualTo(expiresAt);
+        restarted.flush();
+
+        ArgumentCaptor<List<Url>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(repo).insertAllUnordered(inserted.capture());
+        assertThat(inserted.getValue()).extracting(Url::getShortUrl).containsExactly("abc123", "def456");
+        assertThat(inserted.getValue().get(0).getLongUrlHash()).isEqualTo(42L);
+    }
+
+    @Test
+    void constructor_ShouldRejectGeneratorsThatMayRepeatCodes() {
+        when(codeGenerator.uniqueByConstruction()).thenReturn(false);
+
+        assertThatThrownBy(this::journal).isInstanceOf(IllegalStateException.class);
+    }
+
+    private WriteBehindJournal journal() {
+        return new WriteBehindJournal(repo, props, codeGenerator, invalidator, new Bulkheads(props), metrics);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static Url url(String code, Instant expiresAt) {
+        Url url = new Url();
+        url.setShortUrl(code);
+        url.setLongUrl("https://example.com/" + code);
+        url.setLongUrlHash(42L);
+        url.setExpiresAt(expiresAt);
+        return url;
+    }
+}
@@ -0,0 +1,59 @@
+package url.shortener.challenge.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import url.shortener.challenge.config.AppProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccessLogTest {
+
+    private AppProperties props;
+    private List<String> written;
+
+    @BeforeEach
+    void setUp() {
+        props = new AppProperties();
+        written = new ArrayList<>();
+    }
+
+    @Test
+    void drain_ShouldWriteBufferedEventsAsOneBatch() {
+        AccessLog accessLog = new AccessLog(props, batch -> written.add(batch.toString()));
+
+        accessLog.record("GET", "/abc123", 302, System.nanoTime(), "127.0.0.1");
+        accessLog.record("POST", "/api/v1/urls", 201, System.nanoTime(), "127.0.0.1");
+
+        assertThat(accessLog.drain()).isEqualTo(2);
+        assertThat(written).hasSize(1);
+        assertThat(written.get(0).lines()).hasSize(2);
+        assertThat(written.get(0)).contains("method=GET uri=/abc123 status=302", "status=201 micros=");
+        assertThat(accessLog.drain()).isZero();
+    }
+
+    @Test
+    void record_ShouldDropEvents_WhenBufferIsFull() {
+        props.getAccessLog().setBufferSize(4);
+        AccessLog accessLog = new AccessLog(props, batch -> written.add(batch.toString()));
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(accessLog.record("GET", "/code" + i, 302, System.nanoTime(), "127.0.0.1")).isTrue();
+        }
+        assertThat(accessLog.record("GET", "/code4", 302, System.nanoTime(), "127.0.0.1")).isFalse();
+
+        accessLog.drain();
+        assertThat(accessLog.record("GET", "/code5", 302, System.nanoTime(), "127.0.0.1")).isTrue();
+    }
+
+    @Test
+    void record_ShouldKeepErrors_WhenSuccessesAreSampledOut() {
+        props.getAccessLog().setSampleRate(0.0);
+        AccessLog accessLog = new AccessLog(props, batch -> written.add(batch.toString()));
+
+        assertThat(accessLog.record("GET", "/abc123", 302, System.nanoTime(), "127.0.0.1")).isFalse();
+        assertThat(accessLog.record("GET", "/none12", 404, System.nanoTime(), "127.0.0.1")).isTrue();
+    }
+}
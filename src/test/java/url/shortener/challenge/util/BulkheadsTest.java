@@ -0,0 +1,45 @@
+package url.shortener.challenge.util;
+
+import org.junit.jupiter.api.Test;
+import url.shortener.challenge.config.AppProperties;
+import url.shortener.challenge.exception.BackendBusyException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BulkheadsTest {
+
+    @Test
+    void call_ShouldFailFast_WhenBackendIsSaturated() throws Exception {
+        AppProperties props = new AppProperties();
+        props.getBulkhead().setMongoMaxConcurrent(1);
+        props.getBulkhead().setAcquireTimeout(Duration.ofMillis(10));
+        Bulkheads bulkheads = new Bulkheads(props);
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread holder = Thread.ofVirtual().start(() -> bulkheads.run(Bulkheads.Backend.MONGO, () -> {
+            inside.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        inside.await(5, TimeUnit.SECONDS);
+
+        assertThatThrownBy(() -> bulkheads.call(Bulkheads.Backend.MONGO, () -> "late"))
+                .isInstanceOf(BackendBusyException.class)
+                .hasMessage("mongo");
+        // other backends are unaffected
+        assertThat(bulkheads.call(Bulkheads.Backend.REDIS, () -> "ok")).isEqualTo("ok");
+
+        release.countDown();
+        holder.join();
+        assertThat(bulkheads.call(Bulkheads.Backend.MONGO, () -> "ok")).isEqualTo("ok");
+    }
+}
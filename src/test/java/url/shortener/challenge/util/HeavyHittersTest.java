@@ -0,0 +1,47 @@
+package url.shortener.challenge.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HeavyHittersTest {
+
+    @Test
+    void top_ShouldFindHotCodes_AmongManyColdOnes() {
+        HeavyHitters hitters = new HeavyHitters(4096, 4, 40);
+        for (int round = 0; round < 20; round++) {
+            for (int hot = 0; hot < 10; hot++) {
+                hitters.add("hot" + hot, 50 - hot);
+            }
+            for (int cold = 0; cold < 2_000; cold++) {
+                hitters.add("cold" + round + "_" + cold, 1);
+            }
+        }
+
+        assertThat(hitters.top(10)).extracting(Map.Entry::getKey)
+                .containsExactly("hot0", "hot1", "hot2", "hot3", "hot4", "hot5", "hot6", "hot7", "hot8", "hot9");
+        // never below the true count, and the overcount stays around e/width of the total weight
+        assertThat(hitters.top(1).get(0).getValue()).isBetween(1000.0, 1000.0 + 2.72 / 4096 * 49_000);
+    }
+
+    @Test
+    void merge_ShouldCombineReplicas_AfterDecayAndSerialization() {
+        HeavyHitters first = new HeavyHitters(256, 4, 8);
+        HeavyHitters second = new HeavyHitters(256, 4, 8);
+        first.add("abc123", 100);
+        first.add("only01", 30);
+        second.add("abc123", 60);
+        second.add("only02", 80);
+        second.scale(0.5);
+
+        HeavyHitters merged = new HeavyHitters(256, 4, 8);
+        merged.merge(HeavyHitters.fromBytes(first.toBytes()), 1);
+        merged.merge(HeavyHitters.fromBytes(second.toBytes()), 0.5);
+
+        assertThat(merged.top(3)).extracting(Map.Entry::getKey).containsExactly("abc123", "only01", "only02");
+        assertThat(merged.top(1).get(0).getValue()).isCloseTo(115, within(0.01));
+    }
+}
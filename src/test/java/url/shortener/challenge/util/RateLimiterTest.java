@@ -0,0 +1,109 @@
+package url.shortener.challenge.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import url.shortener.challenge.config.AppProperties;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RateLimiterTest {
+
+    @Mock
+    private StringRedisTemplate redis;
+
+    @Mock
+    private UrlMetrics metrics;
+
+    private AppProperties props;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        props = new AppProperties();
+    }
+
+    @Test
+    void allow_ShouldAskRedisForOneToken_PerRequest() {
+        grant(1L, 0L);
+        RateLimiter limiter = new RateLimiter(redis, props, metrics, new Bulkheads(props));
+
+        assertThat(limiter.allow("create", "127.0.0.1")).isTrue();
+        assertThat(limiter.allow("create", "127.0.0.1")).isTrue();
+
+        // 60 per minute: one request every 1,000,000 µs, bursts of 60
+        verify(redis, times(2)).execute(any(RedisScript.class), eq(List.of("rate:create:127.0.0.1")),
+                eq("1000000"), eq("60000000"), eq("1"));
+    }
+
+    @Test
+    void allow_ShouldReject_WhenRedisGrantsNothing() {
+        grant(0L, 500_000L);
+        RateLimiter limiter = new RateLimiter(redis, props, metrics, new Bulkheads(props));
+
+        assertThat(limiter.allow("create", "127.0.0.1")).isFalse();
+    }
+
+    @Test
+    void allow_ShouldUsePerKeyLimit() {
+        props.getRateLimit().getRoutes().get("create").getKeys().put("10.0.0.1", 600L);
+        grant(1L, 0L);
+        RateLimiter limiter = new RateLimiter(redis, props, metrics, new Bulkheads(props));
+
+        limiter.allow("create", "10.0.0.1");
+
+        verify(redis).execute(any(RedisScript.class), eq(List.of("rate:create:10.0.0.1")),
+                eq("100000"), eq("60000000"), eq("1"));
+    }
+
+    @Test
+    void allow_ShouldAdmitFromLeasedTokens_WithLocalAdmission() {
+        props.getRateLimit().setLocalAdmission(true);
+        props.getRateLimit().setLeaseSize(5);
+        grant(5L, 0L);
+        RateLimiter limiter = new RateLimiter(redis, props, metrics, new Bulkheads(props));
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.allow("create", "127.0.0.1")).isTrue();
+        }
+
+        verify(redis, times(1)).execute(any(RedisScript.class), any(), any(Object[].class));
+    }
+
+    @Test
+    void allow_ShouldRememberRejection_UntilRetryAfter() {
+        props.getRateLimit().setLocalAdmission(true);
+        grant(0L, 60_000_000L);
+        RateLimiter limiter = new RateLimiter(redis, props, metrics, new Bulkheads(props));
+
+        assertThat(limiter.allow("create", "127.0.0.1")).isFalse();
+        assertThat(limiter.allow("create", "127.0.0.1")).isFalse();
+
+        verify(redis, times(1)).execute(any(RedisScript.class), any(), any(Object[].class));
+    }
+
+    @Test
+    void allow_ShouldRejectUnknownRoute() {
+        RateLimiter limiter = new RateLimiter(redis, props, metrics, new Bulkheads(props));
+
+        assertThatThrownBy(() -> limiter.allow("unknown", "127.0.0.1"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void grant(long granted, long retryAfterMicros) {
+        when(redis.execute(any(RedisScript.class), any(), any(Object[].class)))
+                .thenReturn(List.of(granted, retryAfterMicros));
+    }
+}
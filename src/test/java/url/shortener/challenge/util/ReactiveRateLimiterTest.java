@@ -0,0 +1,66 @@
+package url.shortener.challenge.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import url.shortener.challenge.config.AppProperties;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReactiveRateLimiterTest {
+
+    @Mock
+    private ReactiveStringRedisTemplate redis;
+
+    @Mock
+    private UrlMetrics metrics;
+
+    private AppProperties props;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        props = new AppProperties();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void allow_ShouldSendSameScriptArgumentsAsBlockingLimiter() {
+        when(redis.execute(any(RedisScript.class), anyList(), anyList()))
+                .thenReturn(Flux.just(1L, 0L));
+        ReactiveRateLimiter limiter = new ReactiveRateLimiter(redis, props, metrics);
+
+        StepVerifier.create(limiter.allow("create", "127.0.0.1")).expectNext(true).verifyComplete();
+
+        verify(redis).execute(any(RedisScript.class), eq(List.of("rate:create:127.0.0.1")),
+                eq(List.of("1000000", "60000000", "1")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void allow_ShouldAdmitFromLeasedTokens_WithLocalAdmission() {
+        props.getRateLimit().setLocalAdmission(true);
+        props.getRateLimit().setLeaseSize(3);
+        when(redis.execute(any(RedisScript.class), anyList(), anyList()))
+                .thenReturn(Flux.just(List.of(3L, 0L)));
+        ReactiveRateLimiter limiter = new ReactiveRateLimiter(redis, props, metrics);
+
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(limiter.allow("create", "127.0.0.1")).expectNext(true).verifyComplete();
+        }
+
+        verify(redis, times(1)).execute(any(RedisScript.class), anyList(), anyList());
+    }
+}
@@ -0,0 +1,38 @@
+package url.shortener.challenge.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void mightContain_ShouldNeverMissAnAddedCode() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+        for (int i = 0; i < 5_000; i++) {
+            filter.put("code" + i);
+        }
+
+        for (int i = 0; i < 5_000; i++) {
+            assertThat(filter.mightContain("code" + i)).isTrue();
+        }
+    }
+
+    @Test
+    void mightContain_ShouldStayNearTargetRate_AfterGrowing() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("code" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(falsePositives).isLessThan(300);
+        assertThat(filter.approximateElementCount()).isBetween(9_000L, 11_000L);
+    }
+}
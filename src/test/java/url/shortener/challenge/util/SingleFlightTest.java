@@ -0,0 +1,79 @@
+package url.shortener.challenge.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    @Test
+    void execute_ShouldRunLoaderOnce_ForConcurrentCallers() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService pool = Executors.newFixedThreadPool(8)) {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(pool.submit(() -> flight.execute("abc123", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "https://example.com";
+            })));
+            loading.await(5, TimeUnit.SECONDS);
+            for (int i = 0; i < 7; i++) {
+                results.add(pool.submit(() -> flight.execute("abc123", () -> {
+                    loads.incrementAndGet();
+                    return "https://other.com";
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("https://example.com");
+            }
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void execute_ShouldLoadAgain_OnceThePreviousLoadCompleted() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        flight.execute("abc123", loads::incrementAndGet);
+        int second = flight.execute("abc123", loads::incrementAndGet);
+
+        assertThat(second).isEqualTo(2);
+    }
+
+    @Test
+    void execute_ShouldPropagateLoaderException() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+
+        assertThatThrownBy(() -> flight.execute("abc123", () -> {
+            throw new IllegalStateException("down");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("down");
+        assertThat(flight.execute("abc123", () -> "ok")).isEqualTo("ok");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package url.shortener.challenge.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UrlMetricsTest {
+
+    @Test
+    void record_ShouldFeedTheStageTimer() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UrlMetrics metrics = new UrlMetrics(registry);
+
+        metrics.record(UrlMetrics.Stage.REDIS_LOOKUP, System.nanoTime() - 1_000_000);
+
+        assertThat(registry.get("url.stage").tag("stage", "redis_lookup").timer().count()).isEqualTo(1);
+        assertThat(registry.get("url.stage").tag("stage", "mongo_lookup").timer().count()).isZero();
+    }
+
+    @Test
+    void count_ShouldFeedTheOutcomeCounter() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UrlMetrics metrics = new UrlMetrics(registry);
+
+        metrics.count(UrlMetrics.Outcome.EXPIRED);
+        metrics.count(UrlMetrics.Outcome.EXPIRED);
+
+        assertThat(registry.get("url.resolve").tag("outcome", "expired").counter().count()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,27 @@
+package url.shortener.challenge.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UrlNormalizerTest {
+
+    @Test
+    void normalize_ShouldLowerCaseSchemeAndHost_AndDropDefaultPort() {
+        assertThat(UrlNormalizer.normalize("HTTPS://Example.COM:443")).isEqualTo("https://example.com/");
+        assertThat(UrlNormalizer.normalize("http://example.com:80/a")).isEqualTo("http://example.com/a");
+        assertThat(UrlNormalizer.normalize("http://example.com:8080/a")).isEqualTo("http://example.com:8080/a");
+    }
+
+    @Test
+    void normalize_ShouldKeepPathQueryAndFragmentAsSubmitted() {
+        assertThat(UrlNormalizer.normalize("https://example.com/A%2Fb?Q=1#Top"))
+                .isEqualTo("https://example.com/A%2Fb?Q=1#Top");
+    }
+
+    @Test
+    void normalize_ShouldReturnInput_WhenNotAnAbsoluteUrl() {
+        assertThat(UrlNormalizer.normalize("not a url")).isEqualTo("not a url");
+        assertThat(UrlNormalizer.normalize("mailto:someone@example.com")).isEqualTo("mailto:someone@example.com");
+    }
+}